@@ -15,6 +15,10 @@ import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
 
+import io.github.clearwsd.parser.CachingParser;
+import io.github.clearwsd.parser.NlpParser;
+import io.github.clearwsd.parser.ParseCache;
+import io.github.clearwsd.parser.StanfordDependencyParser;
 import io.github.clearwsd.parser.StanfordTokenizer;
 import io.github.clearwsd.verbnet.VerbNetSenseInventory;
 import lombok.Getter;
@@ -41,12 +45,23 @@ public class AnnotationUtil {
     @Getter
     @Parameter(names = {"-output", "-o"}, description = "Output path, e.g. 'take-annotations.txt'", required = true)
     private String outputPath;
+    @Getter
+    @Parameter(names = "-parseCache", description = "Optional path to a parse cache, to which annotated sentences are added, "
+            + "so that they don't need to be re-parsed for training")
+    private String parseCachePath;
+    @Getter
+    @Parameter(names = "-parseCacheFingerprint", description = "Identifier of the parser and its models and options, required "
+            + "with -parseCache (cached parses are only reused under the same fingerprint, so change it with the parser)")
+    private String parseCacheFingerprint;
 
     private AnnotationUtil(String... args) {
         JCommander cmd = new JCommander(this);
         cmd.setProgramName(this.getClass().getSimpleName());
         try {
             cmd.parse(args);
+            if (parseCachePath != null && parseCacheFingerprint == null) {
+                throw new ParameterException("A parser fingerprint (-parseCacheFingerprint) is required with -parseCache.");
+            }
         } catch (ParameterException e) {
             System.err.println(e.getMessage());
             cmd.usage();
@@ -61,6 +76,9 @@ public class AnnotationUtil {
 
         Scanner scanner = new Scanner(System.in);
         StanfordTokenizer tokenizer = new StanfordTokenizer();
+        ParseCache parseCache = util.getParseCachePath() == null ? null : ParseCache.open(util.getParseCachePath());
+        NlpParser parser = parseCache == null ? null
+                : new CachingParser(new StanfordDependencyParser(), parseCache, util.getParseCacheFingerprint());
 
         Set<String> words = LEMMA_MAPPINGS.get(lemma);
         VerbNetSenseInventory vn = new VerbNetSenseInventory();
@@ -98,8 +116,15 @@ public class AnnotationUtil {
                             String.join(" ", tokens)));
                     printWriter.flush();
                     ++sent;
+                    if (parser != null) {
+                        parser.parse(tokens);
+                    }
                 }
             } while (true);
+        } finally {
+            if (parseCache != null) {
+                parseCache.close();
+            }
         }
 
     }
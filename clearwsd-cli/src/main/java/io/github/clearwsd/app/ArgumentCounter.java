@@ -0,0 +1,403 @@
+/*
+ * Copyright (C) 2017  James Gung
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.clearwsd.app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import io.github.clearwsd.type.SymbolTable;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts of (predicate, sense, relation, argument) tuples, stored in primitive open-addressing hash maps over interned symbol
+ * IDs. Each counting thread updates its own partial counts without synchronization. When a partial grows beyond a given number
+ * of entries, it is spilled to disk as a run sorted by key and cleared, so memory usage is bounded by the spill threshold
+ * (and the symbol table) rather than the number of distinct tuples. Partials and runs are merged in {@link #forEach}.
+ * <p>
+ * Counts are pending until the thread that made them calls {@link #commit()}, and pending counts are discarded by
+ * {@link #rollback()}, so that a unit of work (such as a single file) that fails partway contributes no counts. Only committed
+ * counts are merged.
+ *
+ * @author jamesgung
+ */
+@Slf4j
+public class ArgumentCounter {
+
+    private static final int KEY_SIZE = 4;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Consumer of merged counts.
+     */
+    @FunctionalInterface
+    public interface CountConsumer {
+        void accept(String predicate, String sense, String relation, String argument, long count);
+    }
+
+    private final SymbolTable symbols = new SymbolTable();
+    private final int spillThreshold;
+    private final Path spillDir;
+    private final List<Partial> partials = Collections.synchronizedList(new ArrayList<>());
+    private final List<Path> runs = Collections.synchronizedList(new ArrayList<>());
+    private final List<Path> pendingRuns = Collections.synchronizedList(new ArrayList<>());
+    private final ThreadLocal<Partial> local = ThreadLocal.withInitial(() -> {
+        Partial partial = new Partial();
+        partials.add(partial);
+        return partial;
+    });
+    private final ThreadLocal<Pending> pending = ThreadLocal.withInitial(Pending::new);
+
+    /**
+     * Initialize an argument counter.
+     *
+     * @param spillThreshold maximum number of entries held in memory by each counting thread before spilling to disk
+     * @param spillDir       directory in which sorted runs are written
+     */
+    public ArgumentCounter(int spillThreshold, Path spillDir) {
+        this.spillThreshold = Math.max(1, spillThreshold);
+        this.spillDir = spillDir;
+    }
+
+    /**
+     * Increment the count of a given tuple in the calling thread's pending counts.
+     */
+    public void increment(String predicate, String sense, String relation, String argument) {
+        Pending pending = this.pending.get();
+        pending.counts.add(symbols.id(predicate), symbols.id(sense), symbols.id(relation), symbols.id(argument), 1);
+        if (pending.counts.size >= spillThreshold) {
+            Path run = spill(pending.counts);
+            pending.runs.add(run);
+            pendingRuns.add(run);
+        }
+    }
+
+    /**
+     * Add the calling thread's pending counts to its committed counts.
+     */
+    public void commit() {
+        Pending pending = this.pending.get();
+        Partial partial = local.get();
+        pending.counts.forEach(partial::add);
+        pending.counts.clear();
+        runs.addAll(pending.runs);
+        pendingRuns.removeAll(pending.runs);
+        pending.runs.clear();
+        if (partial.size >= spillThreshold) {
+            runs.add(spill(partial));
+        }
+    }
+
+    /**
+     * Discard the calling thread's pending counts.
+     */
+    public void rollback() {
+        Pending pending = this.pending.get();
+        pending.counts.clear();
+        pendingRuns.removeAll(pending.runs);
+        delete(pending.runs);
+    }
+
+    /**
+     * Merge all committed partial counts and spilled runs, passing each distinct tuple and its total count to a given consumer.
+     * Must only be called once all counting threads have finished. Counts are cleared afterwards.
+     *
+     * @param consumer count consumer
+     */
+    public void forEach(CountConsumer consumer) {
+        try {
+            if (runs.isEmpty()) {
+                Partial merged = new Partial();
+                for (Partial partial : partials) {
+                    partial.forEach(merged::add);
+                }
+                merged.forEach((predicate, sense, relation, argument, count) -> consumer.accept(symbols.symbol(predicate),
+                        symbols.symbol(sense), symbols.symbol(relation), symbols.symbol(argument), count));
+            } else {
+                for (Partial partial : partials) {
+                    if (partial.size > 0) {
+                        runs.add(spill(partial));
+                    }
+                }
+                merge(consumer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error merging argument counts", e);
+        } finally {
+            // runs of uncommitted counts (e.g. from threads that failed without rolling back) are discarded as well
+            delete(runs);
+            delete(pendingRuns);
+            partials.forEach(Partial::clear);
+        }
+    }
+
+    private static void delete(List<Path> runs) {
+        synchronized (runs) {
+            for (Path run : runs) {
+                try {
+                    Files.deleteIfExists(run);
+                } catch (IOException e) {
+                    log.warn("Unable to delete spilled counts at {}", run, e);
+                }
+            }
+            runs.clear();
+        }
+    }
+
+    private Path spill(Partial partial) {
+        try {
+            Files.createDirectories(spillDir);
+            Path run = Files.createTempFile(spillDir, "counts", ".run");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+                for (int slot : partial.sortedSlots()) {
+                    int offset = slot * KEY_SIZE;
+                    for (int i = 0; i < KEY_SIZE; ++i) {
+                        out.writeInt(partial.keys[offset + i]);
+                    }
+                    out.writeLong(partial.counts[slot]);
+                }
+            }
+            log.debug("Spilled {} argument counts to {}", partial.size, run);
+            partial.clear();
+            return run;
+        } catch (IOException e) {
+            throw new RuntimeException("Error spilling argument counts to " + spillDir, e);
+        }
+    }
+
+    private void merge(CountConsumer consumer) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>((r1, r2) -> compare(r1.key, 0, r2.key, 0));
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                readers.add(reader);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+            int[] key = new int[KEY_SIZE];
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                System.arraycopy(reader.key, 0, key, 0, KEY_SIZE);
+                long count = 0;
+                while (true) {
+                    count += reader.count;
+                    if (reader.next()) {
+                        queue.add(reader);
+                    }
+                    if (queue.isEmpty() || compare(queue.peek().key, 0, key, 0) != 0) {
+                        break;
+                    }
+                    reader = queue.poll();
+                }
+                consumer.accept(symbols.symbol(key[0]), symbols.symbol(key[1]), symbols.symbol(key[2]),
+                        symbols.symbol(key[3]), count);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.in.close();
+            }
+        }
+    }
+
+    private static int compare(int[] keys1, int offset1, int[] keys2, int offset2) {
+        for (int i = 0; i < KEY_SIZE; ++i) {
+            int result = Integer.compare(keys1[offset1 + i], keys2[offset2 + i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Consumer of entries identified by symbol IDs.
+     */
+    @FunctionalInterface
+    private interface EntryConsumer {
+        void accept(int predicate, int sense, int relation, int argument, long count);
+    }
+
+    /**
+     * Open-addressing hash map from 4-ID keys to counts, using linear probing. Slots with a count of 0 are empty.
+     */
+    private static class Partial {
+
+        private int[] keys;
+        private long[] counts;
+        private int mask;
+        private int size;
+
+        private Partial() {
+            clear();
+        }
+
+        private void clear() {
+            keys = new int[INITIAL_CAPACITY * KEY_SIZE];
+            counts = new long[INITIAL_CAPACITY];
+            mask = INITIAL_CAPACITY - 1;
+            size = 0;
+        }
+
+        private void add(int predicate, int sense, int relation, int argument, long count) {
+            int slot = hash(predicate, sense, relation, argument) & mask;
+            while (counts[slot] != 0) {
+                int offset = slot * KEY_SIZE;
+                if (keys[offset] == predicate && keys[offset + 1] == sense && keys[offset + 2] == relation
+                        && keys[offset + 3] == argument) {
+                    counts[slot] += count;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int offset = slot * KEY_SIZE;
+            keys[offset] = predicate;
+            keys[offset + 1] = sense;
+            keys[offset + 2] = relation;
+            keys[offset + 3] = argument;
+            counts[slot] = count;
+            if (++size > counts.length * 0.6) {
+                resize();
+            }
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            long[] oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            counts = new long[oldCounts.length * 2];
+            mask = counts.length - 1;
+            size = 0;
+            for (int slot = 0; slot < oldCounts.length; ++slot) {
+                if (oldCounts[slot] != 0) {
+                    int offset = slot * KEY_SIZE;
+                    add(oldKeys[offset], oldKeys[offset + 1], oldKeys[offset + 2], oldKeys[offset + 3], oldCounts[slot]);
+                }
+            }
+        }
+
+        private void forEach(EntryConsumer consumer) {
+            for (int slot = 0; slot < counts.length; ++slot) {
+                if (counts[slot] != 0) {
+                    int offset = slot * KEY_SIZE;
+                    consumer.accept(keys[offset], keys[offset + 1], keys[offset + 2], keys[offset + 3], counts[slot]);
+                }
+            }
+        }
+
+        private int[] sortedSlots() {
+            int[] slots = new int[size];
+            int index = 0;
+            for (int slot = 0; slot < counts.length; ++slot) {
+                if (counts[slot] != 0) {
+                    slots[index++] = slot;
+                }
+            }
+            sort(slots, 0, slots.length - 1);
+            return slots;
+        }
+
+        private void sort(int[] slots, int low, int high) {
+            while (low < high) {
+                int pivot = slots[(low + high) >>> 1];
+                int i = low;
+                int j = high;
+                while (i <= j) {
+                    while (compare(keys, slots[i] * KEY_SIZE, keys, pivot * KEY_SIZE) < 0) {
+                        ++i;
+                    }
+                    while (compare(keys, slots[j] * KEY_SIZE, keys, pivot * KEY_SIZE) > 0) {
+                        --j;
+                    }
+                    if (i <= j) {
+                        int tmp = slots[i];
+                        slots[i++] = slots[j];
+                        slots[j--] = tmp;
+                    }
+                }
+                // recurse into the smaller side to bound stack depth
+                if (j - low < high - i) {
+                    sort(slots, low, j);
+                    low = i;
+                } else {
+                    sort(slots, i, high);
+                    high = j;
+                }
+            }
+        }
+
+        private static int hash(int predicate, int sense, int relation, int argument) {
+            int hash = predicate;
+            hash = 31 * hash + sense;
+            hash = 31 * hash + relation;
+            hash = 31 * hash + argument;
+            hash ^= hash >>> 16;
+            hash *= 0x85ebca6b;
+            hash ^= hash >>> 13;
+            return hash;
+        }
+    }
+
+    /**
+     * Counts made by a single thread since its last commit or rollback.
+     */
+    private static class Pending {
+
+        private final Partial counts = new Partial();
+        private final List<Path> runs = new ArrayList<>();
+    }
+
+    /**
+     * Sequential reader over a sorted run.
+     */
+    private static class RunReader {
+
+        private final DataInputStream in;
+        private final int[] key = new int[KEY_SIZE];
+        private long count;
+
+        private RunReader(Path run) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+        }
+
+        private boolean next() throws IOException {
+            try {
+                key[0] = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            for (int i = 1; i < KEY_SIZE; ++i) {
+                key[i] = in.readInt();
+            }
+            count = in.readLong();
+            return true;
+        }
+    }
+
+}
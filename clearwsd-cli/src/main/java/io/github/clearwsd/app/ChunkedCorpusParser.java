@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2017  James Gung
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.clearwsd.app;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.io.ByteStreams;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import io.github.clearwsd.corpus.TextCorpusReader;
+import io.github.clearwsd.parser.NlpParser;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resumable parser for corpora of raw text files. Files are split into chunks at line boundaries, and chunks from all files are
+ * placed in a single queue, largest files first, from which a pool of workers (each with its own {@link NlpParser}) take work
+ * as they finish, so that large and small files are balanced across workers. Each chunk is parsed to its own gzipped CoNLL
+ * shard, and once all chunks of a file are done, the shards are concatenated (as a multi-member gzip file) into the file's
+ * output.
+ * <p>
+ * Completed chunks and files are recorded in a {@link ProgressJournal}, so that an interrupted run resumes with the first
+ * incomplete chunk of each file. Chunk boundaries depend only on file contents and the chunk size, and journal keys include
+ * the file length and modification time, so changed files are parsed again from the start.
+ *
+ * @author jamesgung
+ */
+@Slf4j
+public class ChunkedCorpusParser {
+
+    private static final String SHARD_EXT = ".dep.gz";
+    private static final String SHARDS_DIR_EXT = ".shards";
+    private static final String TMP_EXT = ".tmp";
+
+    private final Supplier<NlpParser> parserFactory;
+    private final int threads;
+    private final long chunkBytes;
+    private final ProgressJournal journal;
+
+    /**
+     * Initialize a chunked corpus parser.
+     *
+     * @param parserFactory supplier of parsers, called once per worker thread
+     * @param threads       number of worker threads (if less than 1, the number of available processors)
+     * @param chunkBytes    approximate size of chunks, in bytes
+     * @param journal       journal recording completed chunks and files
+     */
+    public ChunkedCorpusParser(Supplier<NlpParser> parserFactory, int threads, long chunkBytes, ProgressJournal journal) {
+        this.parserFactory = parserFactory;
+        this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+        this.chunkBytes = Math.max(1, chunkBytes);
+        this.journal = journal;
+    }
+
+    /**
+     * Parse a collection of raw text files, writing gzipped CoNLL trees for each file to a corresponding output file.
+     *
+     * @param outputs map from raw text files to output files
+     * @return input files that have been completely parsed, in this or a previous run
+     */
+    public List<File> parse(Map<File, File> outputs) {
+        List<File> done = Collections.synchronizedList(new ArrayList<>());
+        List<FileJob> jobs = new ArrayList<>();
+        for (Map.Entry<File, File> entry : outputs.entrySet()) {
+            FileJob job = new FileJob(entry.getKey(), entry.getValue());
+            if (journal.completed(job.key()) && job.output.exists()) {
+                done.add(job.input);
+                continue;
+            }
+            jobs.add(job);
+        }
+        jobs.sort(Comparator.comparingLong((FileJob job) -> job.length).reversed());
+
+        Queue<Chunk> queue = new ConcurrentLinkedQueue<>();
+        int resumed = 0;
+        for (FileJob job : jobs) {
+            List<Chunk> chunks;
+            try {
+                chunks = job.chunks();
+            } catch (IOException e) {
+                log.warn("Unable to split file {} into chunks", job.input, e);
+                continue;
+            }
+            job.remaining.set(chunks.size());
+            for (Chunk chunk : chunks) {
+                if (journal.completed(chunk.key()) && chunk.shard().exists()) {
+                    job.remaining.decrementAndGet();
+                    ++resumed;
+                } else {
+                    queue.add(chunk);
+                }
+            }
+            if (job.remaining.get() == 0 && merge(job)) {
+                done.add(job.input);
+            }
+        }
+        if (queue.isEmpty()) {
+            return new ArrayList<>(done);
+        }
+        log.debug("Parsing {} chunks ({} already complete) from {} files with {} workers", queue.size(), resumed, jobs.size(),
+                threads);
+
+        Stopwatch sw = Stopwatch.createStarted();
+        AtomicInteger parsed = new AtomicInteger();
+        int total = queue.size();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; ++i) {
+            executor.execute(() -> {
+                TextCorpusReader reader;
+                try {
+                    reader = new TextCorpusReader(parserFactory.get());
+                } catch (RuntimeException e) {
+                    log.error("Unable to initialize parser, stopping worker", e);
+                    return;
+                }
+                Chunk chunk;
+                while ((chunk = queue.poll()) != null) {
+                    if (!parse(chunk, reader)) {
+                        continue;
+                    }
+                    log.debug("Parsed chunk {} of {} ({} of {} total, {})", chunk.index + 1, chunk.job.chunkCount,
+                            parsed.incrementAndGet(), total, sw);
+                    if (chunk.job.remaining.decrementAndGet() == 0 && merge(chunk.job)) {
+                        done.add(chunk.job.input);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while parsing.", e);
+        }
+        return new ArrayList<>(done);
+    }
+
+    private boolean parse(Chunk chunk, TextCorpusReader reader) {
+        File shard = chunk.shard();
+        File tmp = new File(shard.getPath() + TMP_EXT);
+        try {
+            Files.createDirectories(shard.getParentFile().toPath());
+            try (InputStream inputStream = chunk.open();
+                 OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(tmp))) {
+                reader.parseAndWrite(inputStream, outputStream, 1000);
+            }
+            Files.move(tmp.toPath(), shard.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal.complete(chunk.key());
+            return true;
+        } catch (Exception e) {
+            log.warn("Unable to parse chunk {} of file {}", chunk.index, chunk.job.input, e);
+            return false;
+        }
+    }
+
+    private boolean merge(FileJob job) {
+        Path tmp = new File(job.output.getPath() + TMP_EXT).toPath();
+        try {
+            try (OutputStream outputStream = new FileOutputStream(tmp.toFile())) {
+                for (int i = 0; i < job.chunkCount; ++i) {
+                    Files.copy(job.shard(i).toPath(), outputStream);
+                }
+            }
+            Files.move(tmp, job.output.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal.complete(job.key());
+            for (int i = 0; i < job.chunkCount; ++i) {
+                Files.deleteIfExists(job.shard(i).toPath());
+            }
+            Files.deleteIfExists(job.shardDir().toPath());
+            log.debug("Saved trees for {} to {}", job.input, job.output);
+            return true;
+        } catch (IOException e) {
+            log.warn("Unable to merge parsed chunks of {} into {}", job.input, job.output, e);
+            return false;
+        }
+    }
+
+    /**
+     * Single input file, along with its output file and chunks.
+     */
+    private class FileJob {
+
+        private final File input;
+        private final File output;
+        private final long length;
+        private final long modified;
+        private final AtomicInteger remaining = new AtomicInteger();
+        private int chunkCount;
+
+        private FileJob(File input, File output) {
+            this.input = input;
+            this.output = output;
+            this.length = input.length();
+            this.modified = input.lastModified();
+        }
+
+        private String key() {
+            return String.join("\t", "file", input.getPath(), Long.toString(length), Long.toString(modified));
+        }
+
+        private File shardDir() {
+            return new File(output.getPath() + SHARDS_DIR_EXT);
+        }
+
+        private File shard(int index) {
+            return new File(shardDir(), String.format("%06d%s", index, SHARD_EXT));
+        }
+
+        private List<Chunk> chunks() throws IOException {
+            List<Chunk> chunks = new ArrayList<>();
+            try (RandomAccessFile file = new RandomAccessFile(input, "r")) {
+                long start = 0;
+                while (start < length) {
+                    long end = lineEnd(file, start + chunkBytes);
+                    chunks.add(new Chunk(this, chunks.size(), start, end));
+                    start = end;
+                }
+            }
+            chunkCount = chunks.size();
+            return chunks;
+        }
+
+        private long lineEnd(RandomAccessFile file, long position) throws IOException {
+            if (position >= length) {
+                return length;
+            }
+            file.seek(position);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = file.read(buffer)) > 0) {
+                for (int i = 0; i < read; ++i) {
+                    if (buffer[i] == '\n') {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Range of complete lines within a file.
+     */
+    private class Chunk {
+
+        private final FileJob job;
+        private final int index;
+        private final long start;
+        private final long end;
+
+        private Chunk(FileJob job, int index, long start, long end) {
+            this.job = job;
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+
+        private String key() {
+            return String.join("\t", "chunk", job.key(), Long.toString(chunkBytes), Integer.toString(index));
+        }
+
+        private File shard() {
+            return job.shard(index);
+        }
+
+        private InputStream open() throws IOException {
+            FileChannel channel = FileChannel.open(job.input.toPath());
+            channel.position(start);
+            return ByteStreams.limit(Channels.newInputStream(channel), end - start);
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2017  James Gung
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package io.github.clearwsd.app;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durable, append-only journal of completed tasks, used to resume long-running jobs after a crash or restart. Each completed
+ * task is written as a single line and flushed to disk before {@link #complete(String)} returns, so a task found in the journal
+ * is known to have finished. A partially written last line (from an interrupted write) is discarded when the journal is opened.
+ *
+ * @author jamesgung
+ */
+@Slf4j
+public class ProgressJournal implements Closeable {
+
+    private final Path path;
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+    private final FileChannel channel;
+
+    /**
+     * Open a journal at a given path, reading any tasks completed in previous runs.
+     *
+     * @param path journal path
+     */
+    public ProgressJournal(Path path) {
+        this.path = path;
+        try {
+            long valid = 0;
+            if (Files.exists(path)) {
+                long size = Files.size(path);
+                try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    long position = 0;
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        position += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                        if (position <= size) {
+                            completed.add(line);
+                            valid = position;
+                        }
+                    }
+                }
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.size() > valid) {
+                log.warn("Discarding incomplete entry at the end of progress journal {}", path);
+                channel.truncate(valid);
+            }
+            channel.position(valid);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to open progress journal at " + path, e);
+        }
+        if (completed.size() > 0) {
+            log.debug("Resuming from {} completed tasks in progress journal {}", completed.size(), path);
+        }
+    }
+
+    /**
+     * Return true if a given task was completed in this or a previous run.
+     *
+     * @param task task key
+     */
+    public boolean completed(String task) {
+        return completed.contains(task);
+    }
+
+    /**
+     * Durably record the completion of a given task.
+     *
+     * @param task task key, which may not contain line breaks
+     */
+    public synchronized void complete(String task) {
+        if (task.indexOf('\n') >= 0 || task.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Task keys may not contain line breaks: " + task);
+        }
+        if (!completed.add(task)) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap((task + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write to progress journal at " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to close progress journal at " + path, e);
+        }
+    }
+
+}
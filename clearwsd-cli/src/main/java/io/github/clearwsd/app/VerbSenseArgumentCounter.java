@@ -48,9 +48,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -64,9 +67,10 @@ import io.github.clearwsd.type.FeatureType;
 import io.github.clearwsd.WordSenseAnnotator;
 import io.github.clearwsd.WordSenseClassifier;
 import io.github.clearwsd.corpus.CorpusReader;
-import io.github.clearwsd.corpus.TextCorpusReader;
 import io.github.clearwsd.corpus.semlink.VerbNetReader;
 import io.github.clearwsd.feature.annotator.Annotator;
+import io.github.clearwsd.parser.CachingParser;
+import io.github.clearwsd.parser.ParseCache;
 import io.github.clearwsd.parser.StanfordDependencyParser;
 import io.github.clearwsd.verbnet.DefaultPredicateAnnotator;
 import edu.stanford.nlp.util.Comparators;
@@ -157,6 +161,29 @@ public class VerbSenseArgumentCounter {
     private boolean parseOnly = false;
     @Parameter(names = "--reparse", description = "Parse even if there is an existing parsed file")
     private boolean reparse = false;
+    @Parameter(names = "-threads", description = "Number of parser threads, each with its own parser (defaults to the number "
+            + "of available processors)")
+    private int threads = Runtime.getRuntime().availableProcessors();
+    @Parameter(names = "-chunkSize", description = "Size in MB of the chunks raw files are split into for parsing")
+    private long chunkSize = 16;
+    @Parameter(names = "-journal", description = "Path to progress journal used to resume parsing (defaults to DB path with "
+            + "a .journal extension)")
+    private String journalPath;
+    @Parameter(names = "-parseCache", description = "Path to a persistent parse cache, which can be shared across corpora and "
+            + "tools, so that only new or changed sentences are parsed")
+    private String parseCachePath;
+    @Parameter(names = "-parseCacheSize", description = "Maximum size of the parse cache in MB, beyond which it is compacted")
+    private long parseCacheSize = ParseCache.DEFAULT_MAX_BYTES / (1024 * 1024);
+    @Parameter(names = "-parseCacheFingerprint", description = "Identifier of the parser and its models and options, required "
+            + "with -parseCache (cached parses are only reused under the same fingerprint, so change it with the parser)")
+    private String parseCacheFingerprint;
+
+    @Parameter(names = "-spillThreshold", description = "Maximum number of distinct arguments counted in memory by each "
+            + "thread before spilling sorted counts to disk")
+    private int spillThreshold = 2000000;
+    @Parameter(names = "-spillDir", description = "Directory for spilled argument counts (defaults to the system temporary "
+            + "directory)")
+    private String spillPath;
 
     @Parameter(names = "-limit", description = "Maximum number of entries to return in output", order = 900)
     private int limit = 10000000;
@@ -187,6 +214,9 @@ public class VerbSenseArgumentCounter {
                 System.exit(0);
             }
             cmd.parse(args);
+            if (parseCachePath != null && parseCacheFingerprint == null) {
+                throw new ParameterException("A parser fingerprint (-parseCacheFingerprint) is required with -parseCache.");
+            }
         } catch (ParameterException e) {
             System.err.println(e.getMessage());
             cmd.usage();
@@ -222,8 +252,26 @@ public class VerbSenseArgumentCounter {
                 throw new RuntimeException("Unable to remove old DB");
             }
         }
+        if (overwrite) {
+            // write-ahead logs of the old DB would otherwise be replayed into the new one
+            File dbFile = new File(dbPath).getAbsoluteFile();
+            File[] logs = dbFile.getParentFile().listFiles((dir, name) -> name.startsWith(dbFile.getName() + ".wal."));
+            for (File wal : logs == null ? new File[0] : logs) {
+                if (!wal.delete()) {
+                    throw new RuntimeException("Unable to remove old DB write-ahead log " + wal);
+                }
+            }
+        }
+        if (journalPath == null) {
+            journalPath = dbPath + ".journal";
+        }
+        if (overwrite && new File(journalPath).exists() && !new File(journalPath).delete()) {
+            throw new RuntimeException("Unable to remove old progress journal");
+        }
+        // counts and processed files are committed together, so an interrupted run leaves neither
         db = DBMaker.fileDB(dbPath)
                 .fileMmapEnable()
+                .transactionEnable()
                 .closeOnJvmShutdown()
                 .make();
         if (overwrite) {
@@ -237,6 +285,7 @@ public class VerbSenseArgumentCounter {
             parsed = db.hashSet(PARSED).serializer(Serializer.STRING).createOrOpen();
             processed = db.hashSet(COMPLETE).serializer(Serializer.STRING).createOrOpen();
         }
+        db.commit();
     }
 
     private void initializeAnnotator() {
@@ -279,44 +328,90 @@ public class VerbSenseArgumentCounter {
                 .collect(Collectors.toList());
         if (toParse.size() > 0) {
             log.debug("Found {} files ending in {} at {}", toParse.size(), rawExt, corpusPath);
-            TextCorpusReader reader = new TextCorpusReader(new StanfordDependencyParser());
-            toParse.parallelStream().forEach(
-                    file -> {
-                        if (!parsed.contains(file.getPath())) {
-                            try (FileInputStream inputStream = new FileInputStream(file);
-                                 OutputStream outputStream = new GZIPOutputStream(
-                                         new FileOutputStream(file.getPath() + corpusExt))) {
-                                // read instances
-                                log.debug("Parsing file {} and saving trees to {}", file, file.getPath() + corpusExt);
-                                reader.parseAndWrite(inputStream, outputStream, 1000);
-                                parsed.add(file.getPath());
-                            } catch (IOException e) {
-                                log.warn("Unable to process file {}", file, e);
-                            }
-                        }
-                    }
-            );
+            ParseCache parseCache = parseCachePath == null ? null
+                    : ParseCache.open(Paths.get(parseCachePath), parseCacheSize * 1024 * 1024);
+            Map<File, File> outputs = new LinkedHashMap<>();
+            toParse.stream()
+                    .filter(file -> !parsed.contains(file.getPath()))
+                    .forEach(file -> outputs.put(file, new File(file.getPath() + corpusExt)));
+            // files are split into chunks, parsed by a pool of workers, and resumed from the journal after restarts
+            try (ProgressJournal journal = new ProgressJournal(Paths.get(journalPath))) {
+                ChunkedCorpusParser corpusParser = new ChunkedCorpusParser(() -> parseCache == null
+                        ? new StanfordDependencyParser()
+                        : new CachingParser(new StanfordDependencyParser(), parseCache, parseCacheFingerprint),
+                        threads, chunkSize * 1024 * 1024, journal);
+                for (File file : corpusParser.parse(outputs)) {
+                    parsed.add(file.getPath());
+                }
+                db.commit();
+            }
+            if (parseCache != null) {
+                parseCache.close();
+            }
         }
         if (!parseOnly) {
-            for (File file : getCorpusFiles(corpusExt)) {
-                if (processed.contains(file.getPath())) { // skip already-processed files
-                    continue;
-                }
+            count();
+            outputEntries();
+        }
+        db.close();
+    }
+
+    /**
+     * Count arguments in all unprocessed files, counting files in parallel into per-thread partial counts. Counts from a file
+     * are only committed to the partial counts once the whole file has been read, so a file that fails partway contributes no
+     * counts and remains unprocessed. Merged counts are added to the DB and files marked as processed in a single transaction
+     * once all files have been counted.
+     */
+    private void count() {
+        List<File> files = getCorpusFiles(corpusExt).stream()
+                .filter(file -> !processed.contains(file.getPath())) // skip already-processed files
+                .collect(Collectors.toList());
+        if (files.isEmpty()) {
+            return;
+        }
+        ArgumentCounter counter = new ArgumentCounter(spillThreshold, Paths.get(spillPath == null
+                ? System.getProperty("java.io.tmpdir") : spillPath));
+        List<File> counted = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        for (File file : files) {
+            executor.execute(() -> {
                 log.debug("Reading file: {}", file.getAbsolutePath());
                 Stopwatch sw = Stopwatch.createStarted();
                 int index = 0;
-                Iterator<DepTree> iterator = readTrees(file);
-                while (iterator.hasNext()) {
-                    process(iterator.next());
-                    if (++index % 10000 == 0) {
-                        log.debug("Processing {} trees/second ({} total).", index / sw.elapsed(TimeUnit.SECONDS), index);
+                try {
+                    Iterator<DepTree> iterator = readTrees(file);
+                    while (iterator.hasNext()) {
+                        process(iterator.next(), counter);
+                        if (++index % 10000 == 0) {
+                            log.debug("Processing {} trees/second ({} total).",
+                                    index * 1000L / Math.max(1, sw.elapsed(TimeUnit.MILLISECONDS)), index);
+                        }
                     }
+                    counter.commit();
+                    counted.add(file);
+                } catch (RuntimeException e) {
+                    counter.rollback();
+                    log.warn("Unable to count arguments in file {}", file, e);
                 }
-                processed.add(file.getPath());
-            }
-            outputEntries();
+            });
         }
-        db.close();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while counting arguments.", e);
+        }
+        Stopwatch sw = Stopwatch.createStarted();
+        counter.forEach((predicate, sense, relation, argument, count) -> {
+            Argument key = new Argument(predicate, sense, relation, argument);
+            Long result = countMap.getOrDefault(key, 0L);
+            countMap.put(key, result + count);
+        });
+        counted.forEach(file -> processed.add(file.getPath()));
+        db.commit();
+        log.debug("Merged argument counts from {} files in {}", counted.size(), sw);
     }
 
     private Iterator<DepTree> readTrees(File file) {
@@ -331,9 +426,10 @@ public class VerbSenseArgumentCounter {
     /**
      * Update counts for a single dependency tree.
      *
-     * @param tree dependency tree
+     * @param tree    dependency tree
+     * @param counter argument counter
      */
-    private void process(DepTree tree) {
+    private void process(DepTree tree, ArgumentCounter counter) {
         if (senseAnnotator != null) {
             senseAnnotator.annotate(tree);
         }
@@ -346,13 +442,9 @@ public class VerbSenseArgumentCounter {
             //noinspection SuspiciousMethodCalls
             depNode.children().stream()
                     .filter(child -> relations.contains(child.feature(FeatureType.Dep)))
-                    .forEach(child -> {
-                        Argument key = new Argument(lemma, sense,
-                                child.feature(FeatureType.Dep),
-                                child.feature(FeatureType.Lemma));
-                        Long result = countMap.getOrDefault(key, 0L);
-                        countMap.put(key, result + 1);
-                    });
+                    .forEach(child -> counter.increment(lemma, sense,
+                            child.feature(FeatureType.Dep),
+                            child.feature(FeatureType.Lemma)));
         }
     }
 
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2017  James Gung
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.clearwsd.app;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link ArgumentCounter} tests.
+ *
+ * @author jamesgung
+ */
+public class ArgumentCounterTest {
+
+    private static final int THREADS = 4;
+    private static final int UNITS = 50;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Count random tuples from several threads, rolling back every fifth unit of work, and return reference counts of the
+     * committed tuples.
+     */
+    private static Map<String, Long> count(ArgumentCounter counter) throws InterruptedException {
+        Map<String, Long> expected = new ConcurrentHashMap<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; ++t) {
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                for (int unit = 0; unit < UNITS; ++unit) {
+                    Map<String, Long> local = new HashMap<>();
+                    for (int i = 0; i < 20; ++i) {
+                        String predicate = "p" + random.nextInt(3);
+                        String sense = "s" + random.nextInt(2);
+                        String relation = "r" + random.nextInt(2);
+                        String argument = "a" + random.nextInt(10);
+                        counter.increment(predicate, sense, relation, argument);
+                        local.merge(String.join("|", predicate, sense, relation, argument), 1L, Long::sum);
+                    }
+                    if (unit % 5 == 0) {
+                        counter.rollback();
+                    } else {
+                        counter.commit();
+                        local.forEach((key, count) -> expected.merge(key, count, Long::sum));
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return expected;
+    }
+
+    private static Map<String, Long> merged(ArgumentCounter counter) {
+        Map<String, Long> results = new HashMap<>();
+        counter.forEach((predicate, sense, relation, argument, count) -> {
+            Long previous = results.put(String.join("|", predicate, sense, relation, argument), count);
+            assertEquals("each tuple should be passed to the consumer once", null, previous);
+        });
+        return results;
+    }
+
+    @Test
+    public void testInMemory() throws InterruptedException, IOException {
+        File spillDir = folder.newFolder("spill");
+        ArgumentCounter counter = new ArgumentCounter(Integer.MAX_VALUE, spillDir.toPath());
+        Map<String, Long> expected = count(counter);
+        assertEquals(expected, merged(counter));
+        assertEquals(0, spillDir.list().length);
+    }
+
+    @Test
+    public void testSpill() throws InterruptedException, IOException {
+        File spillDir = folder.newFolder("spill");
+        ArgumentCounter counter = new ArgumentCounter(1, spillDir.toPath());
+        Map<String, Long> expected = count(counter);
+        assertEquals(expected, merged(counter));
+        // runs are deleted once merged, including runs of rolled back counts
+        assertEquals(0, spillDir.list().length);
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2017  James Gung
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.clearwsd.app;
+
+import com.google.common.io.ByteStreams;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import io.github.clearwsd.parser.NlpParser;
+import io.github.clearwsd.type.DefaultDepNode;
+import io.github.clearwsd.type.DefaultDepTree;
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.FeatureType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ChunkedCorpusParser} tests.
+ *
+ * @author jamesgung
+ */
+public class ChunkedCorpusParserTest {
+
+    private static final int LINES = 200;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Parser producing flat trees over whitespace-separated tokens, which fails on sentences starting with given tokens.
+     */
+    private static class TestParser implements NlpParser {
+
+        private final Set<String> failures;
+        private final AtomicInteger parses;
+
+        private TestParser(AtomicInteger parses, String... failures) {
+            this.parses = parses;
+            this.failures = new HashSet<>(Arrays.asList(failures));
+        }
+
+        @Override
+        public List<String> segment(String input) {
+            return Collections.singletonList(input);
+        }
+
+        @Override
+        public List<String> tokenize(String sentence) {
+            return Arrays.asList(sentence.split(" "));
+        }
+
+        @Override
+        public DepTree parse(List<String> tokens) {
+            if (failures.contains(tokens.get(0))) {
+                throw new IllegalStateException("Unable to parse " + tokens);
+            }
+            parses.incrementAndGet();
+            List<DepNode> nodes = new ArrayList<>();
+            for (int i = 0; i < tokens.size(); ++i) {
+                DefaultDepNode node = new DefaultDepNode(i);
+                node.addFeature(FeatureType.Text, tokens.get(i));
+                node.addFeature(FeatureType.Lemma, tokens.get(i));
+                node.addFeature(FeatureType.Pos, "NN");
+                node.addFeature(FeatureType.Dep, i == 0 ? "root" : "dep");
+                if (i > 0) {
+                    node.head(nodes.get(0));
+                }
+                nodes.add(node);
+            }
+            return new DefaultDepTree(0, nodes, nodes.get(0));
+        }
+    }
+
+    private File writeInput() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < LINES; ++i) {
+            lines.add("sentence-" + i + " word-" + i);
+        }
+        File input = folder.newFile("input.txt");
+        Files.write(input.toPath(), lines, StandardCharsets.UTF_8);
+        return input;
+    }
+
+    private List<File> parse(File input, File output, long chunkBytes, NlpParser parser) {
+        try (ProgressJournal journal = new ProgressJournal(new File(output.getPath() + ".journal").toPath())) {
+            return new ChunkedCorpusParser(() -> parser, 3, chunkBytes, journal)
+                    .parse(Collections.singletonMap(input, output));
+        }
+    }
+
+    private static String read(File output) throws IOException {
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(output.toPath()))) {
+            return new String(ByteStreams.toByteArray(inputStream), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testShards() throws IOException {
+        File input = writeInput();
+        File whole = new File(folder.getRoot(), "whole.dep.gz");
+        assertEquals(Collections.singletonList(input), parse(input, whole, Long.MAX_VALUE, new TestParser(new AtomicInteger())));
+
+        // shards of many small chunks are concatenated in order, then removed
+        File chunked = new File(folder.getRoot(), "chunked.dep.gz");
+        AtomicInteger parses = new AtomicInteger();
+        assertEquals(Collections.singletonList(input), parse(input, chunked, 100, new TestParser(parses)));
+        assertEquals(LINES, parses.get());
+        assertEquals(read(whole), read(chunked));
+        assertTrue(read(chunked).contains("sentence-" + (LINES - 1)));
+        assertFalse(new File(chunked.getPath() + ".shards").exists());
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        File input = writeInput();
+        File whole = new File(folder.getRoot(), "whole.dep.gz");
+        parse(input, whole, Long.MAX_VALUE, new TestParser(new AtomicInteger()));
+
+        // a failing chunk leaves the file incomplete, but completed chunks are journaled
+        File output = new File(folder.getRoot(), "output.dep.gz");
+        AtomicInteger parses = new AtomicInteger();
+        assertTrue(parse(input, output, 100, new TestParser(parses, "sentence-150")).isEmpty());
+        assertFalse(output.exists());
+        assertTrue(parses.get() > 0);
+
+        // resuming only parses the failed chunk
+        AtomicInteger resumed = new AtomicInteger();
+        assertEquals(Collections.singletonList(input), parse(input, output, 100, new TestParser(resumed)));
+        assertTrue("parsed " + resumed.get() + " sentences", resumed.get() > 0 && resumed.get() < 10);
+        // sentences of the failed chunk that were parsed before the failure are parsed again
+        assertTrue(parses.get() + resumed.get() >= LINES);
+        assertEquals(read(whole), read(output));
+        assertFalse(new File(output.getPath() + ".shards").exists());
+
+        // and completed files are not parsed again
+        AtomicInteger repeated = new AtomicInteger();
+        assertEquals(Collections.singletonList(input), parse(input, output, 100, new TestParser(repeated)));
+        assertEquals(0, repeated.get());
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2017  James Gung
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package io.github.clearwsd.app;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ProgressJournal} tests.
+ *
+ * @author jamesgung
+ */
+public class ProgressJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testResume() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("progress.journal");
+        try (ProgressJournal journal = new ProgressJournal(path)) {
+            journal.complete("first");
+            journal.complete("second");
+            journal.complete("first");
+        }
+        // simulate a write interrupted partway through an entry
+        Files.write(path, "thi".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (ProgressJournal journal = new ProgressJournal(path)) {
+            assertTrue(journal.completed("first"));
+            assertTrue(journal.completed("second"));
+            assertFalse(journal.completed("thi"));
+            journal.complete("third");
+        }
+        assertEquals(Arrays.asList("first", "second", "third"), Files.readAllLines(path, StandardCharsets.UTF_8));
+        try (ProgressJournal journal = new ProgressJournal(path)) {
+            assertTrue(journal.completed("third"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLineBreak() {
+        try (ProgressJournal journal = new ProgressJournal(folder.getRoot().toPath().resolve("progress.journal"))) {
+            journal.complete("first\nsecond");
+        }
+    }
+
+}
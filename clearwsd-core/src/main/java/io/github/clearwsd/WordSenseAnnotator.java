@@ -23,6 +23,7 @@ import io.github.clearwsd.type.DepNode;
 import io.github.clearwsd.type.DepTree;
 import io.github.clearwsd.type.FeatureType;
 import io.github.clearwsd.type.NlpFocus;
+import io.github.clearwsd.type.OverlayDepTree;
 import io.github.clearwsd.utils.SenseInventory;
 import io.github.clearwsd.verbnet.DefaultPredicateAnnotator;
 import lombok.Getter;
@@ -75,6 +76,19 @@ public class WordSenseAnnotator implements Annotator<DepTree> {
         return instance;
     }
 
+    /**
+     * Annotate a copy-on-write {@link OverlayDepTree overlay} of a given parse, leaving the parse itself unchanged. Several
+     * annotators may annotate the same parse concurrently in this way, as long as the parse is not otherwise modified.
+     *
+     * @param parse base dependency tree
+     * @return overlay containing annotations from this annotator and its target and feature annotators
+     */
+    public OverlayDepTree annotateOverlay(DepTree parse) {
+        OverlayDepTree overlay = new OverlayDepTree(parse);
+        annotate(overlay);
+        return overlay;
+    }
+
     @Override
     public boolean initialized() {
         return targetAnnotator.initialized();
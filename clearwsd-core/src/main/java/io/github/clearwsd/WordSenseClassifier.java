@@ -35,9 +35,10 @@ import io.github.clearwsd.type.DepNode;
 import io.github.clearwsd.type.DepTree;
 import io.github.clearwsd.type.FeatureType;
 import io.github.clearwsd.type.NlpFocus;
+import io.github.clearwsd.utils.CompiledSenseInventory;
 import io.github.clearwsd.utils.LemmaDictionary;
 import io.github.clearwsd.utils.SenseInventory;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
@@ -52,7 +53,6 @@ import static io.github.clearwsd.type.FeatureType.Predicate;
 @Slf4j
 @Getter
 @Accessors(fluent = true)
-@AllArgsConstructor
 public class WordSenseClassifier implements Classifier<NlpFocus<DepNode, DepTree>, String> {
 
     private static final long serialVersionUID = -7555582268789530929L;
@@ -61,21 +61,50 @@ public class WordSenseClassifier implements Classifier<NlpFocus<DepNode, DepTree
     private SenseInventory<?> senseInventory;
     private LemmaDictionary predicateDictionary;
 
+    @Getter(AccessLevel.NONE)
+    private transient volatile CompiledSenseInventory<?> compiledInventory;
+
+    public WordSenseClassifier(Classifier<NlpFocus<DepNode, DepTree>, String> classifier,
+                               SenseInventory<?> senseInventory,
+                               LemmaDictionary predicateDictionary) {
+        this.classifier = classifier;
+        this.senseInventory = senseInventory;
+        this.predicateDictionary = predicateDictionary;
+    }
+
     public WordSenseClassifier(ObjectInputStream is) {
         load(is);
     }
 
+    /**
+     * Return a compiled view of the sense inventory used by this classifier, used for fast sense lookups during prediction.
+     */
+    CompiledSenseInventory<?> compiledInventory() {
+        CompiledSenseInventory<?> result = compiledInventory;
+        if (result == null) {
+            result = new CompiledSenseInventory<>(senseInventory);
+            compiledInventory = result;
+        }
+        return result;
+    }
+
     @Override
     public String classify(NlpFocus<DepNode, DepTree> instance) {
         String lemma = instance.focus().feature(Predicate);
-        Set<String> options = senseInventory.senses(lemma);
+        CompiledSenseInventory<?> inventory = compiledInventory();
+        Set<String> options = inventory.senses(lemma);
         Map<String, Double> scores = classifier.score(instance);
-        return scores.entrySet().stream()
-                .filter(e -> options.contains(e.getKey()))
-                .sorted((e1, e2) -> Double.compare(e2.getValue(), e1.getValue()))
-                .map(Map.Entry::getKey)
-                .findFirst() // get highest scoring sense for a given predicate
-                .orElse(senseInventory.defaultSense(lemma)); // or return the default sense for the predicate
+        String best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            // get highest scoring sense for a given predicate
+            if (score.getValue() > bestScore && options.contains(score.getKey())) {
+                best = score.getKey();
+                bestScore = score.getValue();
+            }
+        }
+        // or return the default sense for the predicate
+        return best != null ? best : inventory.defaultSense(lemma);
     }
 
     @Override
@@ -99,6 +128,7 @@ public class WordSenseClassifier implements Classifier<NlpFocus<DepNode, DepTree
             log.warn("Missing senses: {}", String.join(", ", missingSenses));
         }
         predicateDictionary.train(false);
+        compiledInventory = null;
         classifier.train(train, valid);
     }
 
@@ -118,6 +148,7 @@ public class WordSenseClassifier implements Classifier<NlpFocus<DepNode, DepTree
             //noinspection unchecked
             classifier = (Classifier<NlpFocus<DepNode, DepTree>, String>) inputStream.readObject();
             senseInventory = (SenseInventory) inputStream.readObject();
+            compiledInventory = null;
             predicateDictionary = (LemmaDictionary) inputStream.readObject();
         } catch (IOException | ClassNotFoundException e) {
             throw new RuntimeException("Unable to load classifier: " + e.getMessage(), e);
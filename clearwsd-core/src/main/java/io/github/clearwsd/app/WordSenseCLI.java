@@ -28,7 +28,6 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
@@ -40,7 +39,6 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
@@ -49,6 +47,7 @@ import java.util.stream.Collectors;
 import io.github.clearwsd.DefaultSensePredictor;
 import io.github.clearwsd.WordSenseAnnotator;
 import io.github.clearwsd.WordSenseClassifier;
+import io.github.clearwsd.corpus.BinaryCorpusCache;
 import io.github.clearwsd.corpus.CoNllDepTreeReader;
 import io.github.clearwsd.corpus.CorpusReader;
 import io.github.clearwsd.corpus.LemmaMappingCorpusReader;
@@ -56,11 +55,14 @@ import io.github.clearwsd.corpus.TextCorpusReader;
 import io.github.clearwsd.corpus.semeval.ParsingSemevalReader;
 import io.github.clearwsd.corpus.semeval.SemevalReader;
 import io.github.clearwsd.corpus.semlink.ParsingSemlinkReader;
+import io.github.clearwsd.corpus.semlink.SemlinkWriter;
 import io.github.clearwsd.corpus.semlink.VerbNetReader;
 import io.github.clearwsd.eval.CrossValidation;
 import io.github.clearwsd.eval.Evaluation;
 import io.github.clearwsd.eval.Predictions;
+import io.github.clearwsd.parser.CachingParser;
 import io.github.clearwsd.parser.NlpParser;
+import io.github.clearwsd.parser.ParseCache;
 import io.github.clearwsd.parser.WhitespaceTokenizer;
 import io.github.clearwsd.type.DepNode;
 import io.github.clearwsd.type.DepTree;
@@ -72,6 +74,7 @@ import io.github.clearwsd.utils.ExtJwnlSenseInventory;
 import io.github.clearwsd.utils.InteractiveTestLoop;
 import io.github.clearwsd.utils.LemmaDictionary;
 import io.github.clearwsd.utils.OntoNotesSenseInventory;
+import io.github.clearwsd.utils.OrderedParallelIterator;
 import io.github.clearwsd.utils.SenseInventory;
 import io.github.clearwsd.verbnet.DefaultPredicateAnnotator;
 import io.github.clearwsd.verbnet.DefaultVerbNetClassifier;
@@ -94,6 +97,8 @@ import static io.github.clearwsd.type.FeatureType.Text;
 @Slf4j
 public abstract class WordSenseCLI {
 
+    private static final String BINARY_CACHE_EXT = ".bin";
+
     @AllArgsConstructor
     public enum SenseInventoryType {
         VerbNet(VerbNetSenseInventory::new, path -> new VerbNetSenseInventory(new File(path))),
@@ -117,14 +122,15 @@ public abstract class WordSenseCLI {
     public enum CorpusType {
 
         Semeval(ParsingSemevalReader::new, SemevalReader::new, WordNet),
-        Semlink((unused, parser) -> new ParsingSemlinkReader(parser), (unused) -> new VerbNetReader(), VerbNet);
+        Semlink((unused, parsers, threads) -> new ParsingSemlinkReader(parsers, new WhitespaceTokenizer(), threads),
+                (unused) -> new VerbNetReader(), VerbNet);
 
-        private BiFunction<String, NlpParser, CorpusReader<NlpFocus<DepNode, DepTree>>> corpusParser;
+        private ParsingReaderFactory corpusParser;
         private Function<String, CorpusReader<NlpFocus<DepNode, DepTree>>> corpusReader;
         @Getter
         private SenseInventoryType defaultInventory;
 
-        CorpusType(BiFunction<String, NlpParser, CorpusReader<NlpFocus<DepNode, DepTree>>> corpusParser,
+        CorpusType(ParsingReaderFactory corpusParser,
                    Function<String, CorpusReader<NlpFocus<DepNode, DepTree>>> corpusReader, SenseInventoryType type) {
             this.corpusParser = corpusParser;
             this.corpusReader = corpusReader;
@@ -139,7 +145,19 @@ public abstract class WordSenseCLI {
          * @return parsing {@link CorpusReader}
          */
         public CorpusReader<NlpFocus<DepNode, DepTree>> corpusParser(String path, NlpParser depParser) {
-            return corpusParser.apply(path, depParser);
+            return corpusParser.create(path, () -> depParser, 1);
+        }
+
+        /**
+         * Return a {@link CorpusReader} that parses the input corpus in multiple threads while reading it.
+         *
+         * @param path    key path
+         * @param parsers supplier of dependency parsers, called once per parser thread
+         * @param threads number of parser threads
+         * @return parsing {@link CorpusReader}
+         */
+        public CorpusReader<NlpFocus<DepNode, DepTree>> corpusParser(String path, Supplier<NlpParser> parsers, int threads) {
+            return corpusParser.create(path, parsers, threads);
         }
 
         /**
@@ -154,6 +172,11 @@ public abstract class WordSenseCLI {
 
     }
 
+    @FunctionalInterface
+    private interface ParsingReaderFactory {
+        CorpusReader<NlpFocus<DepNode, DepTree>> create(String keyPath, Supplier<NlpParser> parsers, int threads);
+    }
+
     private final String helpMessage = WordSenseCLI.class.getSimpleName()
             + " can be used to train, evaluate, or apply a word sense classifier on provided data. \n" +
             " 1. In order to train the classifier, a path to a training data file must be provided, using '-train':" +
@@ -180,6 +203,9 @@ public abstract class WordSenseCLI {
     private Boolean reparse = false;
     @Parameter(names = "-ext", description = "Parse file extension, appended to input file names to save parses")
     private String parseSuffix = ".dep";
+    @Parameter(names = "--binaryCache", description = "Save binary caches of parsed corpora (with a .bin extension), reused "
+            + "until the parsed corpus or key file changes (not used for unparsed corpora, lemma filters or lemma mappings)")
+    private Boolean binaryCache = false;
 
     @Parameter(names = "--om", description = "Output misses on evaluation data in separate files")
     private Boolean outputMisses = false;
@@ -218,6 +244,9 @@ public abstract class WordSenseCLI {
     private SenseInventoryType senseInventory;
     @Parameter(names = "-inventoryPath", description = "Sense inventory path (optional)")
     private String senseInventoryPath;
+    @Parameter(names = "-inventoryCache", description = "Path to a compiled OntoNotes sense inventory, loaded instead of the "
+            + "inventory XML files at -inventoryPath, and re-compiled whenever they change (optional)")
+    private String senseInventoryCache;
 
     @Parameter(names = "-lemmas", description = "Optional comma-separated list of lemmas to include, filtering out rest")
     private Set<String> lemmas = new HashSet<>();
@@ -225,9 +254,21 @@ public abstract class WordSenseCLI {
     @Parameter(names = "-mappings", description = "Optional path to a 3-column CSV mappings file (lemma,original-sense,"
             + "mapped-sense)")
     private String mappingsPath;
+    @Parameter(names = "-threads", description = "Number of parser threads used when parsing training/evaluation corpora "
+            + "(each thread loads its own parser)")
+    private int threads = 1;
+    @Parameter(names = "-parseCache", description = "Path to a persistent parse cache, which can be shared across corpora and "
+            + "tools, so that only new or changed sentences are parsed (e.g. when using --reparse)")
+    private String parseCachePath;
+    @Parameter(names = "-parseCacheSize", description = "Maximum size of the parse cache in MB, beyond which it is compacted")
+    private long parseCacheSize = ParseCache.DEFAULT_MAX_BYTES / (1024 * 1024);
+    @Parameter(names = "-parseCacheFingerprint", description = "Identifier of the parser and its models and options, required "
+            + "with -parseCache (cached parses are only reused under the same fingerprint, so change it with the parser)")
+    private String parseCacheFingerprint;
 
     private WordSenseClassifier classifier;
     private NlpParser parser;
+    private ParseCache parseCache;
     private Pattern depPattern;
 
     private JCommander cmd;
@@ -263,6 +304,10 @@ public abstract class WordSenseCLI {
         } catch (IllegalStateException e) {
             System.err.println(e.getMessage());
             cmd.usage();
+        } finally {
+            if (parseCache != null) {
+                parseCache.close();
+            }
         }
     }
 
@@ -282,7 +327,16 @@ public abstract class WordSenseCLI {
             cmd.usage();
             System.exit(0);
         }
+        if (parseCachePath != null && parseCacheFingerprint == null) {
+            throw new IllegalStateException("Must specify a parser fingerprint with a parse cache (e.g. using "
+                    + "\"-parseCacheFingerprint stanford-3.9.1-english\").");
+        }
         senseInventory = senseInventory == null ? corpusType.getDefaultInventory() : senseInventory;
+        if (senseInventoryCache != null && (senseInventory != SenseInventoryType.OntoNotes || senseInventoryPath == null
+                || !new File(senseInventoryPath).isDirectory())) {
+            throw new IllegalStateException("A sense inventory cache (-inventoryCache) requires OntoNotes sense inventories "
+                    + "at a directory (e.g. using \"-inventory OntoNotes -inventoryPath path/to/inventories\").");
+        }
         trainPath = validatePath(trainPath);
         validPath = validatePath(validPath);
         testPath = validatePath(testPath);
@@ -323,9 +377,9 @@ public abstract class WordSenseCLI {
         if (trainPath == null) {
             return;
         }
-        List<NlpFocus<DepNode, DepTree>> trainInstances = getParseTrees(trainPath, getCorpusReader(trainPath));
+        List<NlpFocus<DepNode, DepTree>> trainInstances = getParseTrees(trainPath, getCorpusReader(trainPath), getKeyPath(trainPath));
         List<NlpFocus<DepNode, DepTree>> validInstances = validPath == null ? new ArrayList<>()
-                : getParseTrees(validPath, getCorpusReader(validPath));
+                : getParseTrees(validPath, getCorpusReader(validPath), getKeyPath(trainPath));
         classifier = newClassifier();
         log.debug("Training classifier on {} instances from corpus at {}", trainInstances.size(), trainPath);
         classifier.train(trainInstances, validInstances);
@@ -345,7 +399,7 @@ public abstract class WordSenseCLI {
         Preconditions.checkState(trainPer < 1 && trainPer > 0,
                 "Percentage of training data must be between 0 and 1 (got %f). "
                         + "Please set ratio of percentage of training instances per fold (e.g. \"-per 0.8\")", trainPer);
-        List<NlpFocus<DepNode, DepTree>> trainInstances = getParseTrees(trainPath, getCorpusReader(trainPath));
+        List<NlpFocus<DepNode, DepTree>> trainInstances = getParseTrees(trainPath, getCorpusReader(trainPath), getKeyPath(trainPath));
         log.info("Performing {}-fold cross validation on {} instances in training corpus at {}", folds,
                 trainInstances.size(), trainPath);
         CrossValidation<NlpFocus<DepNode, DepTree>> cv = new CrossValidation<>(seed, i -> i.feature(FeatureType.Gold));
@@ -379,7 +433,7 @@ public abstract class WordSenseCLI {
         if (classifier == null) {
             classifier = loadClassifier();
         }
-        List<NlpFocus<DepNode, DepTree>> testInstances = getParseTrees(testPath, getCorpusReader(testPath));
+        List<NlpFocus<DepNode, DepTree>> testInstances = getParseTrees(testPath, getCorpusReader(testPath), getKeyPath(trainPath));
         evaluate(testInstances, testPath);
     }
 
@@ -423,12 +477,14 @@ public abstract class WordSenseCLI {
         List<DepTree> instances = getParseTrees(inputPath,
                 parsed(inputPath) ? new CoNllDepTreeReader() : new TextCorpusReader(getParser()));
         log.info("Applying word sense annotator at {} to {} instances", modelPath, instances.size());
-        instances.parallelStream().forEach(annotator::annotate);
-        try (FileOutputStream fos = new FileOutputStream(outputPath)) {
-            new ParsingSemlinkReader(getParser(), new WhitespaceTokenizer())
-                    .writeInstances(ParsingSemlinkReader.getFocusInstances(instances), fos);
-        } catch (IOException e) {
-            log.warn("An error occurred while writing results to {}:", outputPath, e);
+        // trees are written in order as soon as they are annotated; output is compressed if the output path ends in .gz
+        try (SemlinkWriter writer = SemlinkWriter.open(Paths.get(outputPath), false);
+             OrderedParallelIterator<DepTree, DepTree> annotated = new OrderedParallelIterator<>(instances.iterator(),
+                     () -> tree -> {
+                         annotator.annotate(tree);
+                         return tree;
+                     }, Runtime.getRuntime().availableProcessors())) {
+            annotated.forEachRemaining(writer::writeTree);
         }
     }
 
@@ -444,6 +500,8 @@ public abstract class WordSenseCLI {
         CorpusReader<NlpFocus<DepNode, DepTree>> reader;
         if (parsed(path)) {
             reader = corpusType.corpusReader(getKeyPath(trainPath));
+        } else if (threads > 1) {
+            reader = corpusType.corpusParser(getKeyPath(trainPath), this::newParser, threads);
         } else {
             reader = corpusType.corpusParser(getKeyPath(trainPath), getParser());
         }
@@ -458,12 +516,24 @@ public abstract class WordSenseCLI {
         if (parser == null) {
             log.debug("Initializing parser...");
             Stopwatch sw = Stopwatch.createStarted();
-            parser = parser();
+            parser = newParser();
             log.debug("Initialized parser in {}", sw);
         }
         return parser;
     }
 
+    private NlpParser newParser() {
+        if (parseCachePath == null) {
+            return parser();
+        }
+        synchronized (this) {
+            if (parseCache == null) {
+                parseCache = ParseCache.open(Paths.get(parseCachePath), parseCacheSize * 1024 * 1024);
+            }
+        }
+        return new CachingParser(parser(), parseCache, parseCacheFingerprint);
+    }
+
     private WordSenseAnnotator getAnnotator() {
         if (classifier == null) {
             classifier = loadClassifier();
@@ -472,8 +542,13 @@ public abstract class WordSenseCLI {
     }
 
     private WordSenseClassifier newClassifier() {
-        SenseInventory inventory = senseInventoryPath != null ? senseInventory.senseInventory(senseInventoryPath)
-                : senseInventory.senseInventory();
+        SenseInventory inventory;
+        if (senseInventoryCache != null) {
+            inventory = OntoNotesSenseInventory.cached(Paths.get(senseInventoryPath), Paths.get(senseInventoryCache));
+        } else {
+            inventory = senseInventoryPath != null ? senseInventory.senseInventory(senseInventoryPath)
+                    : senseInventory.senseInventory();
+        }
         return new WordSenseClassifier(new DefaultVerbNetClassifier(), inventory, new LemmaDictionary());
     }
 
@@ -499,10 +574,44 @@ public abstract class WordSenseCLI {
         }
     }
 
-    private <T extends NlpInstance> List<T> getParseTrees(String path, CorpusReader<T> reader) {
+    private <T extends NlpInstance> List<T> getParseTrees(String path, CorpusReader<T> reader, String... keyPaths) {
+        // cached instances are unfiltered and unmapped, so caches are only used without lemma filters or mappings, and are
+        // only kept for parsed corpora, so that cached trees never depend on the parser
+        boolean cache = binaryCache && parsed(path) && lemmas.isEmpty() && mappingsPath == null;
+        File cacheFile = new File(path + BINARY_CACHE_EXT);
+        BinaryCorpusCache.Key cacheKey = null;
+        if (cache) {
+            Path[] sources = new Path[keyPaths.length + 1];
+            sources[0] = Paths.get(path);
+            for (int i = 0; i < keyPaths.length; ++i) {
+                sources[i + 1] = Paths.get(keyPaths[i]);
+            }
+            cacheKey = BinaryCorpusCache.Key.of(reader.getClass().getName() + "|" + corpusType, sources);
+        }
+        if (cache && !reparse && cacheFile.exists()) {
+            try {
+                Stopwatch sw = Stopwatch.createStarted();
+                List<T> instances = BinaryCorpusCache.open(cacheFile.toPath(), cacheKey).instances();
+                log.info("Loaded {} instances from binary cache at {} in {}", instances.size(), cacheFile, sw);
+                return instances;
+            } catch (Exception e) {
+                log.info("Not using binary cache at {} ({}), re-reading {}", cacheFile, e.getMessage(), path);
+            }
+        }
         boolean save = reparse || !parsed(path);
-        try (InputStream inputStream = new FileInputStream(path)) {
-            List<T> instances = reader.readInstances(inputStream, lemmas);
+        if (!new File(path).exists()) {
+            throw new RuntimeException("Unable to locate input file at " + path);
+        }
+        try {
+            List<T> instances = reader.readInstances(Paths.get(path), lemmas);
+            if (cache) {
+                try {
+                    log.info("Saving binary cache of parsed instances to {}", cacheFile.getAbsolutePath());
+                    BinaryCorpusCache.write(instances, cacheFile.toPath(), cacheKey);
+                } catch (Exception e) {
+                    log.warn("Unable to save binary cache of parsed instances", e);
+                }
+            }
             if (save) {
                 String outputFilePath = new File(path + parseSuffix).getAbsolutePath();
                 try (OutputStream outputStream = new FileOutputStream(outputFilePath)) {
@@ -513,8 +622,6 @@ public abstract class WordSenseCLI {
                 }
             }
             return instances;
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException("Unable to locate input file at " + path, e);
         } catch (Exception e) {
             throw new RuntimeException("Error while parsing file at " + path, e);
         }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.classifier;
+
+import java.util.Arrays;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Sparse vector in which every non-zero value is 1, such as a vector of indicator features. Only indices are stored, halving
+ * the memory of an equivalent {@link DefaultSparseVector}.
+ *
+ * @author jamesgung
+ */
+@AllArgsConstructor
+@Accessors(fluent = true)
+public class BinarySparseVector implements SparseVector {
+
+    private static final long serialVersionUID = 2271046934906358118L;
+
+    @Getter
+    private int[] indices;
+
+    /**
+     * Returns a newly allocated array of ones. Prefer checking {@link #binary()} and reading only {@link #indices()}.
+     */
+    @Override
+    public float[] data() {
+        float[] data = new float[indices.length];
+        Arrays.fill(data, 1);
+        return data;
+    }
+
+    @Override
+    public boolean binary() {
+        return true;
+    }
+
+    @Override
+    public float l2() {
+        return (float) Math.sqrt(indices.length);
+    }
+
+}
@@ -48,6 +48,11 @@ public class DefaultSparseInstance implements SparseInstance {
         return sparseVector.data();
     }
 
+    @Override
+    public boolean binary() {
+        return sparseVector.binary();
+    }
+
     @Override
     public float l2() {
         return sparseVector.l2();
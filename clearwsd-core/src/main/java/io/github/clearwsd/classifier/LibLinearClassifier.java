@@ -127,14 +127,19 @@ public class LibLinearClassifier implements SparseClassifier {
 
     @Override
     public void train(List<SparseInstance> train, List<SparseInstance> valid) {
+        train(SparseMatrix.of(train), SparseMatrix.of(valid));
+    }
+
+    @Override
+    public void train(SparseMatrix train, SparseMatrix valid) {
         if (verbose) {
             Linear.enableDebugOutput();
         } else {
             Linear.disableDebugOutput();
         }
         Problem problem = new Problem();
-        problem.l = train.size();
-        problem.n = getMaxIndex(train);
+        problem.l = train.rows();
+        problem.n = train.columns();
         problem.x = getFeatures(train);
         problem.y = getLabels(train);
         problem.bias = -1; // don't include bias
@@ -166,24 +171,36 @@ public class LibLinearClassifier implements SparseClassifier {
         }
     }
 
-    private double[] getLabels(List<SparseInstance> instances) {
-        return instances.stream()
-                .mapToDouble(SparseInstance::target)
+    private double[] getLabels(SparseMatrix instances) {
+        return Arrays.stream(instances.labels())
+                .asDoubleStream()
                 .toArray();
     }
 
-    private Feature[][] getFeatures(List<SparseInstance> vectors) {
-        Feature[][] features = new FeatureNode[vectors.size()][];
-        int index = 0;
-        for (SparseInstance vector : vectors) {
-            features[index++] = getFeatureArray(vector);
+    private Feature[][] getFeatures(SparseMatrix instances) {
+        Feature[][] features = new FeatureNode[instances.rows()][];
+        int[] rowPtr = instances.rowPtr();
+        int[] cols = instances.cols();
+        float[] vals = instances.vals();
+        for (int row = 0; row < features.length; ++row) {
+            Feature[] rowFeatures = new FeatureNode[rowPtr[row + 1] - rowPtr[row]];
+            for (int i = 0, j = rowPtr[row]; i < rowFeatures.length; ++i, ++j) {
+                rowFeatures[i] = new FeatureNode(cols[j] + 1, vals == null ? 1 : vals[j]);
+            }
+            features[row] = rowFeatures;
         }
         return features;
     }
 
     private Feature[] getFeatureArray(SparseVector vector) {
-        Feature[] features = new FeatureNode[vector.data().length];
         int[] indices = vector.indices();
+        Feature[] features = new FeatureNode[indices.length];
+        if (vector.binary()) {
+            for (int i = 0; i < features.length; ++i) {
+                features[i] = new FeatureNode(indices[i] + 1, 1);
+            }
+            return features;
+        }
         float[] values = vector.data();
         for (int i = 0; i < features.length; ++i) {
             features[i] = new FeatureNode(indices[i] + 1, values[i]);
@@ -191,14 +208,4 @@ public class LibLinearClassifier implements SparseClassifier {
         return features;
     }
 
-    private int getMaxIndex(List<? extends SparseInstance> instances) {
-        int maxIndex = 0;
-        for (SparseInstance instance : instances) {
-            for (int index : instance.indices()) {
-                maxIndex = Math.max(maxIndex, index);
-            }
-        }
-        return maxIndex + 1;
-    }
-
 }
@@ -22,7 +22,6 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -122,7 +121,12 @@ public class PaClassifier implements SparseClassifier {
 
     @Override
     public void train(List<SparseInstance> train, List<SparseInstance> valid) {
-        if (train.size() == 0) {
+        train(SparseMatrix.of(train), SparseMatrix.of(valid));
+    }
+
+    @Override
+    public void train(SparseMatrix train, SparseMatrix valid) {
+        if (train.rows() == 0) {
             log.warn("No training instances provided, skipping training.");
             return;
         }
@@ -136,25 +140,29 @@ public class PaClassifier implements SparseClassifier {
         int min = Integer.MAX_VALUE;
         double maxScore = -Double.MAX_VALUE;
         if (verbose) {
-            log.debug("Commencing training on {} examples with {} features and {} classes.", train.size(),
+            log.debug("Commencing training on {} examples with {} features and {} classes.", train.rows(),
                     parameters.get(0).length, parameters.size());
         }
         Random random = new Random(seed);
         Stopwatch sw = Stopwatch.createStarted();
+        int[] order = new int[train.rows()];
+        for (int i = 0; i < order.length; ++i) {
+            order[i] = i;
+        }
         for (int epoch = 0; epoch < epochs && epochsNoChange < patience; ++epoch) {
             if (shuffle) {
-                Collections.shuffle(train, random);
+                shuffle(order, random);
             }
             int incorrect = 0;
-            for (SparseInstance instance : train) {
-                if (update(instance, count)) {
+            for (int row : order) {
+                if (update(train, row, count)) {
                     ++incorrect;
                 }
             }
             if (verbose) {
-                log.debug("Epoch {}: {}/{} correct.", epoch, train.size() - incorrect, train.size());
+                log.debug("Epoch {}: {}/{} correct.", epoch, train.rows() - incorrect, train.rows());
             }
-            if (valid.size() > 0) {
+            if (valid.rows() > 0) {
                 double validScore = test(valid);
                 if (validScore > maxScore) {
                     epochsNoChange = 0;
@@ -218,87 +226,125 @@ public class PaClassifier implements SparseClassifier {
         }
     }
 
-    private double test(List<SparseInstance> instances) {
+    private double test(SparseMatrix instances) {
         Evaluation evaluation = new Evaluation();
-        for (SparseInstance instance : instances) {
-            evaluation.add(classify(instance).toString(), Integer.toString(instance.target()));
+        int[] rowPtr = instances.rowPtr();
+        for (int row = 0; row < instances.rows(); ++row) {
+            int label = getMax(instances.cols(), instances.vals(), rowPtr[row], rowPtr[row + 1]);
+            evaluation.add(Integer.toString(label), Integer.toString(instances.labels()[row]));
         }
         return evaluation.f1();
     }
 
-    private void initParameters(List<SparseInstance> instances) {
-        int features = instances.stream()
-                .map(i -> Arrays.stream(i.indices()).max().orElse(0))
-                .mapToInt(i -> i)
-                .max().orElse(0) + 1;
-        Set<Integer> targets = instances.stream()
-                .map(SparseInstance::target)
+    private void initParameters(SparseMatrix instances) {
+        int features = instances.columns();
+        Set<Integer> targets = Arrays.stream(instances.labels())
+                .boxed()
                 .collect(Collectors.toSet());
         parameters = targets.stream().collect(Collectors.toMap(i -> i, i -> new float[features]));
         cachedParameters = targets.stream().collect(Collectors.toMap(i -> i, i -> new float[features]));
     }
 
     private float score(SparseVector featureVector, float[] weights) {
+        int[] indices = featureVector.indices();
+        return score(indices, featureVector.binary() ? null : featureVector.data(), 0, indices.length, weights);
+    }
+
+    /**
+     * Score a range of sparse entries, with null values indicating that every value is 1.
+     */
+    private static float score(int[] indices, float[] values, int from, int to, float[] weights) {
         float total = 0;
-        float[] values = featureVector.data();
-        int i = 0;
-        for (int index : featureVector.indices()) {
-            total += values[i] * weights[index];
+        if (values == null) {
+            for (int i = from; i < to; ++i) {
+                total += weights[indices[i]];
+            }
+            return total;
+        }
+        for (int i = from; i < to; ++i) {
+            total += values[i] * weights[indices[i]];
         }
         return total;
     }
 
-    private boolean update(SparseInstance instance, int count) {
-        float[] correctVec = parameters.get(instance.target());
-        double correctScore = score(instance, correctVec);
+    private boolean update(SparseMatrix instances, int row, int count) {
+        int[] indices = instances.cols();
+        float[] values = instances.vals();
+        int from = instances.rowPtr()[row];
+        int to = instances.rowPtr()[row + 1];
+        int target = instances.labels()[row];
+
+        float[] correctVec = parameters.get(target);
+        double correctScore = score(indices, values, from, to, correctVec);
 
-        ScoredLabel maxIncorrect = getMaxIncorrect(instance, instance.target());
+        ScoredLabel maxIncorrect = getMaxIncorrect(indices, values, from, to, target);
         float maxScore = maxIncorrect.score;
 
         double loss = Math.max(0, 1 - correctScore + maxScore);
         if (loss > 0) {
-            update(loss, instance, instance.target(), maxIncorrect.label, count);
+            double norm = instances.l2(row);
+            double tau = Math.min(aggressiveness, loss / (2 * norm * norm));
+            update(tau, indices, values, from, to, target, maxIncorrect.label, count);
         }
         return (correctScore < maxScore);
     }
 
-    private ScoredLabel getMaxIncorrect(SparseVector instance, int correctLabel) {
+    private ScoredLabel getMaxIncorrect(int[] indices, float[] values, int from, int to, int correctLabel) {
         return entryStream()
                 .filter(p -> p.getKey() != correctLabel)
-                .map(p -> new ScoredLabel(p.getKey(), score(instance, p.getValue())))
+                .map(p -> new ScoredLabel(p.getKey(), score(indices, values, from, to, p.getValue())))
                 .max((p1, p2) -> Float.compare(p1.score, p2.score))
                 .orElseThrow(() -> new IllegalStateException("No parameters found."));
     }
 
-    private void update(double loss, SparseVector featureVector, int correctLabel, int incorrectLabel, int count) {
+    private void update(double tau, int[] indices, float[] values, int from, int to, int correctLabel, int incorrectLabel,
+                        int count) {
         float[] correct = parameters.get(correctLabel);
         float[] incorrect = parameters.get(incorrectLabel);
-        double norm = featureVector.l2();
-        double tau = loss / (2 * norm * norm);
-        tau = Math.min(aggressiveness, tau);
-        addToDense(tau, featureVector, correct);
-        addToDense(-tau, featureVector, incorrect);
+        addToDense(tau, indices, values, from, to, correct);
+        addToDense(-tau, indices, values, from, to, incorrect);
         if (averaging) {
-            addToDense(tau * count, featureVector, cachedParameters.get(correctLabel));
-            addToDense(-tau * count, featureVector, cachedParameters.get(incorrectLabel));
+            addToDense(tau * count, indices, values, from, to, cachedParameters.get(correctLabel));
+            addToDense(-tau * count, indices, values, from, to, cachedParameters.get(incorrectLabel));
         }
     }
 
-    private void addToDense(double weight, SparseVector sparseVector, float[] denseVector) {
-        int[] indices = sparseVector.indices();
-        float[] values = sparseVector.data();
-        for (int i = 0; i < indices.length; ++i) {
+    private static void addToDense(double weight, int[] indices, float[] values, int from, int to, float[] denseVector) {
+        if (values == null) {
+            for (int i = from; i < to; ++i) {
+                denseVector[indices[i]] += weight;
+            }
+            return;
+        }
+        for (int i = from; i < to; ++i) {
             denseVector[indices[i]] += values[i] * weight;
         }
     }
 
     private int getMax(SparseVector featureVector) {
+        int[] indices = featureVector.indices();
+        return getMax(indices, featureVector.binary() ? null : featureVector.data(), 0, indices.length);
+    }
+
+    private int getMax(int[] indices, float[] values, int from, int to) {
         return entryStream()
-                .map(p -> new ScoredLabel(p.getKey(), score(featureVector, p.getValue())))
+                .map(p -> new ScoredLabel(p.getKey(), score(indices, values, from, to, p.getValue())))
                 .max((p1, p2) -> Float.compare(p1.score, p2.score))
                 .orElseThrow(() -> new IllegalStateException("No parameters found.")).label;
     }
 
+    /**
+     * Shuffle an array in place, equivalent to {@link java.util.Collections#shuffle(List, Random)} on a list.
+     */
+    private static void shuffle(int[] array, Random random) {
+        for (int i = array.length; i > 1; --i) {
+            int j = random.nextInt(i);
+            int tmp = array[i - 1];
+            array[i - 1] = array[j];
+            array[j] = tmp;
+        }
+    }
+
     private void averageParameters(int count) {
         entryStream().forEach(
                 param -> {
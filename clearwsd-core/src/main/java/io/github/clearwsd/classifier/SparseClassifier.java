@@ -16,6 +16,8 @@
 
 package io.github.clearwsd.classifier;
 
+import java.util.ArrayList;
+
 /**
  * Classification algorithm over sparse data.
  *
@@ -23,4 +25,15 @@ package io.github.clearwsd.classifier;
  */
 public interface SparseClassifier extends Classifier<SparseInstance, Integer> {
 
+    /**
+     * Train a classifier from training and validation data stored as sparse matrices. By default, delegates to
+     * {@link #train(java.util.List, java.util.List)} with a list of row views.
+     *
+     * @param train training data
+     * @param valid validation data
+     */
+    default void train(SparseMatrix train, SparseMatrix valid) {
+        train(new ArrayList<>(train.instances()), new ArrayList<>(valid.instances()));
+    }
+
 }
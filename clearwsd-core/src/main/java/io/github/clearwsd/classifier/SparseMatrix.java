@@ -0,0 +1,299 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.classifier;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Sparse data set stored as a single compressed sparse row (CSR) matrix: the column indices of row {@code i} are
+ * {@code cols[rowPtr[i]]} to {@code cols[rowPtr[i + 1] - 1]}, in ascending order and with no duplicates. Values are only stored
+ * if some value is not 1 ({@link #vals()} is null for binary data). Each row has an associated label (target) and instance ID.
+ * <p>
+ * Classifiers can train directly from the arrays, avoiding an object per instance. {@link #row(int)} and {@link #instances()}
+ * provide {@link SparseInstance} views for code working with instances.
+ *
+ * @author jamesgung
+ */
+@Getter
+@Accessors(fluent = true)
+public class SparseMatrix implements Serializable {
+
+    private static final long serialVersionUID = 4436329853710958115L;
+
+    private final int[] rowPtr;
+    private final int[] cols;
+    private final float[] vals;
+    private final int[] labels;
+    private final int[] ids;
+    /**
+     * Number of columns, one more than the maximum column index (and at least 1).
+     */
+    private final int columns;
+
+    private SparseMatrix(int[] rowPtr, int[] cols, float[] vals, int[] labels, int[] ids, int columns) {
+        this.rowPtr = rowPtr;
+        this.cols = cols;
+        this.vals = vals;
+        this.labels = labels;
+        this.ids = ids;
+        this.columns = columns;
+    }
+
+    /**
+     * Return the number of rows (instances) in this matrix.
+     */
+    public int rows() {
+        return labels.length;
+    }
+
+    /**
+     * Return true if every value in this matrix is 1.
+     */
+    public boolean binary() {
+        return vals == null;
+    }
+
+    /**
+     * Return the L2 norm of a given row.
+     *
+     * @param row row index
+     */
+    public float l2(int row) {
+        if (vals == null) {
+            return (float) Math.sqrt(rowPtr[row + 1] - rowPtr[row]);
+        }
+        float sum = 0;
+        for (int i = rowPtr[row]; i < rowPtr[row + 1]; ++i) {
+            sum += vals[i] * vals[i];
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    /**
+     * Return a {@link SparseInstance} view of a given row.
+     *
+     * @param row row index
+     */
+    public SparseInstance row(int row) {
+        return new Row(row);
+    }
+
+    /**
+     * Return an unmodifiable list of {@link SparseInstance} views over the rows of this matrix.
+     */
+    public List<SparseInstance> instances() {
+        return new AbstractList<SparseInstance>() {
+            @Override
+            public SparseInstance get(int index) {
+                return row(index);
+            }
+
+            @Override
+            public int size() {
+                return rows();
+            }
+        };
+    }
+
+    /**
+     * Copy a list of sparse instances into a new matrix.
+     *
+     * @param instances sparse instances
+     * @return sparse matrix
+     */
+    public static SparseMatrix of(List<? extends SparseInstance> instances) {
+        Builder builder = new Builder(instances.size(), 16 * instances.size());
+        for (SparseInstance instance : instances) {
+            int[] indices = instance.indices();
+            if (instance.binary()) {
+                for (int index : indices) {
+                    builder.addIndex(index);
+                }
+            } else {
+                float[] data = instance.data();
+                for (int i = 0; i < indices.length; ++i) {
+                    builder.addValue(indices[i], data[i]);
+                }
+            }
+            builder.addRow(instance.id(), instance.target());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builder appending one row at a time: add the entries of a row through {@link #addIndex(int)} and
+     * {@link #addValue(int, float)}, then complete it with {@link #addRow(int, int)}. As in {@link SparseVectorBuilder}, the
+     * last value added for a duplicate index within a row is kept.
+     */
+    public static class Builder {
+
+        private int[] rowPtr;
+        private int[] labels;
+        private int[] ids;
+        private int rows;
+
+        private int[] cols;
+        private float[] vals;
+        private int size;
+        private int maxColumn;
+
+        public Builder() {
+            this(16, 256);
+        }
+
+        /**
+         * Initialize a builder with given initial capacities.
+         *
+         * @param rows    expected number of rows
+         * @param entries expected number of non-zero entries
+         */
+        public Builder(int rows, int entries) {
+            this.rowPtr = new int[Math.max(rows, 1) + 1];
+            this.labels = new int[Math.max(rows, 1)];
+            this.ids = new int[labels.length];
+            this.cols = new int[Math.max(entries, 1)];
+        }
+
+        /**
+         * Add an entry with a given value to the current row.
+         *
+         * @param index column index
+         * @param value value
+         * @return this {@link Builder}
+         */
+        public Builder addValue(int index, float value) {
+            if (size == cols.length) {
+                cols = Arrays.copyOf(cols, size * 2);
+                if (vals != null) {
+                    vals = Arrays.copyOf(vals, size * 2);
+                }
+            }
+            if (value != 1 && vals == null) {
+                vals = new float[cols.length];
+                Arrays.fill(vals, 0, size, 1);
+            }
+            cols[size] = index;
+            if (vals != null) {
+                vals[size] = value;
+            }
+            ++size;
+            return this;
+        }
+
+        /**
+         * Shorthand for {@link #addValue(int, float)} when the value is 1.
+         *
+         * @param index column index
+         * @return this {@link Builder}
+         */
+        public Builder addIndex(int index) {
+            return addValue(index, 1);
+        }
+
+        /**
+         * Complete the current row, assigning it a given instance ID and label.
+         *
+         * @param id    instance ID
+         * @param label label (target) index
+         * @return this {@link Builder}
+         */
+        public Builder addRow(int id, int label) {
+            if (rows == labels.length) {
+                labels = Arrays.copyOf(labels, rows * 2);
+                ids = Arrays.copyOf(ids, rows * 2);
+                rowPtr = Arrays.copyOf(rowPtr, rows * 2 + 1);
+            }
+            int start = rowPtr[rows];
+            size = SparseVectorBuilder.sort(cols, vals, start, size);
+            if (size > start) {
+                maxColumn = Math.max(maxColumn, cols[size - 1]);
+            }
+            labels[rows] = label;
+            ids[rows] = id;
+            rowPtr[++rows] = size;
+            return this;
+        }
+
+        /**
+         * Build a matrix from the rows completed so far.
+         *
+         * @return sparse matrix
+         */
+        public SparseMatrix build() {
+            return new SparseMatrix(Arrays.copyOf(rowPtr, rows + 1), Arrays.copyOf(cols, size),
+                    vals == null ? null : Arrays.copyOf(vals, size), Arrays.copyOf(labels, rows), Arrays.copyOf(ids, rows),
+                    maxColumn + 1);
+        }
+
+    }
+
+    /**
+     * {@link SparseInstance} view of a single row.
+     */
+    private class Row implements SparseInstance {
+
+        private static final long serialVersionUID = -5315623526432040286L;
+
+        private final int row;
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public int id() {
+            return ids[row];
+        }
+
+        @Override
+        public int target() {
+            return labels[row];
+        }
+
+        @Override
+        public int[] indices() {
+            return Arrays.copyOfRange(cols, rowPtr[row], rowPtr[row + 1]);
+        }
+
+        @Override
+        public float[] data() {
+            if (vals == null) {
+                float[] data = new float[rowPtr[row + 1] - rowPtr[row]];
+                Arrays.fill(data, 1);
+                return data;
+            }
+            return Arrays.copyOfRange(vals, rowPtr[row], rowPtr[row + 1]);
+        }
+
+        @Override
+        public boolean binary() {
+            return vals == null;
+        }
+
+        @Override
+        public float l2() {
+            return SparseMatrix.this.l2(row);
+        }
+    }
+
+}
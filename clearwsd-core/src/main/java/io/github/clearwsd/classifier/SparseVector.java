@@ -36,6 +36,13 @@ public interface SparseVector extends Serializable {
      */
     float[] data();
 
+    /**
+     * Return true if every value in {@link #data()} is 1, in which case consumers may read only {@link #indices()}.
+     */
+    default boolean binary() {
+        return false;
+    }
+
     float l2();
 
 }
@@ -16,20 +16,32 @@
 
 package io.github.clearwsd.classifier;
 
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Arrays;
 
 /**
- * Sparse vector builder.
+ * Sparse vector builder. Entries are appended to primitive buffers and sorted once on {@link #build()}. If the same index is
+ * added more than once, the last value added is kept. When every value is 1, a {@link BinarySparseVector} is built.
  *
  * @author jamesgung
  */
 public class SparseVectorBuilder {
 
-    private Map<Integer, Float> indexValueMap = new HashMap<>();
+    private int[] indices;
+    private float[] values; // allocated only once a value other than 1 is added
+    private int size;
+
+    public SparseVectorBuilder() {
+        this(16);
+    }
+
+    /**
+     * Initialize a builder with a given initial capacity.
+     *
+     * @param capacity expected number of entries
+     */
+    public SparseVectorBuilder(int capacity) {
+        indices = new int[Math.max(capacity, 1)];
+    }
 
     /**
      * Add a new value to this sparse vector.
@@ -39,7 +51,21 @@ public class SparseVectorBuilder {
      * @return this {@link SparseVectorBuilder}
      */
     public SparseVectorBuilder addValue(int index, float value) {
-        indexValueMap.put(index, value);
+        if (size == indices.length) {
+            indices = Arrays.copyOf(indices, size * 2);
+            if (values != null) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+        }
+        if (value != 1 && values == null) {
+            values = new float[indices.length];
+            Arrays.fill(values, 0, size, 1);
+        }
+        indices[size] = index;
+        if (values != null) {
+            values[size] = value;
+        }
+        ++size;
         return this;
     }
 
@@ -59,16 +85,56 @@ public class SparseVectorBuilder {
      * @return sparse vector
      */
     public SparseVector build() {
-        List<Map.Entry<Integer, Float>> entries = indexValueMap.entrySet().stream().sorted(
-                Comparator.comparingInt(Map.Entry::getKey)).collect(Collectors.toList());
-        int[] indexArray = new int[entries.size()];
-        float[] valueArray = new float[indexArray.length];
-        int index = 0;
-        for (Map.Entry<Integer, Float> entry : entries) {
-            indexArray[index] = entry.getKey();
-            valueArray[index++] = entry.getValue();
+        int[] indexArray = Arrays.copyOf(indices, size);
+        float[] valueArray = values == null ? null : Arrays.copyOf(values, size);
+        int count = sort(indexArray, valueArray, 0, size);
+        if (count < size) {
+            indexArray = Arrays.copyOf(indexArray, count);
+            valueArray = valueArray == null ? null : Arrays.copyOf(valueArray, count);
+        }
+        return valueArray == null ? new BinarySparseVector(indexArray) : new DefaultSparseVector(indexArray, valueArray);
+    }
+
+    /**
+     * Sort the entries in a range of index and value arrays by index in place, keeping only the last entry added for each
+     * index. Entries remaining after sorting are moved to the beginning of the range.
+     *
+     * @param indices entry indices
+     * @param values  entry values, or null if all values are 1
+     * @param from    start of range (inclusive)
+     * @param to      end of range (exclusive)
+     * @return end of the sorted, de-duplicated range
+     */
+    static int sort(int[] indices, float[] values, int from, int to) {
+        if (values == null) {
+            Arrays.sort(indices, from, to);
+            int end = from;
+            for (int i = from; i < to; ++i) {
+                if (end == from || indices[end - 1] != indices[i]) {
+                    indices[end++] = indices[i];
+                }
+            }
+            return end;
+        }
+        // sort entries by index, then by insertion order, so that the last of any duplicates can be kept
+        long[] order = new long[to - from];
+        for (int i = from; i < to; ++i) {
+            order[i - from] = ((long) indices[i] << 32) | (i - from);
+        }
+        Arrays.sort(order);
+        float[] sorted = Arrays.copyOfRange(values, from, to);
+        int end = from;
+        for (long entry : order) {
+            int index = (int) (entry >> 32);
+            float value = sorted[(int) entry];
+            if (end > from && indices[end - 1] == index) {
+                values[end - 1] = value;
+            } else {
+                indices[end] = index;
+                values[end++] = value;
+            }
         }
-        return new DefaultSparseVector(indexArray, valueArray);
+        return end;
     }
 
 }
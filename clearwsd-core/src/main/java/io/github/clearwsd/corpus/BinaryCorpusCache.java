@@ -0,0 +1,490 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.corpus;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.clearwsd.type.DefaultDepNode;
+import io.github.clearwsd.type.DefaultDepTree;
+import io.github.clearwsd.type.DefaultNlpFocus;
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.FeatureType;
+import io.github.clearwsd.type.NlpFocus;
+import io.github.clearwsd.type.NlpInstance;
+import io.github.clearwsd.type.SymbolTable;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Compact binary cache of parsed corpora, supporting random access to individual trees and instances. Caches are written from
+ * lists of {@link DepTree dependency trees} or {@link NlpFocus focus instances} over dependency trees (as returned by corpus
+ * readers), and memory-mapped when {@link #open(Path, Key) opened}, so that loading a parsed corpus does not require re-parsing
+ * text.
+ * <p>
+ * Each cache records a {@link Key} identifying the reader that produced it and the size and modification time of its source
+ * files. A cache is only opened with a matching key, so caches written by a different reader, or from source files that have
+ * since changed, are rejected rather than silently returning different instances.
+ * <p>
+ * All strings (feature keys and values) are stored once in a symbol table at the start of the file. Trees and instances are
+ * length-prefixed records of symbol IDs, located through an offset index at the end of the file. Focus instances refer to their
+ * trees by position, so trees shared by several instances are stored once. Feature values may be strings or sets of strings
+ * (such as {@link FeatureType#AllSenses}); instances with other feature values can't be cached. On load, only POS tags and
+ * dependency labels are interned through the {@link SymbolTable#getInstance() shared symbol table}.
+ * <p>
+ * Layout: {@code magic, version, key, symbols (count, then length-prefixed UTF-8), tree records, instance records, index (tree
+ * count and offsets, instance count and offsets), index offset}.
+ *
+ * @author jamesgung
+ */
+@Accessors(fluent = true)
+public class BinaryCorpusCache {
+
+    private static final int MAGIC = 0x43574443; // "CWDC"
+    private static final int VERSION = 2;
+
+    private static final byte STRING = 0;
+    private static final byte STRING_SET = 1;
+
+    private final ByteBuffer buffer;
+    private final String[] symbols;
+    private final String[] sharedSymbols;
+    private final long[] trees;
+    private final long[] instances;
+    /**
+     * True if this cache contains focus instances, false if it contains only trees.
+     */
+    @Getter
+    private final boolean focusInstances;
+
+    private BinaryCorpusCache(ByteBuffer buffer, Key key) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a binary corpus cache (or unsupported version).");
+        }
+        ByteBuffer input = buffer.duplicate();
+        input.position(8);
+        String cacheKey = readString(input);
+        if (!cacheKey.equals(key.value)) {
+            throw new IllegalStateException("Binary corpus cache does not match key (expected \"" + key.value + "\", found \""
+                    + cacheKey + "\")");
+        }
+        symbols = new String[input.getInt()];
+        for (int i = 0; i < symbols.length; ++i) {
+            symbols[i] = readString(input);
+        }
+        sharedSymbols = new String[symbols.length];
+        input.position((int) buffer.getLong(buffer.limit() - 8));
+        trees = readOffsets(input);
+        instances = readOffsets(input);
+        focusInstances = instances.length > 0;
+    }
+
+    /**
+     * Open a binary corpus cache by mapping it into memory. Files must be smaller than 2GB.
+     *
+     * @param path cache file path
+     * @param key  expected cache key
+     * @return binary corpus cache
+     * @throws IllegalStateException if the cache was written with a different key, e.g. because its sources have changed
+     */
+    public static BinaryCorpusCache open(Path path, Key key) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Binary corpus cache is too large to map: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new BinaryCorpusCache(buffer, key);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to open binary corpus cache at " + path, e);
+        }
+    }
+
+    /**
+     * Return the number of trees in this cache.
+     */
+    public int treeCount() {
+        return trees.length;
+    }
+
+    /**
+     * Return the number of instances in this cache: the number of focus instances if present, otherwise the number of trees.
+     */
+    public int size() {
+        return focusInstances ? instances.length : trees.length;
+    }
+
+    /**
+     * Read a single tree.
+     *
+     * @param index tree position in the cache
+     * @return dependency tree
+     */
+    public DepTree tree(int index) {
+        return readTree(trees[index]);
+    }
+
+    /**
+     * Read a single instance, a {@link NlpFocus} if this cache contains focus instances, or otherwise a {@link DepTree}.
+     *
+     * @param index instance position in the cache
+     * @param <T>   instance type
+     * @return instance
+     */
+    public <T extends NlpInstance> T instance(int index) {
+        if (!focusInstances) {
+            //noinspection unchecked
+            return (T) tree(index);
+        }
+        //noinspection unchecked
+        return (T) readInstance(instances[index], new HashMap<>());
+    }
+
+    /**
+     * Read all instances in order. Focus instances sharing a tree when written share a tree when read.
+     *
+     * @param <T> instance type
+     * @return list of instances
+     */
+    public <T extends NlpInstance> List<T> instances() {
+        List<T> results = new ArrayList<>(size());
+        Map<Integer, DepTree> treeCache = new HashMap<>();
+        for (int i = 0; i < size(); ++i) {
+            //noinspection unchecked
+            results.add((T) (focusInstances ? readInstance(instances[i], treeCache) : tree(i)));
+        }
+        return results;
+    }
+
+    /**
+     * Write a list of {@link DepTree dependency trees} or {@link NlpFocus focus instances} to a binary corpus cache. The cache is
+     * written to a temporary file first, so an existing cache is only replaced once writing succeeds.
+     *
+     * @param instances instances to write
+     * @param path      cache file path
+     * @param key       cache key
+     * @throws IllegalArgumentException if an instance has a feature value that is neither a string nor a set of strings
+     */
+    public static void write(List<? extends NlpInstance> instances, Path path, Key key) {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                write(instances, outputStream, key);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write binary corpus cache to " + path, e);
+        } finally {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // nothing left to clean up
+            }
+        }
+    }
+
+    /**
+     * Write a list of {@link DepTree dependency trees} or {@link NlpFocus focus instances} to an output stream.
+     *
+     * @param instances    instances to write
+     * @param outputStream target output
+     * @param key          cache key
+     * @throws IllegalArgumentException if an instance has a feature value that is neither a string nor a set of strings
+     */
+    public static void write(List<? extends NlpInstance> instances, OutputStream outputStream, Key key) throws IOException {
+        Writer writer = new Writer(key);
+        for (NlpInstance instance : instances) {
+            if (instance instanceof NlpFocus) {
+                writer.addInstance((NlpFocus<?, ?>) instance);
+            } else if (instance instanceof DepTree) {
+                writer.addTree((DepTree) instance);
+            } else {
+                throw new IllegalArgumentException("Unsupported instance type: " + instance.getClass().getName());
+            }
+        }
+        writer.write(outputStream);
+    }
+
+    private static String readString(ByteBuffer input) {
+        byte[] bytes = new byte[input.getInt()];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static long[] readOffsets(ByteBuffer input) {
+        long[] offsets = new long[input.getInt()];
+        for (int i = 0; i < offsets.length; ++i) {
+            offsets[i] = input.getLong();
+        }
+        return offsets;
+    }
+
+    private ByteBuffer record(long offset) {
+        ByteBuffer input = buffer.duplicate();
+        input.position((int) offset + 4); // skip record length
+        return input;
+    }
+
+    private DepTree readTree(long offset) {
+        ByteBuffer input = record(offset);
+        int index = input.getInt();
+        int size = input.getInt();
+        int root = input.getInt();
+        List<DepNode> nodes = new ArrayList<>(size);
+        int[] heads = new int[size];
+        for (int i = 0; i < size; ++i) {
+            DefaultDepNode node = new DefaultDepNode(i);
+            heads[i] = input.getInt();
+            readFeatures(input, node);
+            nodes.add(node);
+        }
+        for (int i = 0; i < size; ++i) {
+            if (heads[i] >= 0) {
+                ((DefaultDepNode) nodes.get(i)).head(nodes.get(heads[i]));
+            }
+        }
+        DepTree tree = new DefaultDepTree(index, nodes, root < 0 ? null : nodes.get(root));
+        readFeatures(input, tree);
+        return tree;
+    }
+
+    private NlpFocus<DepNode, DepTree> readInstance(long offset, Map<Integer, DepTree> treeCache) {
+        ByteBuffer input = record(offset);
+        int index = input.getInt();
+        int tree = input.getInt();
+        int focus = input.getInt();
+        DepTree sequence = treeCache.computeIfAbsent(tree, this::tree);
+        NlpFocus<DepNode, DepTree> instance = new DefaultNlpFocus<>(index, sequence.get(focus), sequence);
+        readFeatures(input, instance);
+        return instance;
+    }
+
+    private void readFeatures(ByteBuffer input, NlpInstance instance) {
+        int count = input.getInt();
+        for (int i = 0; i < count; ++i) {
+            String key = symbols[input.getInt()];
+            if (input.get() == STRING_SET) {
+                int size = input.getInt();
+                Set<String> values = new LinkedHashSet<>();
+                for (int j = 0; j < size; ++j) {
+                    values.add(symbols[input.getInt()]);
+                }
+                instance.addFeature(key, values);
+            } else if (key.equals(FeatureType.Pos.name()) || key.equals(FeatureType.Dep.name())) {
+                instance.addFeature(key, sharedSymbol(input.getInt()));
+            } else {
+                instance.addFeature(key, symbols[input.getInt()]);
+            }
+        }
+    }
+
+    /**
+     * POS tags and dependency labels are interned through the shared symbol table, as when reading CoNLL files.
+     */
+    private String sharedSymbol(int id) {
+        String symbol = sharedSymbols[id];
+        if (symbol == null) {
+            symbol = SymbolTable.getInstance().intern(symbols[id]);
+            sharedSymbols[id] = symbol;
+        }
+        return symbol;
+    }
+
+    /**
+     * Identifies the contents of a cache: a fingerprint of the reader (and any options) producing the cached instances, and the
+     * path, size and modification time of each source file read.
+     */
+    @EqualsAndHashCode
+    public static final class Key {
+
+        private final String value;
+
+        private Key(String value) {
+            this.value = value;
+        }
+
+        /**
+         * Create a key for a given reader fingerprint and source files. Missing source files are recorded as such.
+         *
+         * @param fingerprint reader fingerprint, which should change whenever the reader or its options change
+         * @param sources     source files
+         * @return cache key
+         */
+        public static Key of(String fingerprint, Path... sources) {
+            StringBuilder value = new StringBuilder(fingerprint);
+            for (Path source : sources) {
+                value.append('|').append(source.toAbsolutePath().normalize());
+                try {
+                    value.append('|').append(Files.size(source))
+                            .append('|').append(Files.getLastModifiedTime(source).toMillis());
+                } catch (IOException e) {
+                    value.append("|missing");
+                }
+            }
+            return new Key(value.toString());
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+    /**
+     * Accumulates encoded records and the symbol table before writing.
+     */
+    private static class Writer {
+
+        private final Key key;
+        private final Map<String, Integer> symbolIds = new HashMap<>();
+        private final List<String> symbols = new ArrayList<>();
+        private final Map<DepTree, Integer> treeIds = new IdentityHashMap<>();
+        private final ByteArrayOutputStream treeBytes = new ByteArrayOutputStream();
+        private final DataOutputStream treeOutput = new DataOutputStream(treeBytes);
+        private final List<Integer> treeOffsets = new ArrayList<>();
+        private final ByteArrayOutputStream instanceBytes = new ByteArrayOutputStream();
+        private final DataOutputStream instanceOutput = new DataOutputStream(instanceBytes);
+        private final List<Integer> instanceOffsets = new ArrayList<>();
+        private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        private final DataOutputStream recordOutput = new DataOutputStream(record);
+
+        private Writer(Key key) {
+            this.key = key;
+        }
+
+        private int addTree(DepTree tree) throws IOException {
+            Integer id = treeIds.get(tree);
+            if (id != null) {
+                return id;
+            }
+            record.reset();
+            recordOutput.writeInt(tree.index());
+            recordOutput.writeInt(tree.size());
+            recordOutput.writeInt(tree.root() == null ? -1 : tree.root().index());
+            for (DepNode node : tree) {
+                recordOutput.writeInt(node.isRoot() ? -1 : node.head().index());
+                writeFeatures(node.features());
+            }
+            writeFeatures(tree.features());
+            treeOffsets.add(treeOutput.size());
+            writeRecord(treeOutput);
+            id = treeIds.size();
+            treeIds.put(tree, id);
+            return id;
+        }
+
+        private void addInstance(NlpFocus<?, ?> instance) throws IOException {
+            if (!(instance.sequence() instanceof DepTree)) {
+                throw new IllegalArgumentException("Only focus instances over dependency trees are supported.");
+            }
+            int tree = addTree((DepTree) instance.sequence());
+            record.reset();
+            recordOutput.writeInt(instance.index());
+            recordOutput.writeInt(tree);
+            recordOutput.writeInt(instance.focus().index());
+            writeFeatures(instance.features());
+            instanceOffsets.add(instanceOutput.size());
+            writeRecord(instanceOutput);
+        }
+
+        private void writeFeatures(Map<String, Object> features) throws IOException {
+            recordOutput.writeInt(features.size());
+            for (Map.Entry<String, Object> feature : features.entrySet()) {
+                recordOutput.writeInt(symbol(feature.getKey()));
+                Object value = feature.getValue();
+                if (value instanceof String) {
+                    recordOutput.writeByte(STRING);
+                    recordOutput.writeInt(symbol((String) value));
+                } else if (value instanceof Set && ((Set<?>) value).stream().allMatch(v -> v instanceof String)) {
+                    recordOutput.writeByte(STRING_SET);
+                    recordOutput.writeInt(((Set<?>) value).size());
+                    for (Object element : (Set<?>) value) {
+                        recordOutput.writeInt(symbol((String) element));
+                    }
+                } else {
+                    throw new IllegalArgumentException("Unable to cache value of feature " + feature.getKey() + ": "
+                            + (value == null ? "null" : value.getClass().getName()));
+                }
+            }
+        }
+
+        private void writeRecord(DataOutputStream output) throws IOException {
+            output.writeInt(record.size());
+            record.writeTo(output);
+        }
+
+        private int symbol(String symbol) {
+            return symbolIds.computeIfAbsent(symbol, s -> {
+                symbols.add(s);
+                return symbols.size() - 1;
+            });
+        }
+
+        private void write(OutputStream outputStream) throws IOException {
+            DataOutputStream output = new DataOutputStream(outputStream);
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            writeString(output, key.value);
+            output.writeInt(symbols.size());
+            for (String symbol : symbols) {
+                writeString(output, symbol);
+            }
+            long treeStart = output.size();
+            treeBytes.writeTo(output);
+            long instanceStart = output.size();
+            instanceBytes.writeTo(output);
+            long indexStart = output.size();
+            output.writeInt(treeOffsets.size());
+            for (int offset : treeOffsets) {
+                output.writeLong(treeStart + offset);
+            }
+            output.writeInt(instanceOffsets.size());
+            for (int offset : instanceOffsets) {
+                output.writeLong(instanceStart + offset);
+            }
+            output.writeLong(indexStart);
+            output.flush();
+        }
+    }
+
+}
@@ -22,33 +22,56 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import io.github.clearwsd.type.ColumnarDepTree;
 import io.github.clearwsd.type.DepNode;
 import io.github.clearwsd.type.DepTree;
 import io.github.clearwsd.type.FeatureType;
 import io.github.clearwsd.type.DefaultDepNode;
 import io.github.clearwsd.type.DefaultDepTree;
+import io.github.clearwsd.type.SymbolTable;
 import lombok.Setter;
+import lombok.experimental.Accessors;
 
 /**
  * CoNLL-U-style dependency tree corpus reader.
+ * <p>
+ * Files can also be read through {@link #readInstances(Path)} or {@link #instanceIterator(Path)}, which map the file into
+ * memory, split it at blank lines into chunks, and decode chunks in parallel directly from bytes, yielding trees in file
+ * order. Subclasses overriding {@link #processHeader(List, DepTree)} should be thread-safe when reading files this way.
  *
  * @author jamesgung
  */
 public class CoNllDepTreeReader implements CorpusReader<DepTree> {
 
     private static final String FIELD_DELIM = "\t";
+    private static final int CHUNK_SIZE = 8 * 1024 * 1024;
 
     private Pattern headerPattern = Pattern.compile("^#.*$");
+    private SymbolTable symbols = SymbolTable.getInstance();
+
+    /**
+     * If true, read trees as {@link ColumnarDepTree ColumnarDepTrees} instead of {@link DefaultDepTree DefaultDepTrees}.
+     */
+    @Setter
+    @Accessors(fluent = true)
+    private boolean columnar;
 
     @Override
     public List<DepTree> readInstances(InputStream inputStream) {
@@ -69,6 +92,34 @@ public class CoNllDepTreeReader implements CorpusReader<DepTree> {
         return new TreeIterator(inputStream);
     }
 
+    /**
+     * Read all trees from a given (uncompressed) file, decoding chunks of the file in parallel.
+     *
+     * @param path CoNLL file path
+     * @return list of trees, in file order
+     */
+    public List<DepTree> readInstances(Path path) {
+        List<DepTree> results = new ArrayList<>();
+        instanceIterator(path).forEachRemaining(results::add);
+        return results;
+    }
+
+    @Override
+    public List<DepTree> readInstances(Path path, Set<String> filter) {
+        return readInstances(path);
+    }
+
+    /**
+     * Create an iterator over the trees in a given (uncompressed) file, decoding chunks of the file in parallel. Only a few
+     * chunks are held in memory at a time.
+     *
+     * @param path CoNLL file path
+     * @return iterator over trees, in file order
+     */
+    public Iterator<DepTree> instanceIterator(Path path) {
+        return new ChunkIterator(path);
+    }
+
     private List<String> readTree(BufferedReader reader) throws IOException {
         List<String> lines = new ArrayList<>();
         String currentLine;
@@ -104,6 +155,11 @@ public class CoNllDepTreeReader implements CorpusReader<DepTree> {
         }
 
         tree = tree.subList(header.size(), tree.size());
+        if (columnar) {
+            DepTree result = readColumnarTree(id, tree);
+            processHeader(header, result);
+            return result;
+        }
         for (String line : tree) {
             depNodes.add(getDepNode(index++, line.split(FIELD_DELIM), depMap, headMap));
         }
@@ -120,6 +176,20 @@ public class CoNllDepTreeReader implements CorpusReader<DepTree> {
         return result;
     }
 
+    private DepTree readColumnarTree(int id, List<String> tree) {
+        ColumnarDepTree.Builder builder = new ColumnarDepTree.Builder(symbols, tree.size());
+        for (String line : tree) {
+            String[] fields = line.split(FIELD_DELIM);
+            try {
+                builder.add(Integer.parseInt(fields[0]), fields[1], fields[2], fields[3], fields[4],
+                        Integer.parseInt(fields[5]));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Error parsing line: " + String.join(" ", fields), e);
+            }
+        }
+        return builder.build(id);
+    }
+
     protected void processHeader(List<String> header, DepTree result) {
         // template method
     }
@@ -132,8 +202,8 @@ public class CoNllDepTreeReader implements CorpusReader<DepTree> {
             tokenMap.put(Integer.parseInt(fields[0]), depNode);
             depNode.addFeature(FeatureType.Text, fields[1]);
             depNode.addFeature(FeatureType.Lemma, fields[2]);
-            depNode.addFeature(FeatureType.Pos, fields[3]);
-            depNode.addFeature(FeatureType.Dep, fields[4]);
+            depNode.addFeature(FeatureType.Pos, symbols.intern(fields[3]));
+            depNode.addFeature(FeatureType.Dep, symbols.intern(fields[4]));
             tokenHeadMap.put(depNode, Integer.parseInt(fields[5]));
             return depNode;
         } catch (RuntimeException e) {
@@ -212,6 +282,297 @@ public class CoNllDepTreeReader implements CorpusReader<DepTree> {
         }
     }
 
+    /**
+     * Iterator over the trees in a file, decoding groups of chunks in parallel. The file is only open while a group of
+     * chunks is being read, so an abandoned or failed iterator does not hold on to it.
+     */
+    private class ChunkIterator implements Iterator<DepTree> {
+
+        private final Path path;
+        private final long size;
+        private final int parallelism = Runtime.getRuntime().availableProcessors();
+        private long position;
+        private int index;
+        private Iterator<DepTree> current = Collections.emptyIterator();
+
+        ChunkIterator(Path path) {
+            this.path = path;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                size = channel.size();
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to open dependency tree file at " + path, e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && position < size) {
+                current = readChunks().iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public DepTree next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        private List<DepTree> readChunks() {
+            List<byte[]> chunks = new ArrayList<>(parallelism);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                while (chunks.size() < parallelism && position < size) {
+                    chunks.add(readChunk(channel));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("An error occurred while reading dependency trees.", e);
+            }
+            // trees are counted first, so that each chunk can be decoded with the correct tree IDs
+            int[] counts = chunks.parallelStream().mapToInt(CoNllDepTreeReader::countTrees).toArray();
+            int[] offsets = new int[counts.length];
+            for (int i = 0; i < counts.length; ++i) {
+                offsets[i] = index;
+                index += counts[i];
+            }
+            List<DepTree> results = new ArrayList<>();
+            IntStream.range(0, chunks.size()).parallel()
+                    .mapToObj(i -> decodeTrees(chunks.get(i), offsets[i]))
+                    .forEachOrdered(results::addAll);
+            return results;
+        }
+
+        /**
+         * Read bytes from the current position up to the last blank line within the chunk size (or the end of the file).
+         */
+        private byte[] readChunk(FileChannel channel) throws IOException {
+            long length = Math.min(CHUNK_SIZE, size - position);
+            while (true) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+                if (position + length < size) {
+                    end = lastBoundary(buffer, (int) length);
+                }
+                if (end > 0) {
+                    byte[] chunk = new byte[end];
+                    buffer.get(chunk);
+                    position += end;
+                    return chunk;
+                }
+                if (length >= Integer.MAX_VALUE / 2) {
+                    throw new IllegalStateException("No blank line found within " + length + " bytes at " + position);
+                }
+                length = Math.min(length * 2, size - position); // a single tree larger than the chunk size
+            }
+        }
+
+        private int lastBoundary(ByteBuffer buffer, int length) {
+            for (int i = length - 1; i > 0; --i) {
+                if (buffer.get(i) == '\n' && (buffer.get(i - 1) == '\n'
+                        || (i > 1 && buffer.get(i - 1) == '\r' && buffer.get(i - 2) == '\n'))) {
+                    return i + 1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Count the trees (groups of non-empty lines) in a chunk.
+     */
+    private static int countTrees(byte[] bytes) {
+        int count = 0;
+        boolean inTree = false;
+        int start = 0;
+        while (start < bytes.length) {
+            int end = lineEnd(bytes, start);
+            boolean blank = contentEnd(bytes, start, end) == start;
+            if (!blank && !inTree) {
+                ++count;
+            }
+            inTree = !blank;
+            start = end + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Decode the trees in a chunk, assigning IDs starting from a given index.
+     */
+    private List<DepTree> decodeTrees(byte[] bytes, int index) {
+        List<DepTree> results = new ArrayList<>();
+        List<String> header = new ArrayList<>();
+        TokenColumns columns = new TokenColumns();
+        int start = 0;
+        while (start <= bytes.length) {
+            int end = lineEnd(bytes, start);
+            int contentEnd = contentEnd(bytes, start, end);
+            if (contentEnd == start || end == bytes.length) {
+                if (contentEnd > start) { // last line without a trailing newline
+                    addLine(bytes, start, contentEnd, header, columns);
+                }
+                if (columns.size > 0 || header.size() > 0) {
+                    results.add(buildTree(index++, header, columns));
+                    header = new ArrayList<>();
+                    columns = new TokenColumns();
+                }
+            } else {
+                addLine(bytes, start, contentEnd, header, columns);
+            }
+            start = end + 1;
+        }
+        return results;
+    }
+
+    private void addLine(byte[] bytes, int start, int end, List<String> header, TokenColumns columns) {
+        if (columns.size == 0 && bytes[start] == '#') {
+            header.add(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        } else {
+            columns.add(bytes, start, end);
+        }
+    }
+
+    private DepTree buildTree(int id, List<String> header, TokenColumns columns) {
+        DepTree result;
+        if (columnar) {
+            ColumnarDepTree.Builder builder = new ColumnarDepTree.Builder(symbols, columns.size);
+            for (int i = 0; i < columns.size; ++i) {
+                builder.add(columns.ids[i], columns.text[i], columns.lemma[i], columns.pos[i], columns.dep[i],
+                        columns.heads[i]);
+            }
+            result = builder.build(id);
+        } else {
+            List<DepNode> depNodes = new ArrayList<>(columns.size);
+            for (int i = 0; i < columns.size; ++i) {
+                DefaultDepNode depNode = new DefaultDepNode(i);
+                depNode.addFeature(FeatureType.Text, columns.text[i]);
+                depNode.addFeature(FeatureType.Lemma, columns.lemma[i]);
+                depNode.addFeature(FeatureType.Pos, symbols.intern(columns.pos[i]));
+                depNode.addFeature(FeatureType.Dep, symbols.intern(columns.dep[i]));
+                depNodes.add(depNode);
+            }
+            int[] positions = columns.headPositions();
+            DepNode root = null;
+            for (int i = 0; i < columns.size; ++i) {
+                if (positions[i] < 0) {
+                    root = depNodes.get(i);
+                } else {
+                    ((DefaultDepNode) depNodes.get(i)).head(depNodes.get(positions[i]));
+                }
+            }
+            result = new DefaultDepTree(id, depNodes, root);
+        }
+        processHeader(header, result);
+        return result;
+    }
+
+    private static int lineEnd(byte[] bytes, int start) {
+        int end = start;
+        while (end < bytes.length && bytes[end] != '\n') {
+            ++end;
+        }
+        return end;
+    }
+
+    private static int contentEnd(byte[] bytes, int start, int end) {
+        return end > start && bytes[end - 1] == '\r' ? end - 1 : end;
+    }
+
+    /**
+     * Token fields of a single tree, decoded from tab-separated lines.
+     */
+    private static class TokenColumns {
+
+        private int size;
+        private int[] ids = new int[32];
+        private int[] heads = new int[32];
+        private String[] text = new String[32];
+        private String[] lemma = new String[32];
+        private String[] pos = new String[32];
+        private String[] dep = new String[32];
+
+        private void add(byte[] bytes, int start, int end) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                heads = Arrays.copyOf(heads, size * 2);
+                text = Arrays.copyOf(text, size * 2);
+                lemma = Arrays.copyOf(lemma, size * 2);
+                pos = Arrays.copyOf(pos, size * 2);
+                dep = Arrays.copyOf(dep, size * 2);
+            }
+            int[] fieldStarts = new int[7];
+            int fields = 1;
+            fieldStarts[0] = start;
+            for (int i = start; i < end && fields < 7; ++i) {
+                if (bytes[i] == '\t') {
+                    fieldStarts[fields++] = i + 1;
+                }
+            }
+            if (fields < 6) {
+                throw new RuntimeException("Error parsing line: " + new String(bytes, start, end - start, StandardCharsets.UTF_8));
+            }
+            try {
+                ids[size] = parseInt(bytes, fieldStarts[0], fieldStarts[1] - 1);
+                text[size] = new String(bytes, fieldStarts[1], fieldStarts[2] - fieldStarts[1] - 1, StandardCharsets.UTF_8);
+                lemma[size] = new String(bytes, fieldStarts[2], fieldStarts[3] - fieldStarts[2] - 1, StandardCharsets.UTF_8);
+                pos[size] = new String(bytes, fieldStarts[3], fieldStarts[4] - fieldStarts[3] - 1, StandardCharsets.UTF_8);
+                dep[size] = new String(bytes, fieldStarts[4], fieldStarts[5] - fieldStarts[4] - 1, StandardCharsets.UTF_8);
+                heads[size] = parseInt(bytes, fieldStarts[5], fields > 6 ? fieldStarts[6] - 1 : end);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Error parsing line: " + new String(bytes, start, end - start,
+                        StandardCharsets.UTF_8), e);
+            }
+            ++size;
+        }
+
+        /**
+         * Resolve head IDs to token positions (-1 for the root).
+         */
+        private int[] headPositions() {
+            Map<Integer, Integer> positionMap = null;
+            for (int i = 0; i < size; ++i) {
+                if (ids[i] != ids[0] + i) { // non-sequential IDs
+                    positionMap = new HashMap<>();
+                    for (int j = 0; j < size; ++j) {
+                        positionMap.put(ids[j], j);
+                    }
+                    break;
+                }
+            }
+            int[] positions = new int[size];
+            for (int i = 0; i < size; ++i) {
+                if (heads[i] < 0) {
+                    positions[i] = -1;
+                    continue;
+                }
+                Integer position = positionMap == null ? (Integer) (heads[i] - ids[0]) : positionMap.get(heads[i]);
+                if (position == null || position < 0 || position >= size) {
+                    throw new RuntimeException("Unknown head " + heads[i] + " for token " + ids[i]);
+                }
+                positions[i] = position;
+            }
+            return positions;
+        }
+
+        private static int parseInt(byte[] bytes, int start, int end) {
+            if (start >= end) {
+                throw new NumberFormatException("Empty integer field");
+            }
+            boolean negative = bytes[start] == '-';
+            int value = 0;
+            for (int i = negative ? start + 1 : start; i < end; ++i) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("Invalid integer: " + new String(bytes, start, end - start,
+                            StandardCharsets.UTF_8));
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+    }
+
     /**
      * Write a list of {@link DepTree} to an {@link OutputStream} in a CoNLL-style format.
      *
@@ -219,8 +580,10 @@ public class CoNllDepTreeReader implements CorpusReader<DepTree> {
      * @param outputStream output stream
      */
     public static void writeDependencyTrees(List<DepTree> trees, OutputStream outputStream) {
-        try (PrintWriter writer = new PrintWriter(outputStream)) {
-            writeDependencyTrees(trees, writer);
+        try (CoNllWriter writer = new CoNllWriter(outputStream)) {
+            for (DepTree tree : trees) {
+                writer.writeTree(tree);
+            }
         }
     }
 
@@ -246,21 +609,31 @@ public class CoNllDepTreeReader implements CorpusReader<DepTree> {
      * @return CoNLL-style string
      */
     public static String treeToString(DepTree tree, String... extra) {
-        List<String> lines = new ArrayList<>();
+        StringBuilder result = new StringBuilder(tree.size() * 32);
         for (DepNode depNode : tree) {
-            List<String> fields = new ArrayList<>();
-            fields.add(Integer.toString(depNode.index()));
-            fields.add(depNode.feature(FeatureType.Text));
-            fields.add(depNode.feature(FeatureType.Lemma));
-            fields.add(depNode.feature(FeatureType.Pos));
-            fields.add(depNode.feature(FeatureType.Dep));
-            fields.add(Integer.toString(depNode.isRoot() ? -1 : depNode.head().index()));
-            fields.add(Arrays.stream(extra).filter(s -> depNode.feature(s) != null)
-                    .map(s -> s + "=" + depNode.feature(s))
-                    .collect(Collectors.joining("|")));
-            lines.add(String.join("\t", fields));
-        }
-        return String.join("\n", lines);
+            if (result.length() > 0) {
+                result.append('\n');
+            }
+            result.append(depNode.index()).append('\t')
+                    .append((Object) depNode.feature(FeatureType.Text)).append('\t')
+                    .append((Object) depNode.feature(FeatureType.Lemma)).append('\t')
+                    .append((Object) depNode.feature(FeatureType.Pos)).append('\t')
+                    .append((Object) depNode.feature(FeatureType.Dep)).append('\t')
+                    .append(depNode.isRoot() ? -1 : depNode.head().index()).append('\t');
+            boolean first = true;
+            for (String feature : extra) {
+                Object value = depNode.feature(feature);
+                if (value == null) {
+                    continue;
+                }
+                if (!first) {
+                    result.append('|');
+                }
+                first = false;
+                result.append(feature).append('=').append(value);
+            }
+        }
+        return result.toString();
     }
 
 }
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.corpus;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.FeatureType;
+
+/**
+ * Streaming writer of dependency trees in the CoNLL-style format produced by {@link CoNllDepTreeReader#treeToString}. Text is
+ * encoded as UTF-8 directly into a reusable byte buffer, which is written to an NIO channel whenever it fills, so trees can be
+ * written incrementally without building intermediate strings. Writers are not thread-safe.
+ *
+ * @author jamesgung
+ */
+public class CoNllWriter implements Closeable, Flushable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final String GZIP_EXT = ".gz";
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Initialize a writer over a given channel.
+     *
+     * @param channel    output channel
+     * @param bufferSize size of the output buffer, in bytes
+     */
+    public CoNllWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(16, bufferSize));
+    }
+
+    /**
+     * Initialize a writer over a given output stream.
+     *
+     * @param outputStream output stream, closed when the writer is closed
+     */
+    public CoNllWriter(OutputStream outputStream) {
+        this(Channels.newChannel(outputStream), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Open a writer to a file, compressing output with gzip if the file name ends in ".gz".
+     *
+     * @param path output file path
+     * @return CoNLL writer
+     */
+    public static CoNllWriter open(Path path) {
+        return open(path, path.getFileName().toString().endsWith(GZIP_EXT));
+    }
+
+    /**
+     * Open a writer to a file.
+     *
+     * @param path output file path
+     * @param gzip if true, compress output with gzip
+     * @return CoNLL writer
+     */
+    public static CoNllWriter open(Path path, boolean gzip) {
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            if (gzip) {
+                return new CoNllWriter(Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel),
+                        DEFAULT_BUFFER_SIZE)), DEFAULT_BUFFER_SIZE);
+            }
+            return new CoNllWriter(channel, DEFAULT_BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to open " + path + " for writing", e);
+        }
+    }
+
+    /**
+     * Write a tree followed by a blank line, as in {@link CoNllDepTreeReader#writeDependencyTrees}.
+     *
+     * @param tree  dependency tree
+     * @param extra extra features to be serialized
+     */
+    public CoNllWriter writeTree(DepTree tree, String... extra) {
+        return write(tree, extra).newLine().newLine();
+    }
+
+    /**
+     * Write the lines of a tree (index word lemma pos dep head extra), without a line break after the last line.
+     *
+     * @param tree  dependency tree
+     * @param extra extra features to be serialized
+     */
+    public CoNllWriter write(DepTree tree, String... extra) {
+        boolean first = true;
+        for (DepNode depNode : tree) {
+            if (!first) {
+                newLine();
+            }
+            first = false;
+            write(depNode.index()).tab()
+                    .write(depNode.<Object>feature(FeatureType.Text)).tab()
+                    .write(depNode.<Object>feature(FeatureType.Lemma)).tab()
+                    .write(depNode.<Object>feature(FeatureType.Pos)).tab()
+                    .write(depNode.<Object>feature(FeatureType.Dep)).tab()
+                    .write(depNode.isRoot() ? -1 : depNode.head().index()).tab();
+            boolean firstExtra = true;
+            for (String feature : extra) {
+                Object value = depNode.feature(feature);
+                if (value == null) {
+                    continue;
+                }
+                if (!firstExtra) {
+                    write('|');
+                }
+                firstExtra = false;
+                write(feature).write('=').write(value);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Write a line break.
+     */
+    public CoNllWriter newLine() {
+        return write('\n');
+    }
+
+    /**
+     * Write a tab.
+     */
+    public CoNllWriter tab() {
+        return write('\t');
+    }
+
+    /**
+     * Write a decimal integer.
+     *
+     * @param value integer value
+     */
+    public CoNllWriter write(long value) {
+        if (value == Long.MIN_VALUE) {
+            return write(Long.toString(value));
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+            ++digits;
+        }
+        int end = buffer.position() + digits;
+        for (int i = end - 1; i >= buffer.position(); --i) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+        return this;
+    }
+
+    /**
+     * Write the string value of an object, or "null" for null values.
+     *
+     * @param value value to write
+     */
+    public CoNllWriter write(Object value) {
+        return write(value == null ? "null" : value.toString());
+    }
+
+    /**
+     * Write a string, encoded as UTF-8.
+     *
+     * @param value string value
+     */
+    public CoNllWriter write(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; ++i) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                buffer.put((byte) c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                writeCodePoint(Character.toCodePoint(c, value.charAt(++i)));
+            } else {
+                writeCodePoint(Character.isSurrogate(c) ? '?' : c);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Write a single (BMP) character, encoded as UTF-8.
+     *
+     * @param c character
+     */
+    public CoNllWriter write(char c) {
+        if (c < 0x80) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) c);
+            return this;
+        }
+        writeCodePoint(Character.isSurrogate(c) ? '?' : c);
+        return this;
+    }
+
+    /**
+     * Write any buffered output to the underlying channel.
+     */
+    @Override
+    public void flush() {
+        drain();
+    }
+
+    @Override
+    public void close() {
+        try {
+            drain();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Error closing CoNLL writer", e);
+            }
+        }
+    }
+
+    private void writeCodePoint(int codePoint) {
+        ensure(4);
+        if (codePoint < 0x800) {
+            buffer.put((byte) (0xc0 | (codePoint >> 6)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+        } else if (codePoint < 0x10000) {
+            buffer.put((byte) (0xe0 | (codePoint >> 12)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+        } else {
+            buffer.put((byte) (0xf0 | (codePoint >> 18)));
+            buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+        }
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing CoNLL output", e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+}
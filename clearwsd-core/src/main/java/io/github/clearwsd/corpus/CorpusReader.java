@@ -16,8 +16,11 @@
 
 package io.github.clearwsd.corpus;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
 
@@ -51,6 +54,22 @@ public interface CorpusReader<T extends NlpInstance> {
         return readInstances(inputStream);
     }
 
+    /**
+     * Read all instances from a given file. By default, reads from an input stream over the file, but readers of formats that
+     * can be read more efficiently from files (such as {@link CoNllDepTreeReader}) may override this.
+     *
+     * @param path   corpus file path
+     * @param filter optional set of types to filter by
+     * @return list of instances
+     */
+    default List<T> readInstances(Path path, Set<String> filter) {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return readInstances(inputStream, filter);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read instances from " + path, e);
+        }
+    }
+
     /**
      * Write a list of instances to a given output stream.
      *
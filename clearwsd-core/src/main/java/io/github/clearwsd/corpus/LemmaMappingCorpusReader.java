@@ -51,6 +51,11 @@ public class LemmaMappingCorpusReader implements CorpusReader<NlpFocus<DepNode,
         return applyMappings(corpusReader.readInstances(inputStream, filter));
     }
 
+    @Override
+    public List<NlpFocus<DepNode, DepTree>> readInstances(Path path, Set<String> filter) {
+        return applyMappings(corpusReader.readInstances(path, filter));
+    }
+
     public void writeInstances(List<NlpFocus<DepNode, DepTree>> instances, OutputStream outputStream) {
         corpusReader.writeInstances(instances, outputStream);
     }
@@ -31,6 +31,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -42,10 +43,13 @@ import java.util.Stack;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import io.github.clearwsd.corpus.semlink.VerbNetReader;
 import io.github.clearwsd.corpus.semlink.VerbNetReader.VerbNetInstance;
 import io.github.clearwsd.parser.NlpTokenizer;
+import io.github.clearwsd.utils.OntoNotesSenseInventory;
+import io.github.clearwsd.utils.OrderedParallelIterator;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -71,6 +75,13 @@ public class OntoNotesConverter {
     private String senseExt = ".sense";
     @Parameter(names = "-lemmaFilter", description = "Regex filter for specific lemma types")
     private String lemmafilter = ".*-v";
+    @Parameter(names = "-threads", description = "Number of threads used to read OntoNotes files (all processors if less than 1)")
+    private int threads = 0;
+    @Parameter(names = "-inventories", description = "Optional path to directory of OntoNotes sense inventory XML files")
+    private String inventoryPath;
+    @Parameter(names = "-inventoryOutput", description = "Output path for compiled sense inventories "
+            + "(loadable by OntoNotesSenseInventory), required with -inventories")
+    private String inventoryOutputPath;
 
     private OntoNotesConverter(String... args) {
         JCommander cmd = new JCommander(this);
@@ -92,25 +103,35 @@ public class OntoNotesConverter {
             }
         }
         try (PrintWriter writer = new PrintWriter(outputPath)) {
-            for (VerbNetInstance instance : new OntoNotesConverter().getInstances(Paths.get(inputPath))) {
+            for (VerbNetInstance instance : getInstances(Paths.get(inputPath))) {
                 writer.println(VerbNetReader.VerbNetInstanceParser.toString(instance));
             }
         } catch (FileNotFoundException e) {
             throw new RuntimeException("Unable to write to output path at " + outputPath + ": " + e.getMessage(), e);
         }
+        if (inventoryPath != null) {
+            if (inventoryOutputPath == null) {
+                throw new IllegalArgumentException("An output path (-inventoryOutput) is required to compile sense inventories");
+            }
+            OntoNotesSenseInventory.compile(Paths.get(inventoryPath), Paths.get(inventoryOutputPath), threads);
+        }
     }
 
+    /**
+     * Return parse files under a given directory, sorted by path so that instances are always read in the same order.
+     */
     private List<Path> getParseFiles(Path directory) {
-        try {
-            return Files.find(directory, Integer.MAX_VALUE, (path, atts) -> path.toString().endsWith(parseExt))
-                    .collect(Collectors.toList());
+        try (Stream<Path> paths = Files.find(directory, Integer.MAX_VALUE,
+                (path, atts) -> path.toString().endsWith(parseExt))) {
+            return paths.sorted().collect(Collectors.toList());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Read a list of {@link VerbNetInstance instances} from OntoNotes files in a given {@link Path}.
+     * Read a list of {@link VerbNetInstance instances} from OntoNotes files in a given {@link Path}. Files are read and parsed
+     * in parallel, and instances are returned in order of file path, then order within each file.
      *
      * @param directory OntoNotes path
      * @return list of sense instances
@@ -118,32 +139,40 @@ public class OntoNotesConverter {
     public List<VerbNetInstance> getInstances(Path directory) {
         Predicate<String> filter = Pattern.compile(lemmafilter).asPredicate();
         List<VerbNetInstance> instances = new ArrayList<>();
+        try (OrderedParallelIterator<Path, List<VerbNetInstance>> results = new OrderedParallelIterator<>(
+                getParseFiles(directory).iterator(), () -> path -> getInstances(path, filter), threads, 1)) {
+            results.forEachRemaining(instances::addAll);
+        }
+        return instances;
+    }
+
+    private List<VerbNetInstance> getInstances(Path path, Predicate<String> filter) {
+        Path sensePath = Paths.get(path.toString().replaceAll(parseExt + "$", senseExt));
+        if (!Files.exists(sensePath)) {
+            return Collections.emptyList();
+        }
+        List<VerbNetInstance> instances = new ArrayList<>();
         try {
-            for (Path path : getParseFiles(directory)) {
-                Path sensePath = Paths.get(path.toString().replaceAll(parseExt + "$", senseExt));
-                if (Files.exists(sensePath)) {
-                    String trees = new String(Files.readAllBytes(path));
-                    Map<Integer, String> sentenceMap = new HashMap<>();
-                    for (TreebankTreeNode treeNode : parse(trees)) {
-                        sentenceMap.put(sentenceMap.size(), treeNode.toString());
-                    }
-                    String senses = new String(Files.readAllBytes(sensePath));
-                    for (String senseLine : senses.split("[\\r\\n]+")) {
-                        String[] fields = senseLine.split(" ");
-                        String lemma = fields[3];
-                        if (!filter.test(lemma)) {
-                            continue;
-                        }
-                        VerbNetInstance instance = new VerbNetInstance()
-                                .path(fields[0])
-                                .sentence(Integer.parseInt(fields[1]))
-                                .token(Integer.parseInt(fields[2]))
-                                .lemma(lemma)
-                                .label(fields.length == 6 ? fields[5] : fields[4]);
-                        instance.originalText(sentenceMap.getOrDefault(instance.sentence(), ""));
-                        instances.add(instance);
-                    }
+            String trees = new String(Files.readAllBytes(path));
+            Map<Integer, String> sentenceMap = new HashMap<>();
+            for (TreebankTreeNode treeNode : parse(trees)) {
+                sentenceMap.put(sentenceMap.size(), treeNode.toString());
+            }
+            String senses = new String(Files.readAllBytes(sensePath));
+            for (String senseLine : senses.split("[\\r\\n]+")) {
+                String[] fields = senseLine.split(" ");
+                String lemma = fields[3];
+                if (!filter.test(lemma)) {
+                    continue;
                 }
+                VerbNetInstance instance = new VerbNetInstance()
+                        .path(fields[0])
+                        .sentence(Integer.parseInt(fields[1]))
+                        .token(Integer.parseInt(fields[2]))
+                        .lemma(lemma)
+                        .label(fields.length == 6 ? fields[5] : fields[4]);
+                instance.originalText(sentenceMap.getOrDefault(instance.sentence(), ""));
+                instances.add(instance);
             }
         } catch (IOException e) {
             throw new RuntimeException("Error reading instances: " + e.getMessage(), e);
@@ -23,32 +23,63 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import io.github.clearwsd.parser.NlpParser;
 import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.utils.OrderedParallelIterator;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Corpus reader over a plain text file. Text is segmented and tokenized, and dependency trees are produced.
+ * <p>
+ * When initialized with a parser factory and more than one thread, parsing is pipelined with an
+ * {@link OrderedParallelIterator}: lines are segmented into sentences on its reader thread, a pool of workers (each with its own
+ * {@link NlpParser}) tokenizes and parses batches of sentences, and trees are consumed on the calling thread in their original
+ * order, so memory usage does not depend on the size of the input.
  *
  * @author jamesgung
  */
 @Slf4j
 public class TextCorpusReader implements CorpusReader<DepTree> {
 
+    private static final int BATCH_SIZE = 32;
+
     private NlpParser parser;
+    private Supplier<NlpParser> parserFactory;
+    private int threads = 1;
 
     public TextCorpusReader(NlpParser parser) {
         this.parser = parser;
     }
 
+    /**
+     * Initialize a reader that parses in a given number of worker threads.
+     *
+     * @param parserFactory supplier of parsers, called once for segmentation and once per worker thread
+     * @param threads       number of parser worker threads (if less than 1, the number of available processors)
+     */
+    public TextCorpusReader(Supplier<NlpParser> parserFactory, int threads) {
+        this.parserFactory = parserFactory;
+        this.parser = parserFactory.get();
+        this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
     @Override
     public List<DepTree> readInstances(InputStream inputStream) {
         List<DepTree> results = new ArrayList<>();
+        if (pipelined()) {
+            parse(inputStream, results::addAll, Integer.MAX_VALUE);
+            return results;
+        }
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
             String line;
             while ((line = reader.readLine()) != null) {
@@ -81,11 +112,20 @@ public class TextCorpusReader implements CorpusReader<DepTree> {
      * @param maxCache     maximum number of trees to parse before writing/flushing
      */
     public void parseAndWrite(InputStream inputStream, OutputStream outputStream, int maxCache) {
+        if (pipelined()) {
+            try (CoNllWriter writer = new CoNllWriter(outputStream)) {
+                parse(inputStream, trees -> {
+                    trees.forEach(writer::writeTree);
+                    writer.flush();
+                }, maxCache);
+            }
+            return;
+        }
         List<DepTree> cache = new ArrayList<>();
         int processed = 0;
         Stopwatch sw = Stopwatch.createStarted();
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-             PrintWriter writer = new PrintWriter(outputStream)) {
+             CoNllWriter writer = new CoNllWriter(outputStream)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 line = line.trim();
@@ -97,18 +137,97 @@ public class TextCorpusReader implements CorpusReader<DepTree> {
                     cache.add(tree);
                     ++processed;
                     if (cache.size() >= maxCache) {
-                        CoNllDepTreeReader.writeDependencyTrees(cache, writer);
+                        cache.forEach(writer::writeTree);
+                        writer.flush();
                         cache = new ArrayList<>();
-                        log.debug("Parsing {} trees/s", processed / sw.elapsed(TimeUnit.SECONDS));
+                        log.debug("Parsing {} trees/s", treesPerSecond(processed, sw));
                     }
                 }
             }
+            cache.forEach(writer::writeTree);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean pipelined() {
+        return parserFactory != null && threads > 1;
+    }
+
+    /**
+     * Parse an input stream with an {@link OrderedParallelIterator} over its segmented sentences.
+     *
+     * @param inputStream input stream
+     * @param consumer    consumer of parsed trees, called on the calling thread with trees in input order
+     * @param maxCache    maximum number of trees to collect before passing them to the consumer
+     */
+    private void parse(InputStream inputStream, Consumer<List<DepTree>> consumer, int maxCache) {
+        Stopwatch sw = Stopwatch.createStarted();
+        int processed = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+             OrderedParallelIterator<String, DepTree> trees = new OrderedParallelIterator<>(new SentenceIterator(reader),
+                     () -> {
+                         NlpParser parser = parserFactory.get();
+                         return sentence -> parser.parse(parser.tokenize(sentence));
+                     }, threads, BATCH_SIZE)) {
+            List<DepTree> cache = new ArrayList<>();
+            while (trees.hasNext()) {
+                cache.add(trees.next());
+                ++processed;
+                if (cache.size() >= maxCache) {
+                    consumer.accept(cache);
+                    cache = new ArrayList<>();
+                    log.debug("Parsing {} trees/s with {} threads", treesPerSecond(processed, sw), threads);
+                }
+            }
             if (cache.size() > 0) {
-                CoNllDepTreeReader.writeDependencyTrees(cache, writer);
+                consumer.accept(cache);
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        log.debug("Parsed {} trees in {} ({} trees/s with {} threads)", processed, sw, treesPerSecond(processed, sw), threads);
+    }
+
+    private static long treesPerSecond(int trees, Stopwatch sw) {
+        return trees * 1000L / Math.max(1, sw.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Iterator over the sentences of non-empty lines, segmented by the reader's parser.
+     */
+    private class SentenceIterator implements Iterator<String> {
+
+        private final BufferedReader reader;
+        private Iterator<String> sentences = Collections.emptyIterator();
+
+        private SentenceIterator(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                String line;
+                while (!sentences.hasNext() && (line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.length() > 0) {
+                        sentences = parser.segment(line).iterator();
+                    }
+                }
+                return sentences.hasNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return sentences.next();
+        }
     }
 
 }
@@ -18,17 +18,23 @@ package io.github.clearwsd.corpus.ontonotes;
 
 import org.xml.sax.InputSource;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
 import javax.xml.bind.annotation.XmlRegistry;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.sax.SAXSource;
 
+import io.github.clearwsd.utils.OrderedParallelIterator;
 import lombok.extern.slf4j.Slf4j;
 
 
@@ -41,30 +47,49 @@ public class OntoNotesSenseInventoryFactory {
 
     private static final String LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd";
 
+    private static volatile JAXBContext context;
+
     /**
      * Read a map from lemmas onto corresponding {@link OntoNotesInventory OntoNotes sense inventories} at a given directory.
+     * Inventory files are read in parallel, and the returned map is ordered by inventory file path.
      *
      * @param directory inventory directory
      * @param extension inventory extension (e.g. ".xml")
+     * @param threads   number of threads used to read inventories (if less than 1, the number of available processors)
      * @return sense inventory map
      */
-    public static Map<String, OntoNotesInventory> readInventories(Path directory, String extension) {
-        try {
-            Map<String, OntoNotesInventory> inventoryMap = Files.walk(directory, Integer.MAX_VALUE)
-                    .filter(f -> f.toString().endsWith(extension))
-                    .map(path -> {
-                        try {
-                            return readInventory(Files.newInputStream(path));
-                        } catch (Exception e) {
-                            throw new RuntimeException("Error reading sense inventory at " + path.toString(), e);
-                        }
-                    })
-                    .collect(Collectors.toMap(OntoNotesInventory::getLemma, i -> i));
-            log.debug("Read {} inventories at {}", inventoryMap.size(), directory.toString());
-            return inventoryMap;
+    public static Map<String, OntoNotesInventory> readInventories(Path directory, String extension, int threads) {
+        List<Path> paths;
+        try (Stream<Path> files = Files.walk(directory, Integer.MAX_VALUE)) {
+            paths = files.filter(f -> f.toString().endsWith(extension)).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading sense inventories at " + directory.toString(), e);
+        }
+        Map<String, OntoNotesInventory> inventoryMap = new LinkedHashMap<>();
+        try (OrderedParallelIterator<Path, OntoNotesInventory> inventories = new OrderedParallelIterator<>(paths.iterator(),
+                () -> path -> readInventory(path), threads, 8)) {
+            while (inventories.hasNext()) {
+                OntoNotesInventory inventory = inventories.next();
+                if (inventoryMap.put(inventory.getLemma(), inventory) != null) {
+                    throw new IllegalStateException("Duplicate sense inventory for " + inventory.getLemma());
+                }
+            }
         } catch (Exception e) {
             throw new RuntimeException("Error reading sense inventories at " + directory.toString(), e);
         }
+        log.debug("Read {} inventories at {}", inventoryMap.size(), directory.toString());
+        return inventoryMap;
+    }
+
+    /**
+     * Read a map from lemmas onto corresponding {@link OntoNotesInventory OntoNotes sense inventories} at a given directory.
+     *
+     * @param directory inventory directory
+     * @param extension inventory extension (e.g. ".xml")
+     * @return sense inventory map
+     */
+    public static Map<String, OntoNotesInventory> readInventories(Path directory, String extension) {
+        return readInventories(directory, extension, 0);
     }
 
     /**
@@ -77,6 +102,20 @@ public class OntoNotesSenseInventoryFactory {
         return readInventories(directory, ".xml");
     }
 
+    /**
+     * Read a single OntoNotes sense inventory file.
+     *
+     * @param path sense inventory path
+     * @return sense inventory
+     */
+    public static OntoNotesInventory readInventory(Path path) {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return readInventory(inputStream);
+        } catch (Exception e) {
+            throw new RuntimeException("Error reading sense inventory at " + path.toString(), e);
+        }
+    }
+
     /**
      * Read a single OntoNotes sense inventory.
      *
@@ -88,10 +127,27 @@ public class OntoNotesSenseInventoryFactory {
             SAXParserFactory parserFactory = SAXParserFactory.newInstance();
             parserFactory.setFeature(LOAD_EXTERNAL_DTD, false);
             SAXSource source = new SAXSource(parserFactory.newSAXParser().getXMLReader(), new InputSource(inputStream));
-            return (OntoNotesInventory) JAXBContext.newInstance(OntoNotesInventory.class).createUnmarshaller().unmarshal(source);
+            return (OntoNotesInventory) context().createUnmarshaller().unmarshal(source);
         } catch (Exception e) {
             throw new RuntimeException("Error reading sense inventory: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Return a shared JAXB context, which is thread-safe but expensive to create (unlike unmarshallers).
+     */
+    private static JAXBContext context() throws JAXBException {
+        JAXBContext result = context;
+        if (result == null) {
+            synchronized (OntoNotesSenseInventoryFactory.class) {
+                result = context;
+                if (result == null) {
+                    result = JAXBContext.newInstance(OntoNotesInventory.class);
+                    context = result;
+                }
+            }
+        }
+        return result;
+    }
+
 }
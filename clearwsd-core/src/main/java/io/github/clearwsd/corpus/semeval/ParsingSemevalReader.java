@@ -16,6 +16,8 @@
 
 package io.github.clearwsd.corpus.semeval;
 
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import io.github.clearwsd.parser.NlpParser;
@@ -24,21 +26,56 @@ import io.github.clearwsd.type.FeatureType;
 import io.github.clearwsd.type.DefaultDepTree;
 
 /**
- * Semeval XML reader.
+ * Semeval XML reader that parses each sentence while reading. When initialized with a parser factory and more than one thread,
+ * sentences are parsed in a pool of worker threads, each with its own {@link NlpParser}.
  *
  * @author jamesgung
  */
 public class ParsingSemevalReader extends SemevalReader {
 
     private NlpParser parser;
+    private Supplier<NlpParser> parserFactory;
+    private int threads = 1;
 
     public ParsingSemevalReader(String keyPath, NlpParser parser) {
         super(keyPath);
         this.parser = parser;
+        this.parserFactory = () -> parser;
+    }
+
+    /**
+     * Initialize a reader that parses in a given number of worker threads.
+     *
+     * @param keyPath       path to sense keys file
+     * @param parserFactory supplier of parsers, called once per worker thread
+     * @param threads       number of parser worker threads (if less than 1, the number of available processors)
+     */
+    public ParsingSemevalReader(String keyPath, Supplier<NlpParser> parserFactory, int threads) {
+        super(keyPath);
+        this.parserFactory = parserFactory;
+        this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
+    @Override
+    protected int threads() {
+        return threads;
+    }
+
+    @Override
+    protected Function<DefaultDepTree, DepTree> sentenceProcessor() {
+        NlpParser parser = parserFactory.get();
+        return dependencyTree -> parse(parser, dependencyTree);
     }
 
     @Override
     protected DepTree processSentence(DefaultDepTree dependencyTree) {
+        if (parser == null) {
+            parser = parserFactory.get();
+        }
+        return parse(parser, dependencyTree);
+    }
+
+    private static DepTree parse(NlpParser parser, DefaultDepTree dependencyTree) {
         DefaultDepTree result = (DefaultDepTree) parser.parse(dependencyTree.tokens().stream().
                 map(t -> (String) t.feature(FeatureType.Text))
                 .collect(Collectors.toList()));
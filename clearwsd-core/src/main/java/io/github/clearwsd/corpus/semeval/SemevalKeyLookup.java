@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.corpus.semeval;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming lookup over a Semeval keys file (lines of an instance ID followed by one or more space-separated senses). Keys
+ * are read lazily in file order until a requested ID is found, and are discarded once looked up, so when instances are
+ * requested in the same order as the keys file (as is the case for Semeval corpora), only a few keys are held in memory.
+ * Keys skipped while searching are buffered until requested.
+ *
+ * @author jamesgung
+ */
+class SemevalKeyLookup implements Closeable {
+
+    private final BufferedReader reader;
+    private final Map<String, Set<String>> buffered = new HashMap<>();
+
+    SemevalKeyLookup(String path) {
+        try {
+            reader = new BufferedReader(new FileReader(path));
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading sense keys file", e);
+        }
+    }
+
+    /**
+     * Return the senses for a given instance ID, or an empty set if there are none.
+     *
+     * @param id instance ID
+     * @return senses, in file order
+     */
+    Set<String> senses(String id) {
+        Set<String> senses = buffered.remove(id);
+        if (senses != null) {
+            return senses;
+        }
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split(" ");
+                Set<String> lineSenses = buffered.computeIfAbsent(fields[0], k -> new LinkedHashSet<>());
+                for (int i = 1; i < fields.length; ++i) {
+                    lineSenses.add(fields[i]);
+                }
+                if (fields[0].equals(id)) {
+                    return buffered.remove(id);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading sense keys file", e);
+        }
+        return Collections.emptySet();
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
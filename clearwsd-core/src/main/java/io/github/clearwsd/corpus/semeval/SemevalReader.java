@@ -16,26 +16,29 @@
 
 package io.github.clearwsd.corpus.semeval;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterators;
-import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.PeekingIterator;
-import com.google.common.collect.SetMultimap;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
-import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 import io.github.clearwsd.type.DepNode;
 import io.github.clearwsd.type.DepTree;
@@ -45,6 +48,7 @@ import io.github.clearwsd.corpus.CorpusReader;
 import io.github.clearwsd.type.DefaultDepNode;
 import io.github.clearwsd.type.DefaultDepTree;
 import io.github.clearwsd.type.DefaultNlpFocus;
+import io.github.clearwsd.utils.OrderedParallelIterator;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
@@ -65,51 +69,107 @@ public class SemevalReader implements CorpusReader<NlpFocus<DepNode, DepTree>> {
         private DefaultDepTree tree;
     }
 
-    private SetMultimap<String, String> keys;
+    @AllArgsConstructor
+    private static class ProcessedSentence {
+        private InstanceParsePair<DepNode> sentence;
+        private DepTree tree;
+    }
+
+    private static final String CORPUS = "corpus";
+    private static final String SENTENCE = "sentence";
+    private static final String WORD_FORM = "wf";
+    private static final String INSTANCE = "instance";
+
+    private String keyPath;
     @Getter
     @Setter
     private Set<String> includePos = new HashSet<>();
 
     public SemevalReader(String keyPath) {
-        keys = readKeys(keyPath);
+        this.keyPath = keyPath;
     }
 
     @Override
     public List<NlpFocus<DepNode, DepTree>> readInstances(InputStream inputStream) {
-        SemevalCorpus semevalCorpus;
-        try {
-            semevalCorpus = SemevalFactory.readCorpus(inputStream);
-        } catch (JAXBException e) {
-            throw new RuntimeException("Error reading Semeval XML", e);
+        List<NlpFocus<DepNode, DepTree>> instances = new ArrayList<>();
+        try (InstanceIterator iterator = iterator(inputStream)) {
+            iterator.forEachRemaining(instances::add);
+        }
+        return instances;
+    }
+
+    /**
+     * Create an iterator over the instances in a Semeval XML document. The document is read with a streaming (StAX) parser
+     * one sentence at a time, and senses are joined from the keys file through a {@link SemevalKeyLookup streaming lookup},
+     * so memory usage does not depend on the size of the corpus. If {@link #threads()} is greater than 1, sentences are
+     * processed in a pool of worker threads, each using its own {@link #sentenceProcessor() sentence processor}, while
+     * instances are still returned in document order.
+     * <p>
+     * The XML and keys readers are closed once the document has been read, or when an error occurs. The returned iterator
+     * is {@link AutoCloseable}, and should be closed if it is not read to the end.
+     *
+     * @param inputStream Semeval XML input stream
+     * @return iterator over instances, in document order
+     */
+    @Override
+    public Iterator<NlpFocus<DepNode, DepTree>> instanceIterator(InputStream inputStream) {
+        return iterator(inputStream);
+    }
+
+    private InstanceIterator iterator(InputStream inputStream) {
+        SentenceIterator sentences = new SentenceIterator(inputStream);
+        Iterator<ProcessedSentence> processed;
+        if (threads() > 1) {
+            processed = new OrderedParallelIterator<>(sentences, this::processor, threads());
+        } else {
+            processed = Iterators.transform(sentences, processor()::apply);
+        }
+        return new InstanceIterator(sentences, processed);
+    }
+
+    /**
+     * Return the number of threads used to process sentences while reading (1 by default).
+     */
+    protected int threads() {
+        return 1;
+    }
+
+    /**
+     * Return a function used to process sentences, e.g. by parsing them. When processing sentences in multiple threads, this
+     * is called once per thread, and the returned function is only used by that thread. By default, returns
+     * {@link #processSentence(DefaultDepTree)}.
+     */
+    protected Function<DefaultDepTree, DepTree> sentenceProcessor() {
+        return this::processSentence;
+    }
+
+    private Function<InstanceParsePair<DepNode>, ProcessedSentence> processor() {
+        Function<DefaultDepTree, DepTree> processor = sentenceProcessor();
+        return sentence -> new ProcessedSentence(sentence, processor.apply(sentence.getTree()));
+    }
+
+    private List<NlpFocus<DepNode, DepTree>> getInstances(ProcessedSentence processed, int index) {
+        InstanceParsePair<DepNode> instancePair = processed.sentence;
+        DepTree tree = processed.tree;
+        Iterator<DepNode> tokenIterator = instancePair.getTree().tokens().iterator();
+        for (DepNode token : tree) {
+            DepNode original = tokenIterator.next();
+            token.addFeature(FeatureType.GoldLemma, original.feature(FeatureType.GoldLemma));
+            token.addFeature(FeatureType.GoldPos, original.feature(FeatureType.GoldPos));
         }
         List<NlpFocus<DepNode, DepTree>> instances = new ArrayList<>();
-        int sentenceIndex = 0;
-        for (SemevalSentence semevalSentence : semevalCorpus.getAllSentences()) {
-            InstanceParsePair<DepNode> instancePair = addInstances(sentenceIndex, semevalSentence);
-            DepTree tree = processSentence(instancePair.getTree());
-            Iterator<DepNode> tokenIterator = instancePair.getTree().tokens().iterator();
-            for (DepNode token : tree) {
-                DepNode original = tokenIterator.next();
-                token.addFeature(FeatureType.GoldLemma, original.feature(FeatureType.GoldLemma));
-                token.addFeature(FeatureType.GoldPos, original.feature(FeatureType.GoldPos));
-            }
-            for (DepNode token : instancePair.getInstances()) {
-                //noinspection SuspiciousMethodCalls
-                if (includePos.size() > 0 && !includePos.contains(token.feature(FeatureType.GoldPos))) {
-                    continue;
-                }
-                DepNode treeToken = tree.get(token.index());
-                NlpFocus<DepNode, DepTree> instance = new DefaultNlpFocus<>(instances.size(), treeToken, tree);
-                instance.addFeature(FeatureType.Gold, token.feature(FeatureType.Gold));
-                instance.addFeature(FeatureType.AllSenses, token.feature(FeatureType.AllSenses));
-                treeToken.addFeature(FeatureType.Id, token.feature(FeatureType.Id));
-                treeToken.addFeature(FeatureType.Sense, token.feature(FeatureType.Sense));
-                instances.add(instance);
-            }
-            ++sentenceIndex;
-            if (sentenceIndex % 100 == 0) {
-                log.debug("Read {} sentences and {} instances.", sentenceIndex, instances.size());
+        for (DepNode token : instancePair.getInstances()) {
+            //noinspection SuspiciousMethodCalls
+            if (includePos.size() > 0 && !includePos.contains(token.feature(FeatureType.GoldPos))) {
+                continue;
             }
+            DepNode treeToken = tree.get(token.index());
+            NlpFocus<DepNode, DepTree> instance = new DefaultNlpFocus<>(index + instances.size(), treeToken, tree);
+            instance.addFeature(FeatureType.Gold, token.feature(FeatureType.Gold));
+            instance.addFeature(FeatureType.AllSenses, token.feature(FeatureType.AllSenses));
+            treeToken.addFeature(FeatureType.Id, token.feature(FeatureType.Id));
+            treeToken.addFeature(FeatureType.Sense, token.feature(FeatureType.Sense));
+            instances.add(instance);
         }
         return instances;
     }
@@ -118,7 +178,8 @@ public class SemevalReader implements CorpusReader<NlpFocus<DepNode, DepTree>> {
         return dependencyTree;
     }
 
-    private InstanceParsePair<DepNode> addInstances(int sentenceIndex, SemevalSentence semevalSentence) {
+    private InstanceParsePair<DepNode> addInstances(int sentenceIndex, SemevalSentence semevalSentence,
+                                                    SemevalKeyLookup keys) {
         List<DepNode> tokens = new ArrayList<>();
         List<DepNode> newInstances = new ArrayList<>();
         DefaultDepTree sentence = new DefaultDepTree(sentenceIndex, tokens, null);
@@ -139,7 +200,10 @@ public class SemevalReader implements CorpusReader<NlpFocus<DepNode, DepTree>> {
             tokens.add(token);
             if (word instanceof SemevalInstance) {
                 SemevalInstance instance = (SemevalInstance) word;
-                Set<String> senses = keys.get(instance.getId());
+                Set<String> senses = keys.senses(instance.getId());
+                if (senses.isEmpty()) {
+                    throw new RuntimeException("No sense key found for instance " + instance.getId());
+                }
                 String sense = senses.iterator().next();
                 token.addFeature(FeatureType.Gold, sense);
                 token.addFeature(FeatureType.AllSenses, senses);
@@ -163,51 +227,77 @@ public class SemevalReader implements CorpusReader<NlpFocus<DepNode, DepTree>> {
         return new InstanceParsePair<>(newInstances, sentence);
     }
 
+    /**
+     * Write instances as a Semeval XML document, streaming one sentence at a time.
+     *
+     * @param instances    instances, grouped by sentence
+     * @param outputStream output stream
+     */
     @Override
     public void writeInstances(List<NlpFocus<DepNode, DepTree>> instances,
                                OutputStream outputStream) {
-        SemevalCorpus corpus = new SemevalCorpus();
-        PeekingIterator<NlpFocus<DepNode, DepTree>> iterator = Iterators.peekingIterator(instances.iterator());
-        InstanceParsePair<NlpFocus<DepNode, DepTree>> current;
-        while ((current = nextTree(iterator)) != null) {
-            SemevalSentence semevalSentence = new SemevalSentence();
-            DefaultDepTree tree = current.getTree();
-            semevalSentence.setId(tree.feature(FeatureType.Id));
-            List<NlpFocus<DepNode, DepTree>> tokens = current.getInstances();
-            Map<Integer, SemevalInstance> instanceMap = tokens.stream().collect(
-                    Collectors.toMap(focusInstance -> focusInstance.focus().index(),
-                            focusInstance -> {
-                                DepNode focusNode = focusInstance.focus();
-                                SemevalInstance instance = new SemevalInstance(focusNode.feature(FeatureType.Text));
-                                instance.setId(focusNode.feature(FeatureType.Id));
-                                return instance;
-                            }));
-            for (DepNode depNode : tree) {
-                SemevalWordForm instance = instanceMap.get(depNode.index());
-                if (instance == null) {
-                    instance = new SemevalWordForm(depNode.feature(FeatureType.Text));
-                }
-                instance.setLemma(depNode.feature(FeatureType.GoldLemma));
-                instance.setPos(depNode.feature(FeatureType.GoldPos));
-                String dep = depNode.feature(FeatureType.Dep);
-                if (dep != null) {
-                    instance.setPredictedLemma(depNode.feature(FeatureType.Lemma));
-                    instance.setPredictedPos(depNode.feature(FeatureType.Pos));
-                    instance.setDep(dep);
-                    instance.setHead(depNode.isRoot() ? "-1" : Integer.toString(depNode.head().index()));
+        try {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement(CORPUS);
+            PeekingIterator<NlpFocus<DepNode, DepTree>> iterator = Iterators.peekingIterator(instances.iterator());
+            InstanceParsePair<NlpFocus<DepNode, DepTree>> current;
+            int sentences = 0;
+            while ((current = nextTree(iterator)) != null) {
+                writeSentence(current, writer);
+                if (++sentences % 1000 == 0) {
+                    log.debug("Wrote {} sentences", sentences);
                 }
-                semevalSentence.getElements().add(instance);
             }
-            corpus.getElements().add(semevalSentence);
-            if (corpus.getSentences().size() % 1000 == 0) {
-                log.debug("Wrote {} sentences", corpus.getSentences().size());
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+            log.debug("Wrote {} sentences and {} instances.", sentences, instances.size());
+        } catch (XMLStreamException e) {
+            throw new RuntimeException("Error writing Semeval corpus XML", e);
+        }
+    }
+
+    private void writeSentence(InstanceParsePair<NlpFocus<DepNode, DepTree>> sentence, XMLStreamWriter writer)
+            throws XMLStreamException {
+        DefaultDepTree tree = sentence.getTree();
+        Map<Integer, String> instanceIds = new HashMap<>();
+        for (NlpFocus<DepNode, DepTree> focusInstance : sentence.getInstances()) {
+            instanceIds.put(focusInstance.focus().index(), focusInstance.focus().feature(FeatureType.Id));
+        }
+        writer.writeCharacters("\n    ");
+        writer.writeStartElement(SENTENCE);
+        writeAttribute(writer, "id", tree.feature(FeatureType.Id));
+        for (DepNode depNode : tree) {
+            writer.writeCharacters("\n        ");
+            String id = instanceIds.get(depNode.index());
+            writer.writeStartElement(id == null ? WORD_FORM : INSTANCE);
+            writeAttribute(writer, "id", id);
+            writeAttribute(writer, "lemma", depNode.feature(FeatureType.GoldLemma));
+            writeAttribute(writer, "pos", depNode.feature(FeatureType.GoldPos));
+            String dep = depNode.feature(FeatureType.Dep);
+            if (dep != null) {
+                writeAttribute(writer, "slemma", depNode.feature(FeatureType.Lemma));
+                writeAttribute(writer, "spos", depNode.feature(FeatureType.Pos));
+                writeAttribute(writer, "sdep", dep);
+                writeAttribute(writer, "shead", depNode.isRoot() ? "-1" : Integer.toString(depNode.head().index()));
             }
+            String text = depNode.feature(FeatureType.Text);
+            if (text != null) {
+                writer.writeCharacters(text);
+            }
+            writer.writeEndElement();
         }
-        try {
-            SemevalFactory.writeCorpus(corpus, outputStream);
-            log.debug("Wrote {} sentences and {} instances.", corpus.getSentences().size(), instances.size());
-        } catch (JAXBException e) {
-            throw new RuntimeException("Error writing Semeval corpus XML", e);
+        writer.writeCharacters("\n    ");
+        writer.writeEndElement();
+    }
+
+    private static void writeAttribute(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        if (value != null) {
+            writer.writeAttribute(name, value);
         }
     }
 
@@ -232,27 +322,176 @@ public class SemevalReader implements CorpusReader<NlpFocus<DepNode, DepTree>> {
     }
 
     /**
-     * Read Semeval keys file.
-     *
-     * @param path path to keys file
-     * @return map from sense IDs onto senses
+     * Iterator flattening processed sentences into instances. Closing it stops any worker threads and closes the readers.
      */
-    private static SetMultimap<String, String> readKeys(String path) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
-            SetMultimap<String, String> keys = LinkedHashMultimap.create();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.isEmpty()) {
+    private class InstanceIterator implements Iterator<NlpFocus<DepNode, DepTree>>, AutoCloseable {
+
+        private final SentenceIterator source;
+        private final Iterator<ProcessedSentence> sentences;
+        private Iterator<NlpFocus<DepNode, DepTree>> current = Collections.emptyIterator();
+        private int sentenceCount;
+        private int instances;
+
+        InstanceIterator(SentenceIterator source, Iterator<ProcessedSentence> sentences) {
+            this.source = source;
+            this.sentences = sentences;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (!current.hasNext() && sentences.hasNext()) {
+                    List<NlpFocus<DepNode, DepTree>> sentenceInstances = getInstances(sentences.next(), instances);
+                    instances += sentenceInstances.size();
+                    current = sentenceInstances.iterator();
+                    if (++sentenceCount % 100 == 0) {
+                        log.debug("Read {} sentences and {} instances.", sentenceCount, instances);
+                    }
+                }
+                return current.hasNext();
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public NlpFocus<DepNode, DepTree> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void close() {
+            if (sentences instanceof OrderedParallelIterator) {
+                ((OrderedParallelIterator<?, ?>) sentences).close();
+            }
+            source.close();
+            current = Collections.emptyIterator();
+        }
+    }
+
+    /**
+     * Iterator reading one sentence at a time and joining its instances with their sense keys. Its readers are closed at
+     * the end of the document, or as soon as an error occurs.
+     */
+    private class SentenceIterator extends AbstractIterator<InstanceParsePair<DepNode>> implements AutoCloseable {
+
+        private final XMLStreamReader reader;
+        private final SemevalKeyLookup keys;
+        private int sentenceIndex;
+        private volatile boolean closed;
+
+        SentenceIterator(InputStream inputStream) {
+            try {
+                XMLInputFactory factory = XMLInputFactory.newInstance();
+                factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+                reader = factory.createXMLStreamReader(inputStream);
+            } catch (XMLStreamException e) {
+                throw new RuntimeException("Error reading Semeval XML", e);
+            }
+            try {
+                keys = new SemevalKeyLookup(keyPath);
+            } catch (RuntimeException e) {
+                closeReader();
+                throw e;
+            }
+        }
+
+        @Override
+        protected InstanceParsePair<DepNode> computeNext() {
+            if (closed) {
+                return endOfData();
+            }
+            try {
+                SemevalSentence sentence = nextSentence();
+                if (sentence == null) {
+                    close();
+                    return endOfData();
+                }
+                return addInstances(sentenceIndex++, sentence, keys);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                keys.close();
+            } finally {
+                closeReader();
+            }
+        }
+
+        private void closeReader() {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException("Error closing Semeval XML reader", e);
+            }
+        }
+
+        private SemevalSentence nextSentence() {
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && SENTENCE.equals(reader.getLocalName())) {
+                        return readSentence();
+                    }
+                }
+                return null;
+            } catch (XMLStreamException e) {
+                throw new RuntimeException("Error reading Semeval XML", e);
+            }
+        }
+
+        private SemevalSentence readSentence() throws XMLStreamException {
+            SemevalSentence sentence = new SemevalSentence();
+            sentence.setId(reader.getAttributeValue(null, "id"));
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT && SENTENCE.equals(reader.getLocalName())) {
+                    break;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                if (!WORD_FORM.equals(name) && !INSTANCE.equals(name)) {
                     continue;
                 }
-                String[] fields = line.split(" ");
-                for (int i = 1; i < fields.length; ++i) {
-                    keys.put(fields[0], fields[i]);
+                String id = reader.getAttributeValue(null, "id");
+                String lemma = reader.getAttributeValue(null, "lemma");
+                String pos = reader.getAttributeValue(null, "pos");
+                String predictedLemma = reader.getAttributeValue(null, "slemma");
+                String predictedPos = reader.getAttributeValue(null, "spos");
+                String dep = reader.getAttributeValue(null, "sdep");
+                String head = reader.getAttributeValue(null, "shead");
+                String text = reader.getElementText();
+                SemevalWordForm word;
+                if (INSTANCE.equals(name)) {
+                    SemevalInstance instance = new SemevalInstance(text);
+                    instance.setId(id);
+                    word = instance;
+                } else {
+                    word = new SemevalWordForm(text);
                 }
+                word.setLemma(lemma);
+                word.setPos(pos);
+                word.setPredictedLemma(predictedLemma);
+                word.setPredictedPos(predictedPos);
+                word.setDep(dep);
+                word.setHead(head);
+                sentence.getElements().add(word);
             }
-            return keys;
-        } catch (IOException e) {
-            throw new RuntimeException("Error reading sense keys file", e);
+            return sentence;
         }
     }
 
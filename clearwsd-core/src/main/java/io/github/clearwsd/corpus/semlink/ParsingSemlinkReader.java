@@ -17,21 +17,26 @@
 package io.github.clearwsd.corpus.semlink;
 
 
-import io.github.clearwsd.utils.SenseInventory;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import io.github.clearwsd.corpus.CoNllWriter;
 import io.github.clearwsd.corpus.CorpusReader;
 import io.github.clearwsd.corpus.semlink.VerbNetReader.VerbNetInstanceParser;
 import io.github.clearwsd.parser.NlpParser;
@@ -41,6 +46,8 @@ import io.github.clearwsd.type.DefaultNlpFocus;
 import io.github.clearwsd.type.DepNode;
 import io.github.clearwsd.type.DepTree;
 import io.github.clearwsd.type.NlpFocus;
+import io.github.clearwsd.utils.OrderedParallelIterator;
+import io.github.clearwsd.utils.SenseInventory;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -48,26 +55,35 @@ import static io.github.clearwsd.type.FeatureType.Gold;
 import static io.github.clearwsd.type.FeatureType.Lemma;
 import static io.github.clearwsd.type.FeatureType.Metadata;
 import static io.github.clearwsd.type.FeatureType.Predicate;
-import static io.github.clearwsd.type.FeatureType.Text;
 
 /**
  * Corpus reader that reads and parses SemLink-style annotations.
+ * <p>
+ * Annotations are read lazily through {@link #instanceIterator(InputStream, Set)}. When initialized with a parser factory and
+ * more than one thread, sentences are parsed in a pool of worker threads (each with its own {@link NlpParser}) while instances
+ * are still returned in their original order. Repeated sentences are parsed once, through a bounded cache shared by all workers.
  *
  * @author jamesgung
  */
 @Slf4j
 public class ParsingSemlinkReader implements CorpusReader<NlpFocus<DepNode, DepTree>> {
 
-    private NlpParser dependencyParser;
     private NlpTokenizer tokenizer;
+    private Supplier<NlpParser> parserFactory;
+    private int threads = 1;
 
     @Setter
     private boolean writeSemlink = false;
     @Setter
     private boolean cacheTrees = true;
+    /**
+     * Maximum number of parsed sentences cached while reading (least recently used sentences are evicted first).
+     */
+    @Setter
+    private int parseCacheSize = 100000;
 
     public ParsingSemlinkReader(NlpParser dependencyParser, NlpTokenizer tokenizer) {
-        this.dependencyParser = dependencyParser;
+        this.parserFactory = () -> dependencyParser;
         this.tokenizer = tokenizer;
     }
 
@@ -80,86 +96,114 @@ public class ParsingSemlinkReader implements CorpusReader<NlpFocus<DepNode, DepT
         this(dependencyParser, new WhitespaceTokenizer());
     }
 
+    /**
+     * Initialize a {@link ParsingSemlinkReader} that parses in a given number of worker threads. Tokenization is performed
+     * on a single thread.
+     *
+     * @param parserFactory supplier of parsers, called once per worker thread
+     * @param tokenizer     tokenizer
+     * @param threads       number of parser worker threads (if less than 1, the number of available processors)
+     */
+    public ParsingSemlinkReader(Supplier<NlpParser> parserFactory, NlpTokenizer tokenizer, int threads) {
+        this.parserFactory = parserFactory;
+        this.tokenizer = tokenizer;
+        this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
     @Override
     public List<NlpFocus<DepNode, DepTree>> readInstances(InputStream inputStream, Set<String> filter) {
-        Map<String, DepTree> parseCache = new HashMap<>();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            VerbNetInstanceParser parser = new VerbNetInstanceParser();
-            List<NlpFocus<DepNode, DepTree>> results = new ArrayList<>();
-            int index = 0;
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.length() == 0) {
-                    continue;
-                }
-                VerbNetReader.VerbNetInstance instance = parser.parse(line);
-                if (!filter.isEmpty() && !filter.contains(instance.lemma())) {
-                    continue;
-                }
-                if (instance.label().equals(SenseInventory.DEFAULT_SENSE)) {
-                    continue;
-                }
+        List<NlpFocus<DepNode, DepTree>> results = new ArrayList<>();
+        instanceIterator(inputStream, filter).forEachRemaining(results::add);
+        log.debug("Read {} instances with {}.", results.size(), this.getClass().getSimpleName());
+        return results;
+    }
 
-                DepTree depTree;
-                if (cacheTrees) {
-                    depTree = parseCache.computeIfAbsent(instance.originalText(),
-                        k -> dependencyParser.parse(tokenizer.tokenize(instance.originalText())));
-                } else {
-                    depTree = dependencyParser.parse(tokenizer.tokenize(instance.originalText()));
-                }
+    @Override
+    public List<NlpFocus<DepNode, DepTree>> readInstances(InputStream inputStream) {
+        return readInstances(inputStream, Collections.emptySet());
+    }
 
-                DepNode focus = depTree.get(instance.token());
-                if (!instance.lemma().equalsIgnoreCase(focus.feature(Lemma))) {
-                    log.trace("Lemma mismatch ({} vs. {}) between annotation and parser output for instance: {}",
-                        instance.lemma(), focus.feature(Lemma), line);
-                }
+    @Override
+    public Iterator<NlpFocus<DepNode, DepTree>> instanceIterator(InputStream inputStream) {
+        return instanceIterator(inputStream, Collections.emptySet());
+    }
 
+    /**
+     * Create an iterator over parsed instances, in input order, reading annotations lazily from a given input stream.
+     *
+     * @param inputStream input stream over SemLink-style annotations
+     * @param filter      lemmas to include (or all lemmas, if empty)
+     * @return iterator over parsed instances
+     */
+    public Iterator<NlpFocus<DepNode, DepTree>> instanceIterator(InputStream inputStream, Set<String> filter) {
+        Cache<String, DepTree> parseCache = cacheTrees ? CacheBuilder.newBuilder()
+                .maximumSize(parseCacheSize)
+                .concurrencyLevel(threads)
+                .build() : null;
+        Iterator<Annotation> annotations = new AnnotationIterator(inputStream, filter);
+        Iterator<Annotation> parsed;
+        if (threads > 1) {
+            parsed = new OrderedParallelIterator<>(annotations, () -> parser(parserFactory.get(), parseCache), threads);
+        } else {
+            parsed = Iterators.transform(annotations, parser(parserFactory.get(), parseCache)::apply);
+        }
+        return new Iterator<NlpFocus<DepNode, DepTree>>() {
+            private int index = 0;
 
-                focus.addFeature(Gold, instance.label());
-                focus.addFeature(Predicate, instance.lemma());
+            @Override
+            public boolean hasNext() {
+                return parsed.hasNext();
+            }
 
-                NlpFocus<DepNode, DepTree> focusInstance = new DefaultNlpFocus<>(index++, focus, depTree);
-                focusInstance.addFeature(Gold, instance.label());
-                focusInstance.addFeature(Metadata, line);
+            @Override
+            public NlpFocus<DepNode, DepTree> next() {
+                NlpFocus<DepNode, DepTree> focusInstance = focusInstance(index++, parsed.next());
                 if (index % 1000 == 0) {
                     log.debug("VerbNet parsing progress: {} instances", index);
                 }
-                results.add(focusInstance);
+                return focusInstance;
             }
-            log.debug("Read {} instances with {}.", results.size(), this.getClass().getSimpleName());
-            return results;
-        } catch (IOException e) {
-            throw new RuntimeException("Error reading annotations.", e);
-        }
+        };
     }
 
-    @Override
-    public List<NlpFocus<DepNode, DepTree>> readInstances(InputStream inputStream) {
-        return readInstances(inputStream, Collections.emptySet());
+    private Function<Annotation, Annotation> parser(NlpParser parser, Cache<String, DepTree> parseCache) {
+        return annotation -> {
+            if (parseCache == null) {
+                annotation.tree = parser.parse(annotation.tokens);
+                return annotation;
+            }
+            try {
+                annotation.tree = parseCache.get(annotation.instance.originalText(), () -> parser.parse(annotation.tokens));
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error parsing sentence: " + annotation.instance.originalText(), e);
+            }
+            return annotation;
+        };
+    }
+
+    private static NlpFocus<DepNode, DepTree> focusInstance(int index, Annotation annotation) {
+        // trees may be shared by several instances, so features are only added on the consuming thread
+        VerbNetReader.VerbNetInstance instance = annotation.instance;
+        DepTree depTree = annotation.tree;
+        DepNode focus = depTree.get(instance.token());
+        if (!instance.lemma().equalsIgnoreCase(focus.feature(Lemma))) {
+            log.trace("Lemma mismatch ({} vs. {}) between annotation and parser output for instance: {}",
+                instance.lemma(), focus.feature(Lemma), annotation.line);
+        }
+
+        focus.addFeature(Gold, instance.label());
+        focus.addFeature(Predicate, instance.lemma());
+
+        NlpFocus<DepNode, DepTree> focusInstance = new DefaultNlpFocus<>(index, focus, depTree);
+        focusInstance.addFeature(Gold, instance.label());
+        focusInstance.addFeature(Metadata, annotation.line);
+        return focusInstance;
     }
 
     @Override
     public void writeInstances(List<NlpFocus<DepNode, DepTree>> instances, OutputStream outputStream) {
-        if (!writeSemlink) {
-            new VerbNetReader().writeInstances(instances, outputStream);
-        }
-        try (PrintWriter writer = new PrintWriter(outputStream)) {
-            for (NlpFocus<DepNode, DepTree> instance : instances) {
-                String result = instance.feature(Metadata);
-                if (result == null) {
-                    result = String.format("%d %d %d %s %s\t%s",
-                            instance.index(),
-                            instance.index(),
-                            instance.focus().index(),
-                            instance.focus().feature(Predicate),
-                            instance.focus().feature(Gold),
-                            instance.sequence().tokens().stream()
-                                    .map(t -> (String) t.feature(Text))
-                                    .collect(Collectors.joining(" ")));
-                }
-                writer.println(result);
-            }
+        try (SemlinkWriter writer = new SemlinkWriter(new CoNllWriter(outputStream), writeSemlink)) {
+            instances.forEach(writer::write);
         }
     }
 
@@ -175,4 +219,61 @@ public class ParsingSemlinkReader implements CorpusReader<NlpFocus<DepNode, DepT
         return instances;
     }
 
+    /**
+     * Annotation read from a single line, along with its tokens and (once parsed) dependency tree.
+     */
+    private static class Annotation {
+
+        private final VerbNetReader.VerbNetInstance instance;
+        private final String line;
+        private final List<String> tokens;
+        private DepTree tree;
+
+        private Annotation(VerbNetReader.VerbNetInstance instance, String line, List<String> tokens) {
+            this.instance = instance;
+            this.line = line;
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * Iterator reading, filtering and tokenizing annotations one line at a time.
+     */
+    private class AnnotationIterator extends AbstractIterator<Annotation> {
+
+        private final BufferedReader reader;
+        private final Set<String> filter;
+        private final VerbNetInstanceParser parser = new VerbNetInstanceParser();
+
+        private AnnotationIterator(InputStream inputStream, Set<String> filter) {
+            this.reader = new BufferedReader(new InputStreamReader(inputStream));
+            this.filter = filter;
+        }
+
+        @Override
+        protected Annotation computeNext() {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.length() == 0) {
+                        continue;
+                    }
+                    VerbNetReader.VerbNetInstance instance = parser.parse(line);
+                    if (!filter.isEmpty() && !filter.contains(instance.lemma())) {
+                        continue;
+                    }
+                    if (instance.label().equals(SenseInventory.DEFAULT_SENSE)) {
+                        continue;
+                    }
+                    return new Annotation(instance, line, tokenizer.tokenize(instance.originalText()));
+                }
+                reader.close();
+                return endOfData();
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading annotations.", e);
+            }
+        }
+    }
+
 }
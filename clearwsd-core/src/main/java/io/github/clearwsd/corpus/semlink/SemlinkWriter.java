@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.corpus.semlink;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.nio.file.Path;
+
+import io.github.clearwsd.corpus.CoNllWriter;
+import io.github.clearwsd.type.DefaultNlpFocus;
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.NlpFocus;
+
+import static io.github.clearwsd.type.FeatureType.Gold;
+import static io.github.clearwsd.type.FeatureType.Metadata;
+import static io.github.clearwsd.type.FeatureType.Predicate;
+import static io.github.clearwsd.type.FeatureType.Sense;
+import static io.github.clearwsd.type.FeatureType.Text;
+
+/**
+ * Streaming writer of verb sense instances, either as parsed VerbNet-style CoNLL trees preceded by one "#" header line per
+ * instance (read by {@link VerbNetReader}), or as one Semlink-style annotation line per instance (read by
+ * {@link ParsingSemlinkReader}). Instances are written as they are received, so that annotated corpora can be written without
+ * first being collected in memory. Instances of the same tree should be written consecutively.
+ *
+ * @author jamesgung
+ */
+public class SemlinkWriter implements Closeable, Flushable {
+
+    private final CoNllWriter writer;
+    private final boolean semlink;
+
+    private DepTree currentTree;
+    private int index;
+
+    /**
+     * Initialize a writer over a given {@link CoNllWriter}.
+     *
+     * @param writer  CoNLL writer, closed when this writer is closed
+     * @param semlink if true, write one Semlink-style line per instance instead of CoNLL trees
+     */
+    public SemlinkWriter(CoNllWriter writer, boolean semlink) {
+        this.writer = writer;
+        this.semlink = semlink;
+    }
+
+    /**
+     * Open a writer to a file, compressing output with gzip if the file name ends in ".gz".
+     *
+     * @param path    output file path
+     * @param semlink if true, write one Semlink-style line per instance instead of CoNLL trees
+     * @return Semlink writer
+     */
+    public static SemlinkWriter open(Path path, boolean semlink) {
+        return new SemlinkWriter(CoNllWriter.open(path), semlink);
+    }
+
+    /**
+     * Write a single instance.
+     *
+     * @param instance verb sense instance
+     */
+    public void write(NlpFocus<DepNode, DepTree> instance) {
+        index = Math.max(index, instance.index() + 1);
+        if (semlink) {
+            String metadata = instance.feature(Metadata);
+            if (metadata == null) {
+                writeHeader(instance.index(), instance.index(), instance.focus(), instance.focus().feature(Gold));
+                writeText(instance.sequence());
+            } else {
+                writer.write(metadata);
+            }
+            writer.newLine();
+            return;
+        }
+        if (instance.sequence() != currentTree) {
+            writePendingTree();
+            currentTree = instance.sequence();
+        }
+        writer.write("# ");
+        String metadata = instance.feature(Metadata);
+        if (metadata == null) {
+            String label = instance.focus().feature(Gold);
+            writeHeader(instance.index(), instance.sequence().index(), instance.focus(),
+                    label == null ? instance.focus().feature(Sense) : label);
+            String text = instance.sequence().feature(Text);
+            if (text == null) {
+                writeText(instance.sequence());
+            } else {
+                writer.write(text);
+            }
+        } else {
+            writer.write(metadata);
+        }
+        writer.newLine();
+    }
+
+    /**
+     * Write an instance for each token of a given tree with a {@link io.github.clearwsd.type.FeatureType#Predicate}, numbering
+     * instances consecutively across trees (as in {@link ParsingSemlinkReader#getFocusInstances}).
+     *
+     * @param tree annotated dependency tree
+     */
+    public void writeTree(DepTree tree) {
+        for (DepNode depNode : tree) {
+            if (depNode.feature(Predicate) != null) {
+                write(new DefaultNlpFocus<>(index, depNode, tree));
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (currentTree != null) {
+                writer.write(currentTree, Sense.name()).newLine();
+                currentTree = null;
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void writePendingTree() {
+        if (currentTree != null) {
+            writer.write(currentTree, Sense.name()).newLine().newLine();
+        }
+    }
+
+    private void writeHeader(int path, int sentence, DepNode focus, Object label) {
+        writer.write(path).write(' ')
+                .write(sentence).write(' ')
+                .write(focus.index()).write(' ')
+                .write((Object) focus.feature(Predicate)).write(' ')
+                .write(label).tab();
+    }
+
+    private void writeText(DepTree tree) {
+        boolean first = true;
+        for (DepNode token : tree) {
+            if (!first) {
+                writer.write(' ');
+            }
+            first = false;
+            writer.write((Object) token.feature(Text));
+        }
+    }
+
+}
@@ -18,15 +18,15 @@ package io.github.clearwsd.corpus.semlink;
 
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintWriter;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import io.github.clearwsd.corpus.CoNllDepTreeReader;
+import io.github.clearwsd.corpus.CoNllWriter;
 import io.github.clearwsd.corpus.CorpusReader;
 import io.github.clearwsd.type.DefaultNlpFocus;
 import io.github.clearwsd.type.DepNode;
@@ -37,7 +37,6 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
-import static io.github.clearwsd.corpus.CoNllDepTreeReader.treeToString;
 import static io.github.clearwsd.type.FeatureType.Gold;
 import static io.github.clearwsd.type.FeatureType.Lemma;
 import static io.github.clearwsd.type.FeatureType.Metadata;
@@ -56,9 +55,18 @@ public class VerbNetReader implements CorpusReader<NlpFocus<DepNode, DepTree>> {
 
     @Override
     public List<NlpFocus<DepNode, DepTree>> readInstances(InputStream inputStream, Set<String> filter) {
+        return getInstances(depReader.readInstances(inputStream), filter);
+    }
+
+    @Override
+    public List<NlpFocus<DepNode, DepTree>> readInstances(Path path, Set<String> filter) {
+        return getInstances(depReader.readInstances(path), filter);
+    }
+
+    private List<NlpFocus<DepNode, DepTree>> getInstances(List<DepTree> trees, Set<String> filter) {
         List<NlpFocus<DepNode, DepTree>> results = new ArrayList<>();
         int index = 0;
-        for (DepTree tree : depReader.readInstances(inputStream)) {
+        for (DepTree tree : trees) {
             for (DepNode focus : tree.tokens().stream()
                 .filter(t -> t.feature(Gold) != null)
                 .collect(Collectors.toList())) {
@@ -86,35 +94,8 @@ public class VerbNetReader implements CorpusReader<NlpFocus<DepNode, DepTree>> {
 
     @Override
     public void writeInstances(List<NlpFocus<DepNode, DepTree>> instances, OutputStream outputStream) {
-        try (PrintWriter writer = new PrintWriter(outputStream)) {
-            if (instances.size() == 0) {
-                return;
-            }
-            DepTree currentTree = instances.get(0).sequence();
-            for (NlpFocus<DepNode, DepTree> instance : instances) {
-                if (instance.sequence() != currentTree) {
-                    writer.println(treeToString(currentTree, Sense.name()));
-                    writer.println();
-                    currentTree = instance.sequence();
-                }
-                String metadata = instance.feature(Metadata);
-                if (metadata == null) {
-                    writer.println("# " + VerbNetInstanceParser.toString(new VerbNetInstance()
-                        .path(Integer.toString(instance.index()))
-                        .label(Optional.<String>ofNullable(instance.focus().feature(Gold))
-                            .orElse(instance.focus().feature(Sense)))
-                        .sentence(instance.sequence().index())
-                        .token(instance.focus().index())
-                        .lemma(instance.focus().feature(Predicate))
-                        .originalText(Optional.<String>ofNullable(instance.sequence().feature(Text)).orElse(
-                            currentTree.tokens().stream().map(t -> (String) t.feature(Text))
-                                .collect(Collectors.joining(" "))))));
-                } else {
-                    writer.println("# " + metadata);
-                }
-                writer.flush();
-            }
-            writer.println(treeToString(currentTree, Sense.name()));
+        try (SemlinkWriter writer = new SemlinkWriter(new CoNllWriter(outputStream), false)) {
+            instances.forEach(writer::write);
         }
     }
 
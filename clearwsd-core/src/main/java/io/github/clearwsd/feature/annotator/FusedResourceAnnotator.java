@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.annotator;
+
+import com.google.common.base.Preconditions;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.clearwsd.feature.context.NlpContext;
+import io.github.clearwsd.feature.context.NlpContextFactory;
+import io.github.clearwsd.feature.context.SequenceIdentifyContextFactory;
+import io.github.clearwsd.feature.extractor.FeatureExtractor;
+import io.github.clearwsd.feature.resource.FeatureResource;
+import io.github.clearwsd.feature.resource.FeatureResolver;
+import io.github.clearwsd.feature.resource.FeatureResourceManager;
+import io.github.clearwsd.type.NlpInstance;
+import io.github.clearwsd.type.NlpSequence;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * Annotator that applies several resources in a single pass over tokens, as a replacement for an {@link AggregateAnnotator}
+ * of {@link ListAnnotator ListAnnotators} and {@link DepNodeListAnnotator DepNodeListAnnotators}. Lookups are grouped by key
+ * extractor, so each key (e.g. a lowercased form) is computed once per token and shared by every resource using it. Only
+ * tokens returned by the provided context factory are annotated, which should cover the tokens read by feature templates.
+ * <p>
+ * In {@link #lazy() lazy} mode, no annotation is performed up front. Instead, this annotator acts as a {@link FeatureResolver}
+ * for lookup extractors, performing resource lookups the first time a feature is read and memoizing the result on the token.
+ *
+ * @author jamesgung
+ */
+@Accessors(fluent = true)
+public class FusedResourceAnnotator<T extends NlpInstance, S extends NlpSequence<T>> implements Annotator<S>, FeatureResolver {
+
+    private static final long serialVersionUID = 3471598924604498211L;
+
+    private NlpContextFactory<S, T> contextFactory;
+
+    private List<FeatureExtractor<T, String>> keyExtractors = new ArrayList<>();
+    private List<List<String>> keyedResourceKeys = new ArrayList<>();
+    private List<String> tokenResourceKeys = new ArrayList<>();
+
+    @Getter
+    @Setter
+    private boolean lazy;
+
+    private List<List<FeatureResource<String, List<String>>>> keyedResources;
+    private List<FeatureResource<T, List<String>>> tokenResources;
+    private Map<String, Lookup<T>> lookups;
+
+    /**
+     * Initialize a {@link FusedResourceAnnotator} applied to tokens in contexts from the given factory.
+     *
+     * @param contextFactory context factory determining which tokens are annotated
+     */
+    public FusedResourceAnnotator(NlpContextFactory<S, T> contextFactory) {
+        this.contextFactory = contextFactory;
+    }
+
+    /**
+     * Initialize a {@link FusedResourceAnnotator} applied to every token in a sequence.
+     */
+    public FusedResourceAnnotator() {
+        this(new SequenceIdentifyContextFactory<>());
+    }
+
+    /**
+     * Add a resource looked up using a string key, equivalent to a {@link ListAnnotator}.
+     *
+     * @param resourceKey  resource key
+     * @param keyExtractor extractor applied to tokens to produce lookup keys, shared by resources with the same extractor ID
+     * @return this annotator
+     */
+    public FusedResourceAnnotator<T, S> addLookup(String resourceKey, FeatureExtractor<T, String> keyExtractor) {
+        for (int i = 0; i < keyExtractors.size(); ++i) {
+            if (keyExtractors.get(i).id().equals(keyExtractor.id())) {
+                keyedResourceKeys.get(i).add(resourceKey);
+                return this;
+            }
+        }
+        keyExtractors.add(keyExtractor);
+        List<String> resourceKeys = new ArrayList<>();
+        resourceKeys.add(resourceKey);
+        keyedResourceKeys.add(resourceKeys);
+        return this;
+    }
+
+    /**
+     * Add a resource looked up using the token itself, equivalent to a {@link DepNodeListAnnotator}.
+     *
+     * @param resourceKey resource key
+     * @return this annotator
+     */
+    public FusedResourceAnnotator<T, S> addLookup(String resourceKey) {
+        tokenResourceKeys.add(resourceKey);
+        return this;
+    }
+
+    @Override
+    public S annotate(S instance) {
+        if (lazy) {
+            return instance;
+        }
+        Preconditions.checkState(initialized(), "Annotator is not initialized.");
+        for (NlpContext<T> context : contextFactory.apply(instance)) {
+            for (T token : context.tokens()) {
+                annotateToken(token);
+            }
+        }
+        return instance;
+    }
+
+    private void annotateToken(T token) {
+        for (int i = 0; i < keyExtractors.size(); ++i) {
+            String key = keyExtractors.get(i).extract(token);
+            List<String> resourceKeys = keyedResourceKeys.get(i);
+            List<FeatureResource<String, List<String>>> resources = keyedResources.get(i);
+            for (int j = 0; j < resources.size(); ++j) {
+                token.addFeature(resourceKeys.get(j), resources.get(j).lookup(key));
+            }
+        }
+        for (int i = 0; i < tokenResources.size(); ++i) {
+            token.addFeature(tokenResourceKeys.get(i), tokenResources.get(i).lookup(token));
+        }
+    }
+
+    @Override
+    public <V> V resolve(NlpInstance instance, String key) {
+        Preconditions.checkState(initialized(), "Annotator is not initialized.");
+        V feature = instance.feature(key);
+        if (feature == null) {
+            Lookup<T> lookup = lookups.get(key);
+            if (lookup != null) {
+                //noinspection unchecked
+                feature = (V) lookup.apply((T) instance);
+                instance.addFeature(key, feature);
+            }
+        }
+        return feature;
+    }
+
+    @Override
+    public boolean initialized() {
+        return keyedResources != null && tokenResources != null && lookups != null;
+    }
+
+    @Override
+    public void initialize(FeatureResourceManager featureResourceManager) {
+        Map<String, Lookup<T>> lookups = new HashMap<>();
+        List<List<FeatureResource<String, List<String>>>> keyed = new ArrayList<>();
+        for (int i = 0; i < keyExtractors.size(); ++i) {
+            List<FeatureResource<String, List<String>>> resources = new ArrayList<>();
+            for (String resourceKey : keyedResourceKeys.get(i)) {
+                FeatureResource<String, List<String>> resource = featureResourceManager.getResource(resourceKey);
+                resources.add(resource);
+                lookups.put(resourceKey, new Lookup<>(keyExtractors.get(i), resource, null));
+            }
+            keyed.add(resources);
+        }
+        List<FeatureResource<T, List<String>>> token = new ArrayList<>();
+        for (String resourceKey : tokenResourceKeys) {
+            FeatureResource<T, List<String>> resource = featureResourceManager.getResource(resourceKey);
+            token.add(resource);
+            lookups.put(resourceKey, new Lookup<>(null, null, resource));
+        }
+        this.keyedResources = keyed;
+        this.tokenResources = token;
+        this.lookups = lookups;
+    }
+
+    private static class Lookup<T> implements Serializable {
+
+        private static final long serialVersionUID = -2958112043571254120L;
+
+        private final FeatureExtractor<T, String> keyExtractor;
+        private final FeatureResource<String, List<String>> keyedResource;
+        private final FeatureResource<T, List<String>> tokenResource;
+
+        private Lookup(FeatureExtractor<T, String> keyExtractor,
+                       FeatureResource<String, List<String>> keyedResource,
+                       FeatureResource<T, List<String>> tokenResource) {
+            this.keyExtractor = keyExtractor;
+            this.keyedResource = keyedResource;
+            this.tokenResource = tokenResource;
+        }
+
+        private List<String> apply(T token) {
+            if (keyExtractor != null) {
+                return keyedResource.lookup(keyExtractor.extract(token));
+            }
+            return tokenResource.lookup(token);
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.context;
+
+import java.util.Collections;
+import java.util.List;
+
+import io.github.clearwsd.type.NlpInstance;
+
+/**
+ * Receives contexts produced by a {@link SinkContextFactory}, avoiding intermediate {@link NlpContext} lists.
+ *
+ * @param <T> context token type
+ * @author jamesgung
+ */
+@FunctionalInterface
+public interface ContextSink<T extends NlpInstance> {
+
+    /**
+     * Accept a context consisting of a list of tokens.
+     *
+     * @param identifier context identifier
+     * @param tokens     context tokens
+     */
+    void accept(String identifier, List<T> tokens);
+
+    /**
+     * Accept a context consisting of a single token. Sinks should override this to avoid wrapping the token in a list.
+     *
+     * @param identifier context identifier
+     * @param token      context token
+     */
+    default void accept(String identifier, T token) {
+        accept(identifier, Collections.singletonList(token));
+    }
+
+}
@@ -16,8 +16,6 @@
 
 package io.github.clearwsd.feature.context;
 
-import com.google.common.collect.Lists;
-
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -95,6 +93,7 @@ public class DepChildPathContextFactory extends DepContextFactory {
     public List<NlpContext<DepNode>> apply(NlpFocus<DepNode, DepTree> instance) {
         List<NlpContext<DepNode>> results = new ArrayList<>();
 
+        DepTreeIndex index = DepTreeIndex.of(instance.sequence());
         Stack<Node> stack = new Stack<>();
         stack.push(Node.of(trieNode, instance.focus()));
 
@@ -109,9 +108,12 @@ public class DepChildPathContextFactory extends DepContextFactory {
                 results.add(new NlpContext<>(name, node.token));
                 continue;
             }
-            for (DepNode child : Lists.reverse(node.token.children())) {
-                if (node.node.children.containsKey(child.dep())) {
-                    stack.push(Node.of(node.node.children.get(child.dep()), child));
+            List<DepNode> children = index.children(node.token.index());
+            for (int i = children.size() - 1; i >= 0; --i) {
+                DepNode child = children.get(i);
+                TrieNode next = node.node.children.get(index.dep(child.index()));
+                if (next != null) {
+                    stack.push(Node.of(next, child));
                 }
             }
         }
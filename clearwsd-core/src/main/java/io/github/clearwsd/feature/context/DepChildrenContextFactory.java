@@ -16,16 +16,17 @@
 
 package io.github.clearwsd.feature.context;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import io.github.clearwsd.type.DepNode;
 import io.github.clearwsd.type.DepTree;
 import io.github.clearwsd.type.NlpFocus;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
@@ -39,7 +40,8 @@ import lombok.experimental.Accessors;
 @Setter
 @Getter
 @Accessors(fluent = true)
-public class DepChildrenContextFactory extends DepContextFactory {
+public class DepChildrenContextFactory extends DepContextFactory
+        implements SinkContextFactory<NlpFocus<DepNode, DepTree>, DepNode> {
 
     private static final long serialVersionUID = 8128479595556229276L;
 
@@ -50,6 +52,14 @@ public class DepChildrenContextFactory extends DepContextFactory {
     private int level;
     private boolean includeRel = false;
 
+    // context identifiers, computed on first use
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient String levelKey;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Map<String, String> relKeys;
+
     /**
      * Initialize a {@link DepChildrenContextFactory} with child dependency label exclusions and inclusions.
      *
@@ -79,34 +89,67 @@ public class DepChildrenContextFactory extends DepContextFactory {
         this(new HashSet<>(), new HashSet<>(), 0);
     }
 
+    /**
+     * Set the level in the dependency tree at which to extract contexts.
+     *
+     * @param level level (0 for children, 1 for children's children, etc.)
+     * @return this context factory
+     */
+    public DepChildrenContextFactory level(int level) {
+        this.level = level;
+        this.levelKey = null;
+        this.relKeys = null;
+        return this;
+    }
+
+    /**
+     * Set whether to include the dependency relation of each child in its context identifier.
+     *
+     * @param includeRel true to include dependency relations in identifiers
+     * @return this context factory
+     */
+    public DepChildrenContextFactory includeRel(boolean includeRel) {
+        this.includeRel = includeRel;
+        return this;
+    }
+
     @Override
-    public List<NlpContext<DepNode>> apply(NlpFocus<DepNode, DepTree> instance) {
-        List<NlpContext<DepNode>> results = new ArrayList<>();
-        for (DepNode child : instance.focus().children().stream()
-                .filter(c -> include.size() == 0 || include.contains(c.dep()))
-                .filter(c -> exclude.size() == 0 || !exclude.contains(c.dep()))
-                .collect(Collectors.toList())) {
-            String key = includeRel ? String.format("%s:%s[%d]", KEY, child.dep(), level) : String.format("%s[%d]", KEY, level);
+    public void apply(NlpFocus<DepNode, DepTree> instance, ContextSink<DepNode> sink) {
+        DepTreeIndex index = DepTreeIndex.of(instance.sequence());
+        for (DepNode child : index.children(instance.focus().index())) {
+            String dep = index.dep(child.index());
+            if ((include.size() > 0 && !include.contains(dep)) || (exclude.size() > 0 && exclude.contains(dep))) {
+                continue;
+            }
+            String key = key(dep);
             if (level == 0) {
-                results.add(new NlpContext<>(key, child));
+                sink.accept(key, child);
             } else {
-                getChildrenAtDepth(child, level - 1).stream()
-                        .map(c -> new NlpContext<>(key, c))
-                        .forEach(results::add);
+                for (DepNode descendant : index.descendants(child.index(), level - 1)) {
+                    sink.accept(key, descendant);
+                }
             }
         }
-        return results;
     }
 
-    private List<DepNode> getChildrenAtDepth(DepNode parent, int depth) {
-        if (depth <= 0) {
-            return parent.children();
+    private String key(String dep) {
+        if (!includeRel) {
+            String key = levelKey;
+            if (key == null) {
+                key = String.format("%s[%d]", KEY, level);
+                levelKey = key;
+            }
+            return key;
+        }
+        if (dep == null) {
+            return String.format("%s:%s[%d]", KEY, null, level);
         }
-        List<DepNode> results = new ArrayList<>();
-        for (DepNode child : parent.children()) {
-            results.addAll(getChildrenAtDepth(child, depth - 1));
+        Map<String, String> keys = relKeys;
+        if (keys == null) {
+            keys = new ConcurrentHashMap<>();
+            relKeys = keys;
         }
-        return results;
+        return keys.computeIfAbsent(dep, d -> String.format("%s:%s[%d]", KEY, d, level));
     }
 
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Structural index over a {@link DepTree}, giving children (in token order and grouped by relation), depths, and paths to the
+ * root for every token. Indices of the few most recently used trees are kept per thread (matched by tree identity), so that an
+ * index is shared by all context factories and all focus tokens in the same sentence without being stored on the tree itself.
+ * Returned lists are shared and must not be modified.
+ * <p>
+ * The index reflects the tree structure at the time it is computed, so trees should not be re-attached afterwards.
+ *
+ * @author jamesgung
+ */
+@Slf4j
+public class DepTreeIndex {
+
+    private static final int RECENT_TREES = 4;
+    private static final ThreadLocal<DepTreeIndex[]> RECENT = ThreadLocal.withInitial(() -> new DepTreeIndex[RECENT_TREES]);
+
+    private final DepTree tree;
+    private final String[] deps;
+    private final int[] depths;
+    private final List<List<DepNode>> children;
+    private final List<Map<String, List<DepNode>>> childrenByRel;
+    private final List<List<DepNode>> paths;
+
+    private DepTreeIndex(DepTree tree) {
+        this.tree = tree;
+        int size = tree.size();
+        deps = new String[size];
+        depths = new int[size];
+        children = new ArrayList<>(size);
+        childrenByRel = new ArrayList<>(size);
+        paths = new ArrayList<>(size);
+        for (DepNode node : tree) {
+            deps[node.index()] = node.dep();
+        }
+        for (DepNode node : tree) {
+            List<DepNode> nodeChildren = node.children();
+            Map<String, List<DepNode>> byRel = Collections.emptyMap();
+            if (!nodeChildren.isEmpty()) {
+                nodeChildren = new ArrayList<>(nodeChildren);
+                byRel = new HashMap<>();
+                for (DepNode child : nodeChildren) {
+                    byRel.computeIfAbsent(deps[child.index()], k -> new ArrayList<>(1)).add(child);
+                }
+            } else {
+                nodeChildren = Collections.emptyList();
+            }
+            children.add(nodeChildren);
+            childrenByRel.add(byRel);
+
+            List<DepNode> path = rootPath(node, size);
+            paths.add(path);
+            depths[node.index()] = path.size() - 1;
+        }
+    }
+
+    /**
+     * Return the index of a given tree, reusing the index computed for the same tree by a recent call on this thread.
+     *
+     * @param tree dependency tree
+     * @return dependency tree index
+     */
+    public static DepTreeIndex of(DepTree tree) {
+        DepTreeIndex[] recent = RECENT.get();
+        for (DepTreeIndex index : recent) {
+            if (index != null && index.tree == tree) {
+                return index;
+            }
+        }
+        DepTreeIndex index = new DepTreeIndex(tree);
+        System.arraycopy(recent, 0, recent, 1, recent.length - 1);
+        recent[0] = index;
+        return index;
+    }
+
+    /**
+     * Return the dependency relation of a given token.
+     *
+     * @param index token index
+     */
+    public String dep(int index) {
+        return deps[index];
+    }
+
+    /**
+     * Return the depth of a given token (0 for the root).
+     *
+     * @param index token index
+     */
+    public int depth(int index) {
+        return depths[index];
+    }
+
+    /**
+     * Return the children of a given token, in token order.
+     *
+     * @param index token index
+     */
+    public List<DepNode> children(int index) {
+        return children.get(index);
+    }
+
+    /**
+     * Return the children of a given token with a given dependency relation, in token order.
+     *
+     * @param index token index
+     * @param rel   dependency relation
+     */
+    public List<DepNode> children(int index, String rel) {
+        return childrenByRel.get(index).getOrDefault(rel, Collections.emptyList());
+    }
+
+    /**
+     * Return the descendants of a given token at a given depth below it (0 for children, 1 for grandchildren, etc.).
+     *
+     * @param index token index
+     * @param depth depth below the token
+     */
+    public List<DepNode> descendants(int index, int depth) {
+        if (depth <= 0) {
+            return children(index);
+        }
+        List<DepNode> results = new ArrayList<>();
+        for (DepNode child : children(index)) {
+            results.addAll(descendants(child.index(), depth - 1));
+        }
+        return results;
+    }
+
+    /**
+     * Return the path from a given token to the root, starting with the token itself and ending with the root.
+     *
+     * @param index token index
+     */
+    public List<DepNode> rootPath(int index) {
+        return paths.get(index);
+    }
+
+    /**
+     * Return the ancestors of a given token, from its head to the root.
+     *
+     * @param index token index
+     */
+    public List<DepNode> ancestors(int index) {
+        List<DepNode> path = paths.get(index);
+        return path.subList(1, path.size());
+    }
+
+    private static List<DepNode> rootPath(DepNode node, int size) {
+        List<DepNode> path = new ArrayList<>();
+        boolean[] visited = new boolean[size];
+        path.add(node);
+        visited[node.index()] = true;
+        while (!node.isRoot()) {
+            DepNode head = node.head();
+            if (visited[head.index()]) {
+                log.warn("Cycle in dependency tree: {}", node.toString());
+                break;
+            }
+            path.add(head);
+            visited[head.index()] = true;
+            node = head;
+        }
+        return Collections.unmodifiableList(path);
+    }
+
+}
@@ -18,7 +18,6 @@ package io.github.clearwsd.feature.context;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,7 +31,7 @@ import io.github.clearwsd.type.NlpSequence;
  *
  * @author jamesgung
  */
-public class OffsetContextFactory<T extends NlpInstance, S extends NlpSequence<T>> implements NlpContextFactory<NlpFocus<T, S>, T> {
+public class OffsetContextFactory<T extends NlpInstance, S extends NlpSequence<T>> implements SinkContextFactory<NlpFocus<T, S>, T> {
 
     public static final String KEY = "COL";
 
@@ -41,6 +40,7 @@ public class OffsetContextFactory<T extends NlpInstance, S extends NlpSequence<T
     private List<Integer> offsets;
     private boolean concatenate;
     private String id;
+    private transient String[] offsetIds;
 
     public OffsetContextFactory(List<Integer> offsets, boolean concatenate) {
         this.offsets = offsets;
@@ -63,34 +63,42 @@ public class OffsetContextFactory<T extends NlpInstance, S extends NlpSequence<T
     }
 
     @Override
-    public List<NlpContext<T>> apply(NlpFocus<T, S> instance) {
+    public void apply(NlpFocus<T, S> instance, ContextSink<T> sink) {
+        int focus = instance.focus().index();
+        S sequence = instance.sequence();
         if (concatenate) {
-            return applyConcatenate(instance);
+            List<T> results = new ArrayList<>();
+            for (Integer offset : offsets) {
+                int containerIndex = focus + offset;
+                if (containerIndex < 0 || containerIndex >= sequence.size()) {
+                    continue;
+                }
+                results.add(sequence.get(containerIndex));
+            }
+            sink.accept(id, results);
+            return;
         }
-        return applySeparate(instance);
-    }
-
-    private List<NlpContext<T>> applySeparate(NlpFocus<T, S> instance) {
-        List<NlpContext<T>> results = new ArrayList<>();
-        for (Integer offset : offsets) {
-            int containerIndex = instance.focus().index() + offset;
-            if (containerIndex < 0 || containerIndex >= instance.sequence().size()) {
+        String[] offsetIds = offsetIds();
+        for (int i = 0; i < offsetIds.length; ++i) {
+            int containerIndex = focus + offsets.get(i);
+            if (containerIndex < 0 || containerIndex >= sequence.size()) {
                 continue;
             }
-            results.add(new NlpContext<>(String.format("%s[%s]", KEY, offset), instance.sequence().get(containerIndex)));
+            sink.accept(offsetIds[i], sequence.get(containerIndex));
         }
-        return results;
     }
 
-    private List<NlpContext<T>> applyConcatenate(NlpFocus<T, S> instance) {
-        List<T> results = new ArrayList<>();
-        for (Integer offset : offsets) {
-            int containerIndex = instance.focus().index() + offset;
-            if (containerIndex < 0 || containerIndex >= instance.sequence().size()) {
-                continue;
+    private String[] offsetIds() {
+        // computed lazily, as this field is absent from previously serialized factories
+        String[] offsetIds = this.offsetIds;
+        if (offsetIds == null) {
+            offsetIds = new String[offsets.size()];
+            for (int i = 0; i < offsetIds.length; ++i) {
+                offsetIds[i] = String.format("%s[%s]", KEY, offsets.get(i));
             }
-            results.add(instance.sequence().get(containerIndex));
+            this.offsetIds = offsetIds;
         }
-        return Collections.singletonList(new NlpContext<>(id, results));
+        return offsetIds;
     }
+
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.context;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.clearwsd.type.NlpInstance;
+
+/**
+ * {@link NlpContextFactory} that writes contexts to a caller-provided {@link ContextSink}, so that consumers such as feature
+ * functions can process contexts as they are produced, without allocating lists of {@link NlpContext}.
+ *
+ * @param <InputT>  input type
+ * @param <OutputT> output type used as input to a feature extractor
+ * @author jamesgung
+ */
+public interface SinkContextFactory<InputT, OutputT extends NlpInstance> extends NlpContextFactory<InputT, OutputT> {
+
+    /**
+     * Create contexts given an input instance, passing each to a given sink in order.
+     *
+     * @param instance input instance
+     * @param sink     context sink
+     */
+    void apply(InputT instance, ContextSink<OutputT> sink);
+
+    @Override
+    default List<NlpContext<OutputT>> apply(InputT instance) {
+        List<NlpContext<OutputT>> results = new ArrayList<>();
+        apply(instance, (identifier, tokens) -> results.add(new NlpContext<>(identifier, tokens)));
+        return results;
+    }
+
+}
@@ -21,19 +21,26 @@ import java.util.Collections;
 import java.util.List;
 
 import io.github.clearwsd.type.NlpInstance;
+import io.github.clearwsd.feature.resource.FeatureResolver;
 import io.github.clearwsd.feature.util.FeatureUtils;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 
 /**
  * Feature extractor that looks up the values corresponding to an associated key or keys.
+ * If a {@link FeatureResolver} is provided, features missing from an instance are resolved on demand through it.
  *
  * @author jamesgung
  */
+@Accessors(fluent = true)
 public class ListLookupFeatureExtractor<T extends NlpInstance> implements StringListExtractor<T> {
 
     private static final long serialVersionUID = -5294861373939396232L;
 
     private List<String> keys;
     private String id;
+    @Setter
+    private FeatureResolver resolver;
 
     public ListLookupFeatureExtractor(List<String> keys) {
         this.keys = keys;
@@ -53,7 +60,7 @@ public class ListLookupFeatureExtractor<T extends NlpInstance> implements String
     public List<String> extract(T instance) {
         List<String> results = new ArrayList<>();
         for (String key : keys) {
-            List<String> feature = instance.feature(key);
+            List<String> feature = resolver == null ? instance.feature(key) : resolver.resolve(instance, key);
             if (feature != null) {
                 results.addAll(feature);
             }
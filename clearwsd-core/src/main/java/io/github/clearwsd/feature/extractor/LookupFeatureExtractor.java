@@ -20,13 +20,18 @@ import java.util.Collections;
 import java.util.List;
 
 import io.github.clearwsd.type.NlpInstance;
+import io.github.clearwsd.feature.resource.FeatureResolver;
 import io.github.clearwsd.feature.util.FeatureUtils;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 
 /**
  * Feature extractor that looks up an associated key or keys, optionally falling back to another extractor if nothing is found.
+ * If a {@link FeatureResolver} is provided, features missing from an instance are resolved on demand through it.
  *
  * @author jamesgung
  */
+@Accessors(fluent = true)
 public class LookupFeatureExtractor<T extends NlpInstance> implements StringExtractor<T> {
 
     private static final String DEFAULT_VALUE = "<NONE>";
@@ -35,6 +40,8 @@ public class LookupFeatureExtractor<T extends NlpInstance> implements StringExtr
     private List<String> keys;
     private FeatureExtractor<T, String> fallbackExtractor;
     private String id;
+    @Setter
+    private FeatureResolver resolver;
 
     public LookupFeatureExtractor(List<String> keys, FeatureExtractor<T, String> fallbackExtractor) {
         this.keys = keys;
@@ -58,7 +65,7 @@ public class LookupFeatureExtractor<T extends NlpInstance> implements StringExtr
     @Override
     public String extract(T instance) {
         for (String key : keys) {
-            String feature = instance.feature(key);
+            String feature = resolver == null ? instance.feature(key) : resolver.resolve(instance, key);
             if (feature != null) {
                 return feature;
             }
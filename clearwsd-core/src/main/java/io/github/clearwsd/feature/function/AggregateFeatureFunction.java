@@ -43,6 +43,10 @@ public class AggregateFeatureFunction<InputT extends NlpInstance> implements Fea
         return this;
     }
 
+    List<FeatureFunction<InputT>> functions() {
+        return functions;
+    }
+
     @Override
     public List<StringFeature> apply(InputT input) {
         return functions.stream()
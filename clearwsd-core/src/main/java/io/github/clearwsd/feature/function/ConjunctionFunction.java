@@ -22,14 +22,18 @@ import java.util.List;
 import io.github.clearwsd.type.NlpInstance;
 import io.github.clearwsd.feature.StringFeature;
 import io.github.clearwsd.feature.util.FeatureUtils;
-import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 
 /**
- * Conjoin the results of two feature functions.
+ * Conjoin the results of two feature functions. In {@link #hashed() hashed} mode, conjunctions are identified by combining the
+ * hashes of their components (see {@link FeatureUtils#combine(long, long)}) when applied to a {@link FeatureSink}, so that
+ * each pair costs a few integer operations instead of building new ID and value strings.
  *
  * @author jamesgung
  */
-@AllArgsConstructor
+@Accessors(fluent = true)
 public class ConjunctionFunction<InputT extends NlpInstance> implements FeatureFunction<InputT> {
 
     private static final long serialVersionUID = 218606640626375039L;
@@ -37,11 +41,30 @@ public class ConjunctionFunction<InputT extends NlpInstance> implements FeatureF
     private FeatureFunction<InputT> first;
     private FeatureFunction<InputT> second;
 
+    @Getter
+    @Setter
+    private boolean hashed;
+
+    public ConjunctionFunction(FeatureFunction<InputT> first, FeatureFunction<InputT> second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    FeatureFunction<InputT> first() {
+        return first;
+    }
+
+    FeatureFunction<InputT> second() {
+        return second;
+    }
+
     @Override
     public List<StringFeature> apply(InputT input) {
         List<StringFeature> results = new ArrayList<>();
-        for (StringFeature first : first.apply(input)) {
-            for (StringFeature second : second.apply(input)) {
+        List<StringFeature> firstFeatures = first.apply(input);
+        List<StringFeature> secondFeatures = second == first ? firstFeatures : second.apply(input);
+        for (StringFeature first : firstFeatures) {
+            for (StringFeature second : secondFeatures) {
                 if (first.equals(second)) {
                     continue;
                 }
@@ -52,4 +75,29 @@ public class ConjunctionFunction<InputT extends NlpInstance> implements FeatureF
         return results;
     }
 
+    @Override
+    public void apply(InputT input, FeatureSink sink) {
+        if (!hashed) {
+            FeatureFunction.super.apply(input, sink);
+            return;
+        }
+        List<StringFeature> firstFeatures = first.apply(input);
+        List<StringFeature> secondFeatures = second == first ? firstFeatures : second.apply(input);
+        long[] secondHashes = new long[secondFeatures.size()];
+        for (int i = 0; i < secondHashes.length; ++i) {
+            secondHashes[i] = FeatureUtils.hash(secondFeatures.get(i).id(), secondFeatures.get(i).value());
+        }
+        for (StringFeature first : firstFeatures) {
+            long firstHash = FeatureUtils.hash(first.id(), first.value());
+            for (int i = 0; i < secondHashes.length; ++i) {
+                StringFeature second = secondFeatures.get(i);
+                if (firstHash == secondHashes[i] && first.equals(second)) {
+                    continue;
+                }
+                sink.acceptHashed(first.id() + FeatureUtils.CONCAT_DELIM + second.id(),
+                        FeatureUtils.combine(firstHash, secondHashes[i]));
+            }
+        }
+    }
+
 }
@@ -38,4 +38,16 @@ public interface FeatureFunction<InputT extends NlpInstance> extends Serializabl
      */
     List<StringFeature> apply(InputT input);
 
+    /**
+     * Given an NLP instance type, pass each resulting categorical feature to a given sink.
+     *
+     * @param input input NLP instance
+     * @param sink  feature sink
+     */
+    default void apply(InputT input, FeatureSink sink) {
+        for (StringFeature feature : apply(input)) {
+            sink.accept(feature.id(), feature.value());
+        }
+    }
+
 }
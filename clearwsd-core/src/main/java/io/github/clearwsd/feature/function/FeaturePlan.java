@@ -0,0 +1,399 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.function;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.clearwsd.feature.StringFeature;
+import io.github.clearwsd.feature.context.NlpContext;
+import io.github.clearwsd.feature.context.NlpContextFactory;
+import io.github.clearwsd.feature.extractor.FeatureExtractor;
+import io.github.clearwsd.feature.util.FeatureUtils;
+import io.github.clearwsd.type.NlpInstance;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Flat execution plan compiled from a tree of {@link FeatureFunction FeatureFunctions}. Aggregates are flattened, and context
+ * factories, extractors and conjunction operands shared between functions are identified (by identity), so that for each
+ * input, every context is computed once, every extractor is applied at most once per token, and conjunctions are formed from
+ * already-computed operand features. Features are passed directly to a {@link FeatureSink}, without intermediate
+ * {@link StringFeature} lists.
+ * <p>
+ * Produces the same features as applying the original function. Functions other than {@link AggregateFeatureFunction},
+ * {@link StringFeatureFunction}, {@link MultiStringFeatureFunction} and {@link ConjunctionFunction} are applied as-is.
+ *
+ * @param <I> input type
+ * @author jamesgung
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+public class FeaturePlan<I extends NlpInstance> {
+
+    private static final Object NULL = new Object();
+
+    private final List<NlpContextFactory<I, NlpInstance>> contextFactories = new ArrayList<>();
+    private final List<FeatureExtractor<NlpInstance, ?>> extractors = new ArrayList<>();
+    private final Map<FeatureFunction<I>, Step> compiled = new IdentityHashMap<>();
+    private final Map<Step, Operand> operands = new IdentityHashMap<>();
+    private final List<Step> steps = new ArrayList<>();
+
+    private FeaturePlan() {
+    }
+
+    /**
+     * Compile a feature function into a flat execution plan.
+     *
+     * @param function feature function
+     * @param <I>      input type
+     * @return compiled plan
+     */
+    public static <I extends NlpInstance> FeaturePlan<I> compile(FeatureFunction<I> function) {
+        FeaturePlan<I> plan = new FeaturePlan<>();
+        plan.flatten(function);
+        return plan;
+    }
+
+    /**
+     * Apply this plan to a given input, passing each resulting feature to a sink.
+     *
+     * @param input input instance
+     * @param sink  feature sink
+     */
+    public void apply(I input, FeatureSink sink) {
+        Evaluation evaluation = new Evaluation(input);
+        for (Step step : steps) {
+            step.apply(evaluation, sink);
+        }
+    }
+
+    /**
+     * Apply this plan to a given input, returning the resulting features.
+     *
+     * @param input input instance
+     * @return list of string features
+     */
+    public List<StringFeature> apply(I input) {
+        List<StringFeature> results = new ArrayList<>();
+        apply(input, (id, value) -> results.add(new StringFeature(id, value)));
+        return results;
+    }
+
+    private void flatten(FeatureFunction<I> function) {
+        if (function instanceof AggregateFeatureFunction) {
+            for (FeatureFunction<I> child : ((AggregateFeatureFunction<I>) function).functions()) {
+                flatten(child);
+            }
+            return;
+        }
+        steps.add(step(function));
+    }
+
+    private Step step(FeatureFunction<I> function) {
+        Step step = compiled.get(function);
+        if (step != null) {
+            return step;
+        }
+        if (function instanceof AggregateFeatureFunction) {
+            List<Step> children = new ArrayList<>();
+            for (FeatureFunction<I> child : ((AggregateFeatureFunction<I>) function).functions()) {
+                children.add(step(child));
+            }
+            step = new Step() {
+                @Override
+                void apply(Evaluation evaluation, FeatureSink sink) {
+                    for (Step child : children) {
+                        child.apply(evaluation, sink);
+                    }
+                }
+            };
+        } else if (function instanceof StringFeatureFunction) {
+            StringFeatureFunction<I, NlpInstance> stringFunction = (StringFeatureFunction<I, NlpInstance>) function;
+            step = new ExtractorStep(contextSlot(stringFunction.contextFactory()),
+                    extractorSlots(stringFunction.featureExtractors()), false);
+        } else if (function instanceof MultiStringFeatureFunction) {
+            MultiStringFeatureFunction<I, NlpInstance> listFunction = (MultiStringFeatureFunction<I, NlpInstance>) function;
+            step = new ExtractorStep(contextSlot(listFunction.contextFactory()),
+                    extractorSlots(listFunction.featureExtractors()), true);
+        } else if (function instanceof ConjunctionFunction) {
+            ConjunctionFunction<I> conjunction = (ConjunctionFunction<I>) function;
+            step = new ConjunctionStep(operand(conjunction.first()), operand(conjunction.second()), conjunction.hashed());
+        } else {
+            step = new Step() {
+                @Override
+                void apply(Evaluation evaluation, FeatureSink sink) {
+                    function.apply(evaluation.input, sink);
+                }
+            };
+        }
+        compiled.put(function, step);
+        return step;
+    }
+
+    private Operand operand(FeatureFunction<I> function) {
+        // operands shared between conjunctions are buffered once
+        return operands.computeIfAbsent(step(function), step -> new Operand(step, operands.size()));
+    }
+
+    private int contextSlot(NlpContextFactory<I, NlpInstance> contextFactory) {
+        for (int i = 0; i < contextFactories.size(); ++i) {
+            if (contextFactories.get(i) == contextFactory) {
+                return i;
+            }
+        }
+        contextFactories.add(contextFactory);
+        return contextFactories.size() - 1;
+    }
+
+    private int[] extractorSlots(List<? extends FeatureExtractor<NlpInstance, ?>> featureExtractors) {
+        int[] slots = new int[featureExtractors.size()];
+        for (int i = 0; i < slots.length; ++i) {
+            FeatureExtractor<NlpInstance, ?> extractor = featureExtractors.get(i);
+            slots[i] = -1;
+            for (int j = 0; j < extractors.size(); ++j) {
+                if (extractors.get(j) == extractor) {
+                    slots[i] = j;
+                    break;
+                }
+            }
+            if (slots[i] < 0) {
+                extractors.add(extractor);
+                slots[i] = extractors.size() - 1;
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Per-input state: computed contexts, extractor results per token, and buffered conjunction operands.
+     */
+    private class Evaluation {
+
+        private final I input;
+        private final List<NlpContext<NlpInstance>>[] contexts;
+        private final Map<NlpInstance, Object[]> values = new IdentityHashMap<>();
+        private final FeatureBuffer[] operands;
+
+        private Evaluation(I input) {
+            this.input = input;
+            this.contexts = new List[contextFactories.size()];
+            this.operands = new FeatureBuffer[FeaturePlan.this.operands.size()];
+        }
+
+        private List<NlpContext<NlpInstance>> contexts(int slot) {
+            List<NlpContext<NlpInstance>> result = contexts[slot];
+            if (result == null) {
+                result = contextFactories.get(slot).apply(input);
+                contexts[slot] = result;
+            }
+            return result;
+        }
+
+        private Object value(int slot, NlpInstance token) {
+            Object[] tokenValues = values.get(token);
+            if (tokenValues == null) {
+                tokenValues = new Object[extractors.size()];
+                values.put(token, tokenValues);
+            }
+            Object value = tokenValues[slot];
+            if (value == null) {
+                value = extractors.get(slot).extract(token);
+                tokenValues[slot] = value == null ? NULL : value;
+            }
+            return value == NULL ? null : value;
+        }
+
+        private FeatureBuffer operand(Operand operand) {
+            FeatureBuffer buffer = operands[operand.slot];
+            if (buffer == null) {
+                buffer = new FeatureBuffer();
+                operand.step.apply(this, buffer);
+                operands[operand.slot] = buffer;
+            }
+            return buffer;
+        }
+    }
+
+    private abstract class Step {
+        abstract void apply(Evaluation evaluation, FeatureSink sink);
+    }
+
+    /**
+     * Applies extractors to the tokens of each context from a single context factory.
+     */
+    private class ExtractorStep extends Step {
+
+        private final int context;
+        private final int[] extractorSlots;
+        private final boolean list;
+        private final Map<String, String[]> featureIds = new ConcurrentHashMap<>();
+
+        private ExtractorStep(int context, int[] extractorSlots, boolean list) {
+            this.context = context;
+            this.extractorSlots = extractorSlots;
+            this.list = list;
+        }
+
+        @Override
+        void apply(Evaluation evaluation, FeatureSink sink) {
+            for (NlpContext<NlpInstance> context : evaluation.contexts(this.context)) {
+                String[] ids = featureIds.computeIfAbsent(context.identifier(), this::featureIds);
+                List<NlpInstance> tokens = context.tokens();
+                if (list) {
+                    if (tokens.size() > 1) {
+                        log.warn("Warning: using a multi-string feature extractor for a multi-token context.");
+                    }
+                    for (int i = 0; i < ids.length; ++i) {
+                        for (NlpInstance token : tokens) {
+                            for (String result : (List<String>) evaluation.value(extractorSlots[i], token)) {
+                                sink.accept(ids[i], result);
+                            }
+                        }
+                    }
+                } else if (tokens.size() == 1) {
+                    for (int i = 0; i < ids.length; ++i) {
+                        sink.accept(ids[i], String.valueOf(evaluation.value(extractorSlots[i], tokens.get(0))));
+                    }
+                } else {
+                    for (int i = 0; i < ids.length; ++i) {
+                        List<String> results = new ArrayList<>(tokens.size());
+                        for (NlpInstance token : tokens) {
+                            results.add((String) evaluation.value(extractorSlots[i], token));
+                        }
+                        sink.accept(ids[i], String.join(FeatureUtils.CONTEXT_DELIM, results));
+                    }
+                }
+            }
+        }
+
+        private String[] featureIds(String identifier) {
+            String[] ids = new String[extractorSlots.length];
+            for (int i = 0; i < ids.length; ++i) {
+                ids[i] = FeatureUtils.computeId(identifier, extractors.get(extractorSlots[i]).id());
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Conjunction operand, buffered once per input.
+     */
+    private class Operand {
+
+        private final Step step;
+        private final int slot;
+
+        private Operand(Step step, int slot) {
+            this.step = step;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * Conjoins every pair of features from two buffered operands.
+     */
+    private class ConjunctionStep extends Step {
+
+        private final Operand first;
+        private final Operand second;
+        private final boolean hashed;
+        private final Map<String, Map<String, String>> ids = new ConcurrentHashMap<>();
+
+        private ConjunctionStep(Operand first, Operand second, boolean hashed) {
+            this.first = first;
+            this.second = second;
+            this.hashed = hashed;
+        }
+
+        @Override
+        void apply(Evaluation evaluation, FeatureSink sink) {
+            FeatureBuffer firstFeatures = evaluation.operand(first);
+            FeatureBuffer secondFeatures = evaluation.operand(second);
+            if (hashed) {
+                applyHashed(firstFeatures, secondFeatures, sink);
+                return;
+            }
+            for (int i = 0; i < firstFeatures.size(); ++i) {
+                String firstId = firstFeatures.ids.get(i);
+                String firstValue = firstFeatures.values.get(i);
+                for (int j = 0; j < secondFeatures.size(); ++j) {
+                    String secondId = secondFeatures.ids.get(j);
+                    String secondValue = secondFeatures.values.get(j);
+                    if (firstId.equals(secondId) && Objects.equals(firstValue, secondValue)) {
+                        continue;
+                    }
+                    sink.accept(firstId + FeatureUtils.CONCAT_DELIM + secondId,
+                            firstValue + FeatureUtils.CONCAT_DELIM + secondValue);
+                }
+            }
+        }
+
+        private void applyHashed(FeatureBuffer firstFeatures, FeatureBuffer secondFeatures, FeatureSink sink) {
+            long[] firstHashes = firstFeatures.hashes();
+            long[] secondHashes = secondFeatures.hashes();
+            for (int i = 0; i < firstHashes.length; ++i) {
+                String firstId = firstFeatures.ids.get(i);
+                Map<String, String> conjunctionIds = ids.computeIfAbsent(firstId, id -> new ConcurrentHashMap<>());
+                for (int j = 0; j < secondHashes.length; ++j) {
+                    String secondId = secondFeatures.ids.get(j);
+                    if (firstHashes[i] == secondHashes[j] && firstId.equals(secondId)
+                            && Objects.equals(firstFeatures.values.get(i), secondFeatures.values.get(j))) {
+                        continue;
+                    }
+                    sink.acceptHashed(conjunctionIds.computeIfAbsent(secondId,
+                            id -> firstId + FeatureUtils.CONCAT_DELIM + id),
+                            FeatureUtils.combine(firstHashes[i], secondHashes[j]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffered features, stored as parallel ID and value lists.
+     */
+    private static class FeatureBuffer implements FeatureSink {
+
+        private final List<String> ids = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+        private long[] hashes;
+
+        private long[] hashes() {
+            if (hashes == null) {
+                hashes = new long[ids.size()];
+                for (int i = 0; i < hashes.length; ++i) {
+                    hashes[i] = FeatureUtils.hash(ids.get(i), values.get(i));
+                }
+            }
+            return hashes;
+        }
+
+        @Override
+        public void accept(String id, String value) {
+            ids.add(id);
+            values.add(value);
+        }
+
+        private int size() {
+            return ids.size();
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.function;
+
+/**
+ * Receives categorical features as they are produced by a {@link FeatureFunction} or {@link FeaturePlan}, such as a vectorizer
+ * mapping each feature directly to an index.
+ *
+ * @author jamesgung
+ */
+@FunctionalInterface
+public interface FeatureSink {
+
+    /**
+     * Accept a single feature.
+     *
+     * @param id    feature ID
+     * @param value feature value
+     */
+    void accept(String id, String value);
+
+    /**
+     * Accept a single hashed feature, such as a conjunction computed from the hashes of its components. Sinks that index
+     * features should override this to avoid building the value string.
+     *
+     * @param id   feature ID
+     * @param hash 64-bit hash of the complete feature
+     */
+    default void acceptHashed(String id, long hash) {
+        accept(id, "#" + Long.toHexString(hash));
+    }
+
+}
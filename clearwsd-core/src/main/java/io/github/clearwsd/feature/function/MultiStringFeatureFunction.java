@@ -45,6 +45,14 @@ public class MultiStringFeatureFunction<InputT extends NlpInstance, OutputT exte
     private NlpContextFactory<InputT, OutputT> contextFactory;
     private List<StringListExtractor<OutputT>> featureExtractors;
 
+    NlpContextFactory<InputT, OutputT> contextFactory() {
+        return contextFactory;
+    }
+
+    List<StringListExtractor<OutputT>> featureExtractors() {
+        return featureExtractors;
+    }
+
     @Override
     public List<StringFeature> apply(InputT instance) {
         List<StringFeature> features = new ArrayList<>();
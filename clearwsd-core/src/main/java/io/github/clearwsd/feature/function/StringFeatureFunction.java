@@ -18,22 +18,24 @@ package io.github.clearwsd.feature.function;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.github.clearwsd.type.NlpInstance;
 import io.github.clearwsd.feature.StringFeature;
+import io.github.clearwsd.feature.context.ContextSink;
 import io.github.clearwsd.feature.context.NlpContext;
 import io.github.clearwsd.feature.context.NlpContextFactory;
+import io.github.clearwsd.feature.context.SinkContextFactory;
 import io.github.clearwsd.feature.extractor.FeatureExtractor;
 import io.github.clearwsd.feature.extractor.StringExtractor;
 import io.github.clearwsd.feature.util.FeatureUtils;
-import lombok.AllArgsConstructor;
 
 /**
  * String feature function.
  *
  * @author jamesgung
  */
-@AllArgsConstructor
 public class StringFeatureFunction<InputT extends NlpInstance, OutputT extends NlpInstance>
         implements FeatureFunction<InputT> {
 
@@ -42,20 +44,71 @@ public class StringFeatureFunction<InputT extends NlpInstance, OutputT extends N
     private NlpContextFactory<InputT, OutputT> contextFactory;
     private List<StringExtractor<OutputT>> featureExtractors;
 
+    // feature IDs for each extractor by context identifier, computed on first use
+    private transient Map<String, String[]> featureIds;
+
+    public StringFeatureFunction(NlpContextFactory<InputT, OutputT> contextFactory,
+                                 List<StringExtractor<OutputT>> featureExtractors) {
+        this.contextFactory = contextFactory;
+        this.featureExtractors = featureExtractors;
+    }
+
     @Override
     public List<StringFeature> apply(InputT instance) {
         List<StringFeature> features = new ArrayList<>();
-        for (NlpContext<OutputT> context : contextFactory.apply(instance)) {
-            for (FeatureExtractor<OutputT, String> featureExtractor : featureExtractors) {
-                List<String> results = new ArrayList<>();
-                for (OutputT token : context.tokens()) {
-                    results.add(featureExtractor.extract(token));
+        if (contextFactory instanceof SinkContextFactory) {
+            //noinspection unchecked
+            ((SinkContextFactory<InputT, OutputT>) contextFactory).apply(instance, new ContextSink<OutputT>() {
+                @Override
+                public void accept(String identifier, List<OutputT> tokens) {
+                    addFeatures(identifier, tokens, features);
                 }
-                String id = FeatureUtils.computeId(context.identifier(), featureExtractor.id());
-                features.add(new StringFeature(id, String.join(FeatureUtils.CONTEXT_DELIM, results)));
-            }
+
+                @Override
+                public void accept(String identifier, OutputT token) {
+                    String[] ids = featureIds(identifier);
+                    for (int i = 0; i < ids.length; ++i) {
+                        features.add(new StringFeature(ids[i], String.valueOf(featureExtractors.get(i).extract(token))));
+                    }
+                }
+            });
+            return features;
+        }
+        for (NlpContext<OutputT> context : contextFactory.apply(instance)) {
+            addFeatures(context.identifier(), context.tokens(), features);
         }
         return features;
     }
 
+    private void addFeatures(String identifier, List<OutputT> tokens, List<StringFeature> features) {
+        String[] ids = featureIds(identifier);
+        for (int i = 0; i < ids.length; ++i) {
+            FeatureExtractor<OutputT, String> featureExtractor = featureExtractors.get(i);
+            List<String> results = new ArrayList<>();
+            for (OutputT token : tokens) {
+                results.add(featureExtractor.extract(token));
+            }
+            features.add(new StringFeature(ids[i], String.join(FeatureUtils.CONTEXT_DELIM, results)));
+        }
+    }
+
+    NlpContextFactory<InputT, OutputT> contextFactory() {
+        return contextFactory;
+    }
+
+    List<StringExtractor<OutputT>> featureExtractors() {
+        return featureExtractors;
+    }
+
+    private String[] featureIds(String identifier) {
+        Map<String, String[]> featureIds = this.featureIds;
+        if (featureIds == null) {
+            featureIds = new ConcurrentHashMap<>();
+            this.featureIds = featureIds;
+        }
+        return featureIds.computeIfAbsent(identifier, id -> featureExtractors.stream()
+                .map(extractor -> FeatureUtils.computeId(id, extractor.id()))
+                .toArray(String[]::new));
+    }
+
 }
@@ -37,6 +37,10 @@ public class BaseVocabulary implements Vocabulary {
     private static final long serialVersionUID = 5268053360096219564L;
 
     private BiMap<String, Integer> indices;
+    /**
+     * Indices of hashed features, null if there are none (or for vocabularies serialized before hashed features existed).
+     */
+    private BiMap<Long, Integer> hashedIndices;
 
     @Setter
     private int defaultIndex = 0;
@@ -45,6 +49,13 @@ public class BaseVocabulary implements Vocabulary {
         this.indices = HashBiMap.create(indices);
     }
 
+    public BaseVocabulary(Map<String, Integer> indices, Map<Long, Integer> hashedIndices) {
+        this(indices);
+        if (!hashedIndices.isEmpty()) {
+            this.hashedIndices = HashBiMap.create(hashedIndices);
+        }
+    }
+
     @Override
     public int index(String value) {
         return indices.getOrDefault(value, 0);
@@ -52,7 +63,19 @@ public class BaseVocabulary implements Vocabulary {
 
     @Override
     public String value(int index) {
-        return indices.inverse().get(index);
+        String value = indices.inverse().get(index);
+        if (value == null && hashedIndices != null) {
+            Long hash = hashedIndices.inverse().get(index);
+            if (hash != null) {
+                return "#" + Long.toHexString(hash);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public int index(long hash) {
+        return hashedIndices == null ? 0 : hashedIndices.getOrDefault(hash, 0);
     }
 
 }
@@ -81,4 +81,14 @@ public interface FeatureModel extends Serializable {
      */
     Integer featureIndex(String feature);
 
+    /**
+     * Return the index for a given hashed feature.
+     *
+     * @param hash 64-bit feature hash
+     * @return feature index
+     */
+    default Integer featureIndex(long hash) {
+        return features().index(hash);
+    }
+
 }
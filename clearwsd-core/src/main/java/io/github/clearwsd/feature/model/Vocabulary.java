@@ -47,4 +47,15 @@ public interface Vocabulary extends Serializable {
      */
     String value(int index);
 
+    /**
+     * Return an index for a given hashed feature (e.g. a conjunction computed without building its string), or a default value
+     * if it is not found.
+     *
+     * @param hash 64-bit feature hash
+     * @return corresponding index
+     */
+    default int index(long hash) {
+        return 0;
+    }
+
 }
@@ -20,21 +20,29 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongToIntFunction;
+import java.util.function.ToIntFunction;
 
 import io.github.clearwsd.type.FeatureType;
 import io.github.clearwsd.type.NlpInstance;
 import io.github.clearwsd.classifier.DefaultSparseInstance;
 import io.github.clearwsd.classifier.SparseInstance;
+import io.github.clearwsd.classifier.SparseMatrix;
 import io.github.clearwsd.classifier.SparseVectorBuilder;
-import io.github.clearwsd.feature.StringFeature;
 import io.github.clearwsd.feature.function.FeatureFunction;
+import io.github.clearwsd.feature.function.FeaturePlan;
+import io.github.clearwsd.feature.function.FeatureSink;
 import io.github.clearwsd.feature.model.BaseFeatureModel;
 import io.github.clearwsd.feature.model.FeatureModel;
 import io.github.clearwsd.feature.util.VocabularyBuilder;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
+import static io.github.clearwsd.feature.util.FeatureUtils.FEATURE_ID_SEP;
+
 /**
  * Default feature pipeline.
  *
@@ -49,6 +57,9 @@ public class DefaultFeaturePipeline<I extends NlpInstance> implements FeaturePip
 
     private FeatureFunction<I> features;
     private FeatureModel model;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile FeaturePlan<I> plan;
 
     private Function<I, String> labelFunction = (Serializable & Function<I, String>) i -> i.feature(FeatureType.Gold);
 
@@ -56,13 +67,31 @@ public class DefaultFeaturePipeline<I extends NlpInstance> implements FeaturePip
         this.features = features;
     }
 
+    /**
+     * Set the feature function used by this pipeline.
+     *
+     * @param features feature function
+     * @return this pipeline
+     */
+    public DefaultFeaturePipeline<I> features(FeatureFunction<I> features) {
+        this.features = features;
+        this.plan = null;
+        return this;
+    }
+
+    private FeaturePlan<I> plan() {
+        FeaturePlan<I> plan = this.plan;
+        if (plan == null) {
+            plan = FeaturePlan.compile(features);
+            this.plan = plan;
+        }
+        return plan;
+    }
+
     @Override
     public SparseInstance process(I instance) {
-        List<StringFeature> features = this.features.apply(instance);
-
         SparseVectorBuilder builder = new SparseVectorBuilder();
-        features.stream().map(feature -> model.featureIndex(feature.toString()))
-                .forEach(builder::addIndex);
+        plan().apply(instance, new Indexer(builder::addIndex, model::featureIndex, model::featureIndex));
 
         int target = model.labelIndex(labelFunction.apply(instance));
         return new DefaultSparseInstance(instance.index(), target, builder.build());
@@ -70,21 +99,24 @@ public class DefaultFeaturePipeline<I extends NlpInstance> implements FeaturePip
 
     @Override
     public List<SparseInstance> train(List<I> instances) {
+        return new ArrayList<>(trainMatrix(instances).instances());
+    }
+
+    @Override
+    public SparseMatrix trainMatrix(List<I> instances) {
         model = new BaseFeatureModel();
 
         VocabularyBuilder featureVocab = new VocabularyBuilder();
         VocabularyBuilder labelVocab = new VocabularyBuilder();
 
-        List<SparseInstance> results = new ArrayList<>();
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(instances.size(), 64 * instances.size());
+        Indexer indexer = new Indexer(builder::addIndex, featureVocab::index, featureVocab::index);
+        FeaturePlan<I> plan = plan();
         for (I instance : instances) {
-            List<StringFeature> features = this.features.apply(instance);
-
-            SparseVectorBuilder builder = new SparseVectorBuilder();
-            features.stream().map(f -> featureVocab.index(f.toString()))
-                    .forEach(builder::addIndex);
+            plan.apply(instance, indexer);
 
             int target = labelVocab.index(labelFunction.apply(instance));
-            results.add(new DefaultSparseInstance(instance.index(), target, builder.build()));
+            builder.addRow(instance.index(), target);
         }
 
         model.features(featureVocab.build());
@@ -93,7 +125,33 @@ public class DefaultFeaturePipeline<I extends NlpInstance> implements FeaturePip
         }
         model.labels(labelVocab.build());
 
-        return results;
+        return builder.build();
+    }
+
+    /**
+     * Feature sink adding the index of each feature to a sparse vector or matrix row.
+     */
+    private static class Indexer implements FeatureSink {
+
+        private final IntConsumer builder;
+        private final ToIntFunction<String> features;
+        private final LongToIntFunction hashedFeatures;
+
+        private Indexer(IntConsumer builder, ToIntFunction<String> features, LongToIntFunction hashedFeatures) {
+            this.builder = builder;
+            this.features = features;
+            this.hashedFeatures = hashedFeatures;
+        }
+
+        @Override
+        public void accept(String id, String value) {
+            builder.accept(features.applyAsInt(id + FEATURE_ID_SEP + value));
+        }
+
+        @Override
+        public void acceptHashed(String id, long hash) {
+            builder.accept(hashedFeatures.applyAsInt(hash));
+        }
     }
 
 }
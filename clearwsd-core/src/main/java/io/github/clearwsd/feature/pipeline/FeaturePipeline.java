@@ -21,6 +21,7 @@ import java.util.List;
 
 import io.github.clearwsd.type.NlpInstance;
 import io.github.clearwsd.classifier.SparseInstance;
+import io.github.clearwsd.classifier.SparseMatrix;
 import io.github.clearwsd.feature.model.FeatureModel;
 
 /**
@@ -52,4 +53,14 @@ public interface FeaturePipeline<I extends NlpInstance> extends Serializable {
      */
     List<SparseInstance> train(List<I> instances);
 
+    /**
+     * Extract features and perform any necessary training-specific processing, returning training data as a single matrix.
+     *
+     * @param instances list of input training instances
+     * @return training data (input to a classification algorithm)
+     */
+    default SparseMatrix trainMatrix(List<I> instances) {
+        return SparseMatrix.of(train(instances));
+    }
+
 }
@@ -26,13 +26,14 @@ import java.util.Properties;
 import java.util.stream.Collectors;
 
 import io.github.clearwsd.type.NlpInstance;
+import io.github.clearwsd.classifier.BinarySparseVector;
 import io.github.clearwsd.classifier.Classifier;
 import io.github.clearwsd.classifier.DefaultSparseInstance;
-import io.github.clearwsd.classifier.DefaultSparseVector;
 import io.github.clearwsd.classifier.DummyClassifier;
 import io.github.clearwsd.classifier.Hyperparameter;
 import io.github.clearwsd.classifier.SparseClassifier;
 import io.github.clearwsd.classifier.SparseInstance;
+import io.github.clearwsd.classifier.SparseMatrix;
 import io.github.clearwsd.feature.model.BaseFeatureModel;
 import io.github.clearwsd.feature.model.BaseVocabulary;
 import io.github.clearwsd.feature.model.FeatureModel;
@@ -79,10 +80,10 @@ public class NlpClassifier<U extends NlpInstance> implements Classifier<U, Strin
 
     @Override
     public void train(List<U> train, List<U> valid) {
-        List<SparseInstance> trainInstances = featurePipeline.train(train);
-        List<SparseInstance> validInstances = valid.stream()
+        SparseMatrix trainInstances = featurePipeline.trainMatrix(train);
+        SparseMatrix validInstances = SparseMatrix.of(valid.stream()
                 .map(featurePipeline::process)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
         int classes = featurePipeline.model().labels().indices().size();
         if (classes >= 2) {
             log.trace("Training {}-class model with {} train instances and {} validation instances",
@@ -144,7 +145,7 @@ public class NlpClassifier<U extends NlpInstance> implements Classifier<U, Strin
 
         @Override
         public SparseInstance process(I inputInstance) {
-            return new DefaultSparseInstance(0, 0, new DefaultSparseVector(new int[]{0}, new float[]{1}));
+            return new DefaultSparseInstance(0, 0, new BinarySparseVector(new int[]{0}));
         }
 
         @Override
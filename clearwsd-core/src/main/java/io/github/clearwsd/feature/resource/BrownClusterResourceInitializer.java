@@ -48,6 +48,11 @@ public class BrownClusterResourceInitializer<K> extends TsvResourceInitializer<K
         super(key, path);
     }
 
+    @Override
+    protected String configuration() {
+        return subSequences + ":" + threshold;
+    }
+
     @Override
     protected void apply(List<String> fields, Multimap<String, String> multimap) {
         int count = Integer.parseInt(fields.get(2));
@@ -16,27 +16,98 @@
 
 package io.github.clearwsd.feature.resource;
 
+import com.google.common.base.Stopwatch;
+
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
 /**
- * Default resource manager implementation.
+ * Default resource manager implementation. Resources are independent, so they are initialized in parallel on a pool of
+ * {@link #threads()} threads, after which a {@link ResourceInitializationReport} with per-resource timings is logged.
  *
  * @author jamesgung
  */
+@Slf4j
+@Accessors(fluent = true)
 public class DefaultFeatureResourceManager implements FeatureResourceManager, Serializable {
 
     private static final long serialVersionUID = -8748192893966732273L;
 
     private Map<String, FeatureResourceProxy> resourceMap = new HashMap<>();
 
+    /**
+     * Number of threads used to initialize resources, defaulting to the number of available processors when less than 1.
+     */
+    @Getter
+    @Setter
+    private int threads;
+    /**
+     * Report from the most recent call to {@link #initialize()}.
+     */
+    @Getter
+    private transient ResourceInitializationReport report;
+
     @Override
     public void initialize() {
-        for (Map.Entry<String, FeatureResourceProxy> entry : resourceMap.entrySet()) {
-            FeatureResourceProxy resource = entry.getValue();
-            resource.initialize();
+        int threads = Math.min(resourceMap.size(),
+                this.threads < 1 ? Runtime.getRuntime().availableProcessors() : this.threads);
+        ResourceInitializationReport report = new ResourceInitializationReport(Math.max(1, threads));
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        if (threads <= 1) {
+            for (Map.Entry<String, FeatureResourceProxy> entry : resourceMap.entrySet()) {
+                initialize(entry.getKey(), entry.getValue(), report);
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (Map.Entry<String, FeatureResourceProxy> entry : resourceMap.entrySet()) {
+                    futures.add(executor.submit(() -> initialize(entry.getKey(), entry.getValue(), report)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while initializing resources.", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error initializing resources: " + e.getCause().getMessage(), e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        report.totalMillis(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        this.report = report;
+        log.info("{}", report);
+    }
+
+    private void initialize(String key, FeatureResourceProxy resource, ResourceInitializationReport report) {
+        long allocated = ResourceInitializationReport.allocatedBytes();
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        resource.initialize();
+        long millis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+        report.add(new ResourceInitializationReport.Entry(key, millis,
+                allocated < 0 ? -1 : ResourceInitializationReport.allocatedBytes() - allocated));
+    }
+
+    @Override
+    public void release() {
+        for (FeatureResourceProxy resource : resourceMap.values()) {
+            resource.release();
         }
     }
 
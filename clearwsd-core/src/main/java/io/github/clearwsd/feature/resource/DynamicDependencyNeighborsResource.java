@@ -24,7 +24,6 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -90,7 +89,8 @@ public class DynamicDependencyNeighborsResource implements FeatureResource<DepNo
     }
 
     @Accessors(fluent = true)
-    public static class DdnResourceInitializer implements Supplier<DynamicDependencyNeighborsResource>, Serializable {
+    public static class DdnResourceInitializer implements SharedResourceInitializer<DynamicDependencyNeighborsResource>,
+            Serializable {
 
         private static final long serialVersionUID = -5135704509811250797L;
 
@@ -105,6 +105,12 @@ public class DynamicDependencyNeighborsResource implements FeatureResource<DepNo
             this.indexDirectory = indexDirectory;
         }
 
+        @Override
+        public String identity() {
+            return String.join("|", DdnResourceInitializer.class.getName(), indexDirectory.getAbsolutePath(),
+                    Integer.toString(maxNeighbors), Integer.toString(maxSearch));
+        }
+
         @Override
         public DynamicDependencyNeighborsResource get() {
             return new DynamicDependencyNeighborsResource(new LuceneWrapper(indexDirectory), maxNeighbors, maxSearch);
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.resource;
+
+import java.io.Serializable;
+
+import io.github.clearwsd.type.NlpInstance;
+
+/**
+ * Resolves features on demand, such as resource lookups deferred until a feature extractor first reads them.
+ *
+ * @author jamesgung
+ */
+public interface FeatureResolver extends Serializable {
+
+    /**
+     * Return the feature for a given key, computing and memoizing it on the instance if it is not yet present.
+     *
+     * @param instance NLP instance
+     * @param key      feature key
+     * @param <T>      type of resulting feature
+     * @return feature value, or null if the feature is absent and cannot be resolved
+     */
+    <T> T resolve(NlpInstance instance, String key);
+
+}
@@ -30,6 +30,13 @@ public interface FeatureResourceManager {
      */
     void initialize();
 
+    /**
+     * Release any resources held by this manager, such as references to resources shared with other managers.
+     */
+    default void release() {
+        // pass by default
+    }
+
     /**
      * Retrieve the feature resource with the provided identifier, initializing the resource if it is not available.
      *
@@ -20,7 +20,11 @@ import java.io.Serializable;
 import java.util.function.Supplier;
 
 /**
- * Feature resource proxy.
+ * Feature resource proxy. Resources produced by a {@link SharedResourceInitializer} are resolved against the
+ * {@link SharedResourceRegistry}, so that identical resources are shared across proxies (and models).
+ * <p>
+ * Resources are acquired lazily on first lookup. Once {@link #release() released}, lookups fail until the proxy is explicitly
+ * {@link #initialize() initialized} again, so that every acquisition of a shared resource is matched by a release.
  *
  * @author jamesgung
  */
@@ -30,7 +34,8 @@ public class FeatureResourceProxy<K, T> implements FeatureResource<K, T>, Serial
 
     private String key;
     private Supplier<FeatureResource<K, T>> initializer;
-    private transient FeatureResource<K, T> resource;
+    private transient volatile FeatureResource<K, T> resource;
+    private transient volatile boolean released;
 
     public FeatureResourceProxy(String key, Supplier<FeatureResource<K, T>> initializer) {
         this.key = key;
@@ -38,11 +43,46 @@ public class FeatureResourceProxy<K, T> implements FeatureResource<K, T>, Serial
     }
 
     public void initialize() {
-        if (resource == null) {
-            resource = initializer.get();
+        synchronized (this) {
+            released = false;
+            acquire();
         }
     }
 
+    private FeatureResource<K, T> acquire() {
+        FeatureResource<K, T> result = resource;
+        if (result == null) {
+            synchronized (this) {
+                result = resource;
+                if (result == null) {
+                    if (released) {
+                        throw new IllegalStateException("Resource " + key + " was released and must be re-initialized");
+                    }
+                    if (initializer instanceof SharedResourceInitializer) {
+                        //noinspection unchecked
+                        result = SharedResourceRegistry.getInstance()
+                                .acquire((SharedResourceInitializer<FeatureResource<K, T>>) initializer);
+                    } else {
+                        result = initializer.get();
+                    }
+                    resource = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Release this proxy's reference to its resource, allowing shared resources to be discarded once unused.
+     */
+    public synchronized void release() {
+        if (resource != null && initializer instanceof SharedResourceInitializer) {
+            SharedResourceRegistry.getInstance().release(((SharedResourceInitializer<?>) initializer).identity());
+        }
+        resource = null;
+        released = true;
+    }
+
     @Override
     public String key() {
         return key;
@@ -50,8 +90,7 @@ public class FeatureResourceProxy<K, T> implements FeatureResource<K, T>, Serial
 
     @Override
     public T lookup(K key) {
-        initialize();
-        return resource.lookup(key);
+        return acquire().lookup(key);
     }
 
 }
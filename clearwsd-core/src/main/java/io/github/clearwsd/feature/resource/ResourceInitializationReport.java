@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.resource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Startup report for resource initialization, giving the load time and memory allocated for each resource. Allocation is
+ * measured per loading thread, so it remains meaningful when resources are initialized in parallel, but it is an upper bound
+ * on retained memory (temporary objects created while parsing a resource are included).
+ *
+ * @author jamesgung
+ */
+@Getter
+@Accessors(fluent = true)
+public class ResourceInitializationReport {
+
+    /**
+     * Initialization statistics for a single resource.
+     */
+    @Getter
+    @Accessors(fluent = true)
+    @AllArgsConstructor
+    public static class Entry {
+        private String key;
+        private long millis;
+        /**
+         * Bytes allocated by the loading thread, or -1 if unavailable on this JVM.
+         */
+        private long allocatedBytes;
+    }
+
+    private final List<Entry> entries = Collections.synchronizedList(new ArrayList<>());
+    private final int threads;
+    private long totalMillis;
+
+    ResourceInitializationReport(int threads) {
+        this.threads = threads;
+    }
+
+    void add(Entry entry) {
+        entries.add(entry);
+    }
+
+    void totalMillis(long totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    /**
+     * Return the number of bytes allocated so far by the current thread, or -1 if unsupported.
+     */
+    static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+            if (threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled()) {
+                return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder(String.format("Initialized %d resources in %d ms (%d threads)",
+                entries.size(), totalMillis, threads));
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(Entry::millis).reversed());
+        for (Entry entry : sorted) {
+            result.append(String.format("\n\t%-20s %8d ms", entry.key, entry.millis));
+            if (entry.allocatedBytes >= 0) {
+                result.append(String.format(" %10.1f MB allocated", entry.allocatedBytes / (1024.0 * 1024.0)));
+            }
+        }
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.resource;
+
+import java.util.function.Supplier;
+
+/**
+ * Resource initializer with a stable identity, allowing identical resources to be loaded once and shared through the
+ * {@link SharedResourceRegistry}.
+ *
+ * @param <T> resource type
+ * @author jamesgung
+ */
+public interface SharedResourceInitializer<T> extends Supplier<T> {
+
+    /**
+     * Identity of the resource produced by this initializer. Initializers with equal identities must produce interchangeable
+     * resources, e.g. by combining the resource path or content hash with any configuration applied during loading.
+     */
+    String identity();
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.resource;
+
+import com.google.common.base.Stopwatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JVM-wide, reference-counted registry of feature resources. Resources are keyed by the identity of their
+ * {@link SharedResourceInitializer}, so that identical resources used by several models (e.g. clusters or WordNet) are only
+ * loaded once. A resource is kept alive while at least one reference to it has been acquired and not yet released.
+ *
+ * @author jamesgung
+ */
+@Slf4j
+public final class SharedResourceRegistry {
+
+    private static final SharedResourceRegistry INSTANCE = new SharedResourceRegistry();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    SharedResourceRegistry() {
+    }
+
+    /**
+     * Return the process-wide registry instance.
+     */
+    public static SharedResourceRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Acquire a reference to the resource produced by a given initializer, initializing it if no other reference is held.
+     * Each call must be balanced by a call to {@link #release(String)}.
+     *
+     * @param initializer resource initializer
+     * @param <T>         resource type
+     * @return shared resource
+     */
+    public <T> T acquire(SharedResourceInitializer<? extends T> initializer) {
+        String identity = initializer.identity();
+        Entry entry;
+        synchronized (this) {
+            entry = entries.computeIfAbsent(identity, Entry::new);
+            entry.references++;
+        }
+        try {
+            //noinspection unchecked
+            return (T) entry.get(initializer);
+        } catch (RuntimeException e) {
+            release(identity);
+            throw e;
+        }
+    }
+
+    /**
+     * Release a reference to a shared resource, discarding the resource once no references remain.
+     *
+     * @param identity resource identity
+     */
+    public synchronized void release(String identity) {
+        Entry entry = entries.get(identity);
+        if (entry == null) {
+            return;
+        }
+        if (--entry.references <= 0) {
+            entries.remove(identity);
+            log.debug("Released shared resource {}", identity);
+        }
+    }
+
+    /**
+     * Return the number of references currently held to the resource with the given identity.
+     *
+     * @param identity resource identity
+     */
+    public synchronized int references(String identity) {
+        Entry entry = entries.get(identity);
+        return entry == null ? 0 : entry.references;
+    }
+
+    /**
+     * Return the number of distinct resources currently held by this registry.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Entry {
+
+        private final String identity;
+        private int references;
+        private volatile Object resource;
+
+        private Entry(String identity) {
+            this.identity = identity;
+        }
+
+        private Object get(SharedResourceInitializer<?> initializer) {
+            Object result = resource;
+            if (result == null) {
+                synchronized (this) {
+                    result = resource;
+                    if (result == null) {
+                        Stopwatch stopwatch = Stopwatch.createStarted();
+                        result = initializer.get();
+                        resource = result;
+                        log.debug("Initialized shared resource {} ({})", identity, stopwatch.stop());
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+}
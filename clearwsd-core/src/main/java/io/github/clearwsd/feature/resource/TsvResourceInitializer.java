@@ -20,6 +20,7 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
 
 import java.io.BufferedReader;
@@ -38,15 +39,19 @@ import lombok.Setter;
 import lombok.experimental.Accessors;
 
 /**
- * TSV resource initializer.
+ * TSV resource initializer. Resources are identified by the hash of their contents together with any configured
+ * functions, allowing identical resources to be shared across models through the {@link SharedResourceRegistry}.
  *
  * @author jamesgung
  */
 @Accessors(fluent = true)
-public abstract class TsvResourceInitializer<K> implements StringResourceInitializer<MultimapResource<K>> {
+public abstract class TsvResourceInitializer<K> implements StringResourceInitializer<MultimapResource<K>>,
+        SharedResourceInitializer<MultimapResource<K>> {
 
     private static final long serialVersionUID = 7969133672311229L;
 
+    private static final String IDENTITY_DELIM = "|";
+
     @Setter
     protected StringFunction valueFunction = new IdentityStringFunction();
     @Setter
@@ -56,6 +61,7 @@ public abstract class TsvResourceInitializer<K> implements StringResourceInitial
 
     private final String key;
     private byte[] data;
+    private transient String contentHash;
 
     TsvResourceInitializer(String key, URL path) {
         this.key = key;
@@ -88,6 +94,22 @@ public abstract class TsvResourceInitializer<K> implements StringResourceInitial
         return resource;
     }
 
+    @Override
+    public String identity() {
+        if (contentHash == null) {
+            contentHash = Hashing.sha256().hashBytes(data).toString();
+        }
+        return String.join(IDENTITY_DELIM, getClass().getName(), key, keyFunction.id(), valueFunction.id(),
+                mappingFunction.id(), configuration(), contentHash);
+    }
+
+    /**
+     * Description of any additional configuration affecting the contents of the initialized resource.
+     */
+    protected String configuration() {
+        return "";
+    }
+
     protected abstract void apply(List<String> fields, Multimap<String, String> multimap);
 
 }
@@ -21,7 +21,6 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.function.Supplier;
 
 import io.github.clearwsd.type.FeatureType;
 import io.github.clearwsd.type.NlpInstance;
@@ -68,10 +67,16 @@ public class WordNetResource<K extends NlpInstance> implements FeatureResource<K
         return words;
     }
 
-    public static class WordNetInitializer<K extends NlpInstance> implements Supplier<WordNetResource<K>>, Serializable {
+    public static class WordNetInitializer<K extends NlpInstance> implements SharedResourceInitializer<WordNetResource<K>>,
+            Serializable {
 
         private static final long serialVersionUID = -1210563042105427915L;
 
+        @Override
+        public String identity() {
+            return WordNetInitializer.class.getName();
+        }
+
         @Override
         public WordNetResource<K> get() {
             return new WordNetResource<>();
@@ -34,8 +34,51 @@ public class FeatureUtils {
     // separator between feature ID and feature value
     public static final String FEATURE_ID_SEP = "=";
 
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     public static String computeId(String contextId, String featureId) {
         return contextId + CONTEXT_FEATURE_SEP + featureId;
     }
 
+    /**
+     * Compute a 64-bit hash of a feature with a given ID and value, as it would be represented in a vocabulary
+     * ({@code id=value}), without building the feature string.
+     *
+     * @param id    feature ID
+     * @param value feature value
+     * @return 64-bit feature hash
+     */
+    public static long hash(String id, String value) {
+        long hash = hash(FNV_OFFSET, id);
+        hash = hash(hash, FEATURE_ID_SEP);
+        return hash(hash, value == null ? "null" : value);
+    }
+
+    /**
+     * Combine two feature hashes into the hash of their (ordered) conjunction.
+     *
+     * @param first  hash of first feature
+     * @param second hash of second feature
+     * @return conjunction hash
+     */
+    public static long combine(long first, long second) {
+        long hash = first * 0x9e3779b97f4a7c15L + second;
+        // finalization mix from MurmurHash3
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long hash(long hash, String string) {
+        for (int i = 0; i < string.length(); ++i) {
+            hash ^= string.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
 }
@@ -43,10 +43,21 @@ public class VocabularyBuilder implements Vocabulary {
     private Map<String, Integer> counts = new HashMap<>();
     @Getter
     private BiMap<String, Integer> indices = HashBiMap.create();
+    @Getter
+    private Map<Long, Integer> hashedIndices = new HashMap<>();
 
     public int index(String feature) {
         counts.merge(feature, 1, (old, val) -> old + val);
-        return indices.computeIfAbsent(feature, none -> indices.size());
+        return indices.computeIfAbsent(feature, none -> size());
+    }
+
+    @Override
+    public int index(long hash) {
+        return hashedIndices.computeIfAbsent(hash, none -> size());
+    }
+
+    private int size() {
+        return indices.size() + hashedIndices.size();
     }
 
     @Override
@@ -55,7 +66,7 @@ public class VocabularyBuilder implements Vocabulary {
     }
 
     public Vocabulary build() {
-        return new BaseVocabulary(indices);
+        return new BaseVocabulary(indices, hashedIndices);
     }
 
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.parser;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+
+import java.util.List;
+
+import io.github.clearwsd.type.DepTree;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * {@link NlpParser} wrapper that looks up parses in a {@link ParseCache} before parsing, adding new parses to the cache.
+ * Segmentation and tokenization are delegated to the wrapped parser.
+ *
+ * @author jamesgung
+ */
+@Accessors(fluent = true)
+public class CachingParser implements NlpParser {
+
+    private final NlpParser parser;
+    private final ParseCache cache;
+    @Getter
+    private final String fingerprint;
+
+    /**
+     * Initialize a caching parser with a given fingerprint, which should change whenever the parser, its models or its options
+     * change. Parses cached under another fingerprint are never returned, so the fingerprint must not be derived from the
+     * parser class alone.
+     *
+     * @param parser      wrapped parser
+     * @param cache       parse cache
+     * @param fingerprint parser fingerprint
+     */
+    public CachingParser(NlpParser parser, ParseCache cache, String fingerprint) {
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(fingerprint), "A parser fingerprint is required.");
+        this.parser = parser;
+        this.cache = cache;
+        this.fingerprint = fingerprint;
+    }
+
+    @Override
+    public List<String> segment(String input) {
+        return parser.segment(input);
+    }
+
+    @Override
+    public List<String> tokenize(String sentence) {
+        return parser.tokenize(sentence);
+    }
+
+    @Override
+    public DepTree parse(List<String> tokens) {
+        if (tokens.isEmpty()) {
+            return parser.parse(tokens);
+        }
+        DepTree tree = cache.get(fingerprint, tokens);
+        if (tree == null) {
+            tree = parser.parse(tokens);
+            cache.put(fingerprint, tokens, tree);
+        }
+        return tree;
+    }
+
+}
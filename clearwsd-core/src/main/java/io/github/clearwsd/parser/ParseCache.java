@@ -0,0 +1,365 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.parser;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.clearwsd.corpus.CoNllDepTreeReader;
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.FeatureType;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persistent, content-addressed cache of dependency parses. Parses are keyed by a 128-bit hash of a token sequence together
+ * with a parser fingerprint (identifying the parser and its models), so that a cache can be shared by different corpora and
+ * tools, and only new or changed sentences need to be parsed when a corpus is edited or extended.
+ * <p>
+ * Parses are appended to a single log file as CoNLL-formatted records, and indexed in memory when the cache is opened. When the
+ * log grows beyond a given maximum size, it is compacted, keeping the most recently used parses (recency is approximated by
+ * file order across sessions). Token sequences are verified on lookup, so hash collisions result in cache misses, not wrong
+ * parses. Caches are thread-safe, but should not be opened by more than one process at a time.
+ *
+ * @author jamesgung
+ */
+@Slf4j
+@Accessors(fluent = true)
+public class ParseCache implements Closeable {
+
+    /**
+     * Default maximum cache size (in bytes).
+     */
+    public static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+
+    private static final int MAGIC = 0x43575043; // CWPC
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 20;
+    private static final double COMPACTION_RATIO = 0.75;
+
+    private final Path path;
+    private final long maxBytes;
+    private final Map<Key, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private FileChannel channel;
+    private long end;
+
+    @Getter
+    private long hits;
+    @Getter
+    private long misses;
+
+    private ParseCache(Path path, long maxBytes) {
+        this.path = path;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Open a parse cache at a given path, creating it if it does not exist.
+     *
+     * @param path     cache file path
+     * @param maxBytes maximum size of the cache file in bytes, beyond which it is compacted
+     * @return parse cache
+     */
+    public static ParseCache open(Path path, long maxBytes) {
+        ParseCache cache = new ParseCache(path, maxBytes);
+        try {
+            cache.load();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to open parse cache at " + path, e);
+        }
+        if (cache.end > maxBytes) {
+            cache.compact();
+        }
+        return cache;
+    }
+
+    /**
+     * Open a parse cache at a given path with the {@link #DEFAULT_MAX_BYTES default maximum size}.
+     *
+     * @param path cache file path
+     * @return parse cache
+     */
+    public static ParseCache open(String path) {
+        return open(Paths.get(path), DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Return the cached parse of a given token sequence, or null if it has not been cached.
+     *
+     * @param fingerprint parser fingerprint
+     * @param tokens      token sequence
+     * @return new copy of the cached dependency tree, or null
+     */
+    public DepTree get(String fingerprint, List<String> tokens) {
+        Key key = key(fingerprint, tokens);
+        byte[] record;
+        synchronized (this) {
+            Entry entry = index.get(key);
+            if (entry == null) {
+                ++misses;
+                return null;
+            }
+            try {
+                record = read(entry.offset + RECORD_HEADER_SIZE, entry.length);
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading from parse cache at " + path, e);
+            }
+        }
+        List<DepTree> trees = new CoNllDepTreeReader().readInstances(new ByteArrayInputStream(record));
+        DepTree tree = trees.isEmpty() ? null : trees.get(0);
+        synchronized (this) {
+            if (tree == null || !matches(tree, tokens)) {
+                ++misses;
+                return null;
+            }
+            ++hits;
+        }
+        return tree;
+    }
+
+    /**
+     * Add the parse of a given token sequence to this cache, unless already present.
+     *
+     * @param fingerprint parser fingerprint
+     * @param tokens      token sequence
+     * @param tree        dependency tree
+     */
+    public void put(String fingerprint, List<String> tokens, DepTree tree) {
+        Key key = key(fingerprint, tokens);
+        byte[] record = CoNllDepTreeReader.treeToString(tree).getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            if (index.containsKey(key)) {
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + record.length);
+            buffer.putLong(key.high).putLong(key.low).putInt(record.length).put(record);
+            buffer.flip();
+            try {
+                write(channel, buffer, end);
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing to parse cache at " + path, e);
+            }
+            index.put(key, new Entry(end, record.length));
+            end += buffer.limit();
+            if (end > maxBytes) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Return the number of cached parses.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Rewrite the cache file, keeping only the most recently used parses that fit within 3/4 of the maximum cache size.
+     */
+    public synchronized void compact() {
+        List<Map.Entry<Key, Entry>> entries = new ArrayList<>(index.entrySet());
+        long budget = (long) (maxBytes * COMPACTION_RATIO) - HEADER_SIZE;
+        int first = entries.size();
+        while (first > 0) {
+            Entry entry = entries.get(first - 1).getValue();
+            budget -= RECORD_HEADER_SIZE + entry.length;
+            if (budget < 0) {
+                break;
+            }
+            --first;
+        }
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        Map<Key, Entry> kept = new LinkedHashMap<>();
+        try (FileChannel output = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = writeHeader(output);
+            for (Map.Entry<Key, Entry> entry : entries.subList(first, entries.size())) {
+                int size = RECORD_HEADER_SIZE + entry.getValue().length;
+                write(output, ByteBuffer.wrap(read(entry.getValue().offset, size)), position);
+                kept.put(entry.getKey(), new Entry(position, entry.getValue().length));
+                position += size;
+            }
+            output.force(false);
+            channel.close();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            log.debug("Compacted parse cache at {} from {} to {} bytes ({} of {} parses kept)", path, end, position,
+                    kept.size(), entries.size());
+            end = position;
+        } catch (IOException e) {
+            throw new RuntimeException("Error compacting parse cache at " + path, e);
+        }
+        index.clear();
+        index.putAll(kept);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Error closing parse cache at " + path, e);
+        }
+        log.debug("Closed parse cache at {} with {} parses ({} hits, {} misses)", path, index.size(), hits, misses);
+    }
+
+    private void load() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE) {
+            channel.truncate(0);
+            end = writeHeader(channel);
+            return;
+        }
+        ByteBuffer header = ByteBuffer.wrap(read(0, HEADER_SIZE));
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IllegalArgumentException("Not a parse cache (or unsupported version): " + path);
+        }
+        long position = HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= fileSize) {
+            ByteBuffer record = ByteBuffer.wrap(read(position, RECORD_HEADER_SIZE));
+            Key key = new Key(record.getLong(), record.getLong());
+            int length = record.getInt();
+            if (length < 0 || position + RECORD_HEADER_SIZE + length > fileSize) {
+                break;
+            }
+            index.put(key, new Entry(position, length));
+            position += RECORD_HEADER_SIZE + length;
+        }
+        if (position < fileSize) {
+            // drop incomplete record left by an interrupted write
+            log.warn("Truncating incomplete record at offset {} in parse cache at {}", position, path);
+            channel.truncate(position);
+        }
+        end = position;
+        log.debug("Opened parse cache at {} with {} parses", path, index.size());
+    }
+
+    private byte[] read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of parse cache at " + path);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static long writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        write(channel, header, 0);
+        return HEADER_SIZE;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static boolean matches(DepTree tree, List<String> tokens) {
+        if (tree.size() != tokens.size()) {
+            return false;
+        }
+        for (DepNode node : tree) {
+            if (!tokens.get(node.index()).equals(node.feature(FeatureType.Text))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Key key(String fingerprint, List<String> tokens) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putInt(fingerprint.length()).putString(fingerprint, StandardCharsets.UTF_8);
+        for (String token : tokens) {
+            hasher.putInt(token.length()).putString(token, StandardCharsets.UTF_8);
+        }
+        HashCode hash = hasher.hash();
+        ByteBuffer bytes = ByteBuffer.wrap(hash.asBytes());
+        return new Key(bytes.getLong(), bytes.getLong());
+    }
+
+    /**
+     * 128-bit content hash.
+     */
+    private static class Key {
+
+        private final long high;
+        private final long low;
+
+        private Key(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return high == key.high && low == key.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (low ^ (low >>> 32));
+        }
+    }
+
+    /**
+     * Location of a cached parse in the cache file.
+     */
+    private static class Entry {
+
+        private final long offset;
+        private final int length;
+
+        private Entry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+}
@@ -0,0 +1,642 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.type;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Column-oriented {@link DepTree} implementation. POS tags and dependency labels (closed sets) are stored as parallel arrays of
+ * {@link SymbolTable} IDs, word forms and lemmas (open vocabularies, which would grow a shared table without bound) as
+ * per-tree string arrays, heads and children as integer indices, and any other features in per-key columns allocated on
+ * first use. Tokens are exposed as lightweight {@link DepNode} views over these arrays, created on first access.
+ * <p>
+ * The tree structure (heads and children) is fixed once built, but features may be added or replaced as with
+ * {@link DefaultDepNode}.
+ *
+ * @author jamesgung
+ */
+@Accessors(fluent = true)
+public class ColumnarDepTree extends AbstractList<DepNode> implements DepTree {
+
+    private static final List<String> FIXED_KEYS = Arrays.asList(FeatureType.Text.name(), FeatureType.Lemma.name(),
+            FeatureType.Pos.name(), FeatureType.Dep.name());
+
+    @Getter
+    private final int index;
+    @Getter
+    private final SymbolTable symbols;
+
+    private final int size;
+    private final String[] text;
+    private final String[] lemma;
+    private final int[] pos;
+    private final int[] dep;
+    private final int[] heads;
+    private final int[] childOffsets;
+    private final int[] children;
+    private final int root;
+
+    private final Map<String, Object[]> columns = new HashMap<>();
+    private final Map<String, Object> features = new HashMap<>();
+    private final Node[] nodes;
+
+    private ColumnarDepTree(int index, SymbolTable symbols, int size,
+                            String[] text, String[] lemma, int[] pos, int[] dep, int[] heads) {
+        this.index = index;
+        this.symbols = symbols;
+        this.size = size;
+        this.text = text;
+        this.lemma = lemma;
+        this.pos = pos;
+        this.dep = dep;
+        this.heads = heads;
+        this.nodes = new Node[size];
+
+        // children stored contiguously per head, in token order
+        childOffsets = new int[size + 1];
+        int root = -1;
+        for (int i = 0; i < size; ++i) {
+            if (heads[i] < 0) {
+                root = i;
+            } else {
+                childOffsets[heads[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < size; ++i) {
+            childOffsets[i + 1] += childOffsets[i];
+        }
+        children = new int[childOffsets[size]];
+        int[] fill = Arrays.copyOf(childOffsets, size);
+        for (int i = 0; i < size; ++i) {
+            if (heads[i] >= 0) {
+                children[fill[heads[i]]++] = i;
+            }
+        }
+        this.root = root;
+    }
+
+    /**
+     * Create a columnar copy of a given dependency tree, including all token and tree features.
+     *
+     * @param tree    dependency tree
+     * @param symbols symbol table used to encode POS tags and dependency labels
+     * @return columnar dependency tree
+     */
+    public static ColumnarDepTree copyOf(DepTree tree, SymbolTable symbols) {
+        Builder builder = new Builder(symbols, tree.size());
+        for (DepNode node : tree) {
+            builder.add(node.feature(FeatureType.Text), node.feature(FeatureType.Lemma), node.feature(FeatureType.Pos),
+                    node.dep(), node.isRoot() ? -1 : node.head().index());
+        }
+        ColumnarDepTree result = builder.build(tree.index());
+        for (DepNode node : tree) {
+            for (Map.Entry<String, Object> feature : node.features().entrySet()) {
+                result.get(node.index()).addFeature(feature.getKey(), feature.getValue());
+            }
+        }
+        result.features.putAll(tree.features());
+        return result;
+    }
+
+    /**
+     * Create a columnar copy of a given dependency tree using the shared {@link SymbolTable}.
+     *
+     * @param tree dependency tree
+     * @return columnar dependency tree
+     */
+    public static ColumnarDepTree copyOf(DepTree tree) {
+        return copyOf(tree, SymbolTable.getInstance());
+    }
+
+    @Override
+    public DepNode get(int index) {
+        Node node = nodes[index];
+        if (node == null) {
+            node = new Node(index);
+            nodes[index] = node;
+        }
+        return node;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public List<DepNode> tokens() {
+        return this;
+    }
+
+    @Override
+    public DepNode root() {
+        return root < 0 ? null : get(root);
+    }
+
+    /**
+     * Return the index of the head of a given token, or -1 for the root.
+     *
+     * @param index token index
+     */
+    public int head(int index) {
+        return heads[index];
+    }
+
+    /**
+     * Return the number of children of a given token.
+     *
+     * @param index token index
+     */
+    public int childCount(int index) {
+        return childOffsets[index + 1] - childOffsets[index];
+    }
+
+    /**
+     * Return the index of the n-th child of a given token, with children in token order.
+     *
+     * @param index token index
+     * @param child child position
+     */
+    public int child(int index, int child) {
+        return children[childOffsets[index] + child];
+    }
+
+    /**
+     * Return the {@link SymbolTable} ID of a symbol feature (POS or dependency label) for a given token, or -1 if the feature is
+     * absent.
+     *
+     * @param featureType symbol feature type
+     * @param index       token index
+     */
+    public int symbolId(FeatureType featureType, int index) {
+        int[] column = column(featureType.name());
+        if (column == null) {
+            throw new IllegalArgumentException("Not a symbol feature: " + featureType);
+        }
+        return column[index];
+    }
+
+    @Override
+    public Map<String, Object> features() {
+        return features;
+    }
+
+    @Override
+    public <T> T feature(FeatureType featureType) {
+        //noinspection unchecked
+        return (T) features.get(featureType.name());
+    }
+
+    @Override
+    public <T> T feature(String feature) {
+        //noinspection unchecked
+        return (T) features.get(feature);
+    }
+
+    @Override
+    public <T> void addFeature(FeatureType featureType, T value) {
+        features.put(featureType.name(), value);
+    }
+
+    @Override
+    public <T> void addFeature(String featureKey, T value) {
+        features.put(featureKey, value);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return stream().map(Object::toString).collect(Collectors.joining("\n"));
+    }
+
+    private int[] column(String key) {
+        switch (key) {
+            case "Pos":
+                return pos;
+            case "Dep":
+                return dep;
+            default:
+                return null;
+        }
+    }
+
+    private String[] strings(String key) {
+        switch (key) {
+            case "Text":
+                return text;
+            case "Lemma":
+                return lemma;
+            default:
+                return null;
+        }
+    }
+
+    private Object value(int index, String key) {
+        String[] strings = strings(key);
+        if (strings != null) {
+            return strings[index];
+        }
+        int[] column = column(key);
+        if (column != null) {
+            return symbols.symbol(column[index]);
+        }
+        Object[] values = columns.get(key);
+        return values == null ? null : values[index];
+    }
+
+    private void value(int index, String key, Object value) {
+        String[] strings = strings(key);
+        if (strings != null) {
+            strings[index] = (String) value;
+            return;
+        }
+        int[] column = column(key);
+        if (column != null) {
+            column[index] = symbols.id((String) value);
+            return;
+        }
+        columns.computeIfAbsent(key, k -> new Object[size])[index] = value;
+    }
+
+    /**
+     * Flyweight {@link DepNode} view of a single token.
+     */
+    private class Node implements DepNode {
+
+        private final int index;
+        private List<DepNode> children;
+
+        private Node(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int index() {
+            return index;
+        }
+
+        @Override
+        public boolean isRoot() {
+            return heads[index] < 0;
+        }
+
+        @Override
+        public String dep() {
+            return symbols.symbol(dep[index]);
+        }
+
+        @Override
+        public DepNode head() {
+            return heads[index] < 0 ? null : get(heads[index]);
+        }
+
+        @Override
+        public List<DepNode> children() {
+            if (children == null) {
+                children = new AbstractList<DepNode>() {
+                    @Override
+                    public DepNode get(int child) {
+                        return ColumnarDepTree.this.get(child(index, child));
+                    }
+
+                    @Override
+                    public int size() {
+                        return childCount(index);
+                    }
+                };
+            }
+            return children;
+        }
+
+        @Override
+        public Map<String, Object> features() {
+            return new NodeFeatures(index);
+        }
+
+        @Override
+        public <T> T feature(FeatureType featureType) {
+            //noinspection unchecked
+            return (T) value(index, featureType.name());
+        }
+
+        @Override
+        public <T> T feature(String feature) {
+            //noinspection unchecked
+            return (T) value(index, feature);
+        }
+
+        @Override
+        public <T> void addFeature(FeatureType featureType, T value) {
+            value(index, featureType.name(), value);
+        }
+
+        @Override
+        public <T> void addFeature(String featureKey, T value) {
+            value(index, featureKey, value);
+        }
+
+        @Override
+        public String toString() {
+            Object text = feature(FeatureType.Text);
+            if (null != text) {
+                return text.toString();
+            }
+            return index + "\t" + features().entrySet().stream()
+                    .sorted(Comparator.comparing(Map.Entry::getKey))
+                    .map((e) -> e.getKey() + ":" + e.getValue())
+                    .collect(Collectors.joining("\t"));
+        }
+    }
+
+    /**
+     * Map view of the features of a single token, reading and writing through to the columns of this tree. Removing a feature
+     * clears its value in the corresponding column.
+     */
+    private class NodeFeatures extends AbstractMap<String, Object> {
+
+        private final int index;
+
+        private NodeFeatures(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return key instanceof String ? value(index, (String) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            Object previous = value(index, key);
+            value(index, key, value);
+            return previous;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            Object previous = value(index, (String) key);
+            if (previous != null) {
+                value(index, (String) key, null);
+            }
+            return previous;
+        }
+
+        private Map<String, Object> snapshot() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (String key : FIXED_KEYS) {
+                Object value = value(index, key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+            for (Map.Entry<String, Object[]> column : columns.entrySet()) {
+                if (column.getValue()[index] != null) {
+                    result.put(column.getKey(), column.getValue()[index]);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Object>> snapshot = snapshot().entrySet().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+                        private String last;
+
+                        @Override
+                        public boolean hasNext() {
+                            return snapshot.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            Entry<String, Object> entry = snapshot.next();
+                            last = entry.getKey();
+                            return new NodeFeatureEntry(last, entry.getValue());
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == null) {
+                                throw new IllegalStateException();
+                            }
+                            NodeFeatures.this.remove(last);
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (String key : FIXED_KEYS) {
+                        if (value(index, key) != null) {
+                            ++size;
+                        }
+                    }
+                    for (Object[] column : columns.values()) {
+                        if (column[index] != null) {
+                            ++size;
+                        }
+                    }
+                    return size;
+                }
+            };
+        }
+
+        /**
+         * Map entry writing values through to the columns of this tree.
+         */
+        private class NodeFeatureEntry extends AbstractMap.SimpleEntry<String, Object> {
+
+            private static final long serialVersionUID = 1L;
+
+            private NodeFeatureEntry(String key, Object value) {
+                super(key, value);
+            }
+
+            @Override
+            public Object setValue(Object value) {
+                put(getKey(), value);
+                return super.setValue(value);
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link ColumnarDepTree ColumnarDepTrees}, adding tokens in order.
+     */
+    public static class Builder {
+
+        private final SymbolTable symbols;
+        private int size;
+        private int[] ids;
+        private String[] text;
+        private String[] lemma;
+        private int[] pos;
+        private int[] dep;
+        private int[] heads;
+
+        /**
+         * Initialize a builder with a given symbol table and expected number of tokens.
+         *
+         * @param symbols  symbol table used to encode POS tags and dependency labels
+         * @param capacity initial token capacity
+         */
+        public Builder(SymbolTable symbols, int capacity) {
+            this.symbols = symbols;
+            capacity = Math.max(capacity, 1);
+            ids = new int[capacity];
+            text = new String[capacity];
+            lemma = new String[capacity];
+            pos = new int[capacity];
+            dep = new int[capacity];
+            heads = new int[capacity];
+        }
+
+        public Builder() {
+            this(SymbolTable.getInstance(), 32);
+        }
+
+        /**
+         * Add a token with an ID equal to its position in the tree.
+         *
+         * @param text  word form
+         * @param lemma lemma
+         * @param pos   part-of-speech tag
+         * @param dep   dependency label
+         * @param head  position of the head token, or -1 for the root
+         * @return this builder
+         */
+        public Builder add(String text, String lemma, String pos, String dep, int head) {
+            return add(size, text, lemma, pos, dep, head);
+        }
+
+        /**
+         * Add a token with an explicit ID, as in a CoNLL index column, referred to by the heads of other tokens.
+         *
+         * @param id    token ID
+         * @param text  word form
+         * @param lemma lemma
+         * @param pos   part-of-speech tag
+         * @param dep   dependency label
+         * @param head  ID of the head token, or a negative value for the root
+         * @return this builder
+         */
+        public Builder add(int id, String text, String lemma, String pos, String dep, int head) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                this.text = Arrays.copyOf(this.text, capacity);
+                this.lemma = Arrays.copyOf(this.lemma, capacity);
+                this.pos = Arrays.copyOf(this.pos, capacity);
+                this.dep = Arrays.copyOf(this.dep, capacity);
+                heads = Arrays.copyOf(heads, capacity);
+            }
+            ids[size] = id;
+            this.text[size] = text;
+            this.lemma[size] = lemma;
+            this.pos[size] = symbols.id(pos);
+            this.dep[size] = symbols.id(dep);
+            heads[size] = head;
+            ++size;
+            return this;
+        }
+
+        /**
+         * Return the number of tokens added so far.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Build a tree from the tokens added so far, resolving head IDs to token positions.
+         *
+         * @param index index of the tree
+         * @return columnar dependency tree
+         */
+        public ColumnarDepTree build(int index) {
+            int[] resolved = new int[size];
+            boolean sequential = true;
+            for (int i = 0; i < size && sequential; ++i) {
+                sequential = ids[i] == i;
+            }
+            Map<Integer, Integer> positions = null;
+            if (!sequential) {
+                positions = new HashMap<>();
+                for (int i = 0; i < size; ++i) {
+                    positions.put(ids[i], i);
+                }
+            }
+            for (int i = 0; i < size; ++i) {
+                int head = heads[i];
+                if (head < 0) {
+                    resolved[i] = -1;
+                } else if (positions == null) {
+                    if (head >= size) {
+                        throw new IllegalArgumentException("Missing head " + head + " for token " + ids[i]);
+                    }
+                    resolved[i] = head;
+                } else {
+                    Integer position = positions.get(head);
+                    if (position == null) {
+                        throw new IllegalArgumentException("Missing head " + head + " for token " + ids[i]);
+                    }
+                    resolved[i] = position;
+                }
+            }
+            return new ColumnarDepTree(index, symbols, size, Arrays.copyOf(text, size), Arrays.copyOf(lemma, size),
+                    Arrays.copyOf(pos, size), Arrays.copyOf(dep, size), resolved);
+        }
+    }
+
+}
@@ -43,7 +43,7 @@ public class DefaultDepNode implements DepNode {
     private List<DepNode> children;
 
     public DefaultDepNode(int index) {
-        this.nlpToken = new DefaultNlpInstance(index);
+        this.nlpToken = new SlottedNlpInstance(index);
         children = new ArrayList<>();
     }
 
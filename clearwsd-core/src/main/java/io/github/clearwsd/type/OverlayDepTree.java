@@ -0,0 +1,375 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.type;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Copy-on-write view of a {@link DepTree}. Features read through this view fall back to the base tree, while features added
+ * through it are stored only in the overlay, leaving the base tree unchanged. This allows a single parse to be annotated by
+ * several models (possibly concurrently), each with its own overlay, without copying the tree. Features of the base tree
+ * removed through this view are hidden in the overlay. The base tree must not be modified while overlays are in use.
+ *
+ * @author jamesgung
+ */
+@Accessors(fluent = true)
+public class OverlayDepTree extends AbstractList<DepNode> implements DepTree {
+
+    /**
+     * Overlay value of features removed through this view, hiding the corresponding base features.
+     */
+    private static final Object REMOVED = new Object();
+
+    @Getter
+    private final DepTree base;
+    private final OverlayDepNode[] nodes;
+    private Map<String, Object> features;
+
+    /**
+     * Initialize an empty overlay over a given base tree.
+     *
+     * @param base base dependency tree
+     */
+    public OverlayDepTree(DepTree base) {
+        this.base = base;
+        this.nodes = new OverlayDepNode[base.size()];
+    }
+
+    @Override
+    public DepNode get(int index) {
+        OverlayDepNode node = nodes[index];
+        if (node == null) {
+            node = new OverlayDepNode(base.get(index));
+            nodes[index] = node;
+        }
+        return node;
+    }
+
+    @Override
+    public int size() {
+        return nodes.length;
+    }
+
+    @Override
+    public List<DepNode> tokens() {
+        return this;
+    }
+
+    @Override
+    public DepNode root() {
+        DepNode root = base.root();
+        return root == null ? null : get(root.index());
+    }
+
+    @Override
+    public int index() {
+        return base.index();
+    }
+
+    @Override
+    public Map<String, Object> features() {
+        if (features == null) {
+            features = new HashMap<>();
+        }
+        return new OverlayMap(base.features(), features);
+    }
+
+    @Override
+    public <T> T feature(FeatureType featureType) {
+        return feature(featureType.name());
+    }
+
+    @Override
+    public <T> T feature(String feature) {
+        if (features != null && features.containsKey(feature)) {
+            Object value = features.get(feature);
+            //noinspection unchecked
+            return value == REMOVED ? null : (T) value;
+        }
+        return base.feature(feature);
+    }
+
+    @Override
+    public <T> void addFeature(FeatureType featureType, T value) {
+        addFeature(featureType.name(), value);
+    }
+
+    @Override
+    public <T> void addFeature(String featureKey, T value) {
+        if (features == null) {
+            features = new HashMap<>();
+        }
+        features.put(featureKey, value);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+        return stream().map(Object::toString).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Copy-on-write view of a single {@link DepNode}. Heads and children are views in the same overlay.
+     */
+    @Accessors(fluent = true)
+    public class OverlayDepNode implements DepNode {
+
+        @Getter
+        private final DepNode base;
+        private Map<String, Object> features;
+        private List<DepNode> children;
+
+        private OverlayDepNode(DepNode base) {
+            this.base = base;
+        }
+
+        @Override
+        public int index() {
+            return base.index();
+        }
+
+        @Override
+        public boolean isRoot() {
+            return base.isRoot();
+        }
+
+        @Override
+        public String dep() {
+            return feature(FeatureType.Dep);
+        }
+
+        @Override
+        public DepNode head() {
+            DepNode head = base.head();
+            return head == null ? null : get(head.index());
+        }
+
+        @Override
+        public List<DepNode> children() {
+            if (children == null) {
+                List<DepNode> baseChildren = base.children();
+                children = new AbstractList<DepNode>() {
+                    @Override
+                    public DepNode get(int index) {
+                        return OverlayDepTree.this.get(baseChildren.get(index).index());
+                    }
+
+                    @Override
+                    public int size() {
+                        return baseChildren.size();
+                    }
+                };
+            }
+            return children;
+        }
+
+        @Override
+        public Map<String, Object> features() {
+            if (features == null) {
+                features = new HashMap<>();
+            }
+            return new OverlayMap(base.features(), features);
+        }
+
+        @Override
+        public <T> T feature(FeatureType featureType) {
+            return feature(featureType.name());
+        }
+
+        @Override
+        public <T> T feature(String feature) {
+            if (features != null && features.containsKey(feature)) {
+                Object value = features.get(feature);
+                //noinspection unchecked
+                return value == REMOVED ? null : (T) value;
+            }
+            return base.feature(feature);
+        }
+
+        @Override
+        public <T> void addFeature(FeatureType featureType, T value) {
+            addFeature(featureType.name(), value);
+        }
+
+        @Override
+        public <T> void addFeature(String featureKey, T value) {
+            if (features == null) {
+                features = new HashMap<>();
+            }
+            features.put(featureKey, value);
+        }
+
+        @Override
+        public String toString() {
+            Object text = feature(FeatureType.Text);
+            return text == null ? base.toString() : text.toString();
+        }
+    }
+
+    /**
+     * Map view reading through to base features, writing only to overlay features. Removed base features are recorded in the
+     * overlay, so that they are hidden from this view.
+     */
+    private static class OverlayMap extends AbstractMap<String, Object> {
+
+        private final Map<String, Object> base;
+        private final Map<String, Object> overlay;
+
+        private OverlayMap(Map<String, Object> base, Map<String, Object> overlay) {
+            this.base = base;
+            this.overlay = overlay;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (overlay.containsKey(key)) {
+                Object value = overlay.get(key);
+                return value == REMOVED ? null : value;
+            }
+            return base.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (overlay.containsKey(key)) {
+                return overlay.get(key) != REMOVED;
+            }
+            return base.containsKey(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            Object previous = get(key);
+            overlay.put(key, value);
+            return previous;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            Object previous = get(key);
+            if (base.containsKey(key)) {
+                overlay.put((String) key, REMOVED);
+            } else {
+                overlay.remove(key);
+            }
+            return previous;
+        }
+
+        private Map<String, Object> snapshot() {
+            Map<String, Object> result = new LinkedHashMap<>(base);
+            for (Entry<String, Object> entry : overlay.entrySet()) {
+                if (entry.getValue() == REMOVED) {
+                    result.remove(entry.getKey());
+                } else {
+                    result.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Object>> snapshot = snapshot().entrySet().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+                        private String last;
+
+                        @Override
+                        public boolean hasNext() {
+                            return snapshot.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            Entry<String, Object> entry = snapshot.next();
+                            last = entry.getKey();
+                            return new OverlayEntry(last, entry.getValue());
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == null) {
+                                throw new IllegalStateException();
+                            }
+                            OverlayMap.this.remove(last);
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = base.size();
+                    for (Entry<String, Object> entry : overlay.entrySet()) {
+                        boolean inBase = base.containsKey(entry.getKey());
+                        if (entry.getValue() == REMOVED) {
+                            size -= inBase ? 1 : 0;
+                        } else if (!inBase) {
+                            ++size;
+                        }
+                    }
+                    return size;
+                }
+            };
+        }
+
+        /**
+         * Map entry writing values through to the overlay.
+         */
+        private class OverlayEntry extends AbstractMap.SimpleEntry<String, Object> {
+
+            private static final long serialVersionUID = 1L;
+
+            private OverlayEntry(String key, Object value) {
+                super(key, value);
+            }
+
+            @Override
+            public Object setValue(Object value) {
+                put(getKey(), value);
+                return super.setValue(value);
+            }
+        }
+    }
+
+}
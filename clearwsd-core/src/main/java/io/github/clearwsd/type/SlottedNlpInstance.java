@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.type;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * {@link NlpInstance} implementation storing {@link FeatureType} features in an array indexed by ordinal, avoiding string
+ * hashing on the most frequent lookups. Features with other keys (e.g. resource or cluster keys) are kept in a small map
+ * allocated on first use. Behaves like {@link DefaultNlpInstance}: {@code feature("Lemma")} and
+ * {@code feature(FeatureType.Lemma)} refer to the same feature, and {@link #features()} is a modifiable view of all features.
+ *
+ * @author jamesgung
+ */
+@Accessors(fluent = true)
+public class SlottedNlpInstance implements NlpInstance {
+
+    private static final FeatureType[] TYPES = FeatureType.values();
+    private static final Map<String, FeatureType> TYPES_BY_NAME = new HashMap<>();
+
+    static {
+        for (FeatureType type : TYPES) {
+            TYPES_BY_NAME.put(type.name(), type);
+        }
+    }
+
+    @Getter
+    @Setter
+    private int index;
+    private final Object[] slots = new Object[TYPES.length];
+    private Map<String, Object> dynamic;
+
+    public SlottedNlpInstance(int index) {
+        this.index = index;
+    }
+
+    @Override
+    public Map<String, Object> features() {
+        return new FeatureMap();
+    }
+
+    @Override
+    public <T> T feature(FeatureType featureType) {
+        //noinspection unchecked
+        return (T) slots[featureType.ordinal()];
+    }
+
+    @Override
+    public <T> T feature(String feature) {
+        // string keys are mostly dynamic (resource) features, which never share names with feature types
+        if (dynamic != null) {
+            Object value = dynamic.get(feature);
+            if (value != null) {
+                //noinspection unchecked
+                return (T) value;
+            }
+        }
+        FeatureType type = TYPES_BY_NAME.get(feature);
+        //noinspection unchecked
+        return type == null ? null : (T) slots[type.ordinal()];
+    }
+
+    @Override
+    public <T> void addFeature(FeatureType featureType, T value) {
+        slots[featureType.ordinal()] = value;
+    }
+
+    @Override
+    public <T> void addFeature(String featureKey, T value) {
+        put(featureKey, value);
+    }
+
+    private Object put(String key, Object value) {
+        FeatureType type = TYPES_BY_NAME.get(key);
+        if (type != null) {
+            Object previous = slots[type.ordinal()];
+            slots[type.ordinal()] = value;
+            return previous;
+        }
+        if (dynamic == null) {
+            dynamic = new HashMap<>(8);
+        }
+        return dynamic.put(key, value);
+    }
+
+    private Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (FeatureType type : TYPES) {
+            if (slots[type.ordinal()] != null) {
+                result.put(type.name(), slots[type.ordinal()]);
+            }
+        }
+        if (dynamic != null) {
+            result.putAll(dynamic);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        Object feat = feature(FeatureType.Text);
+        if (null != feat) {
+            return feat.toString();
+        }
+        return index + "\t" + snapshot().entrySet().stream()
+                .sorted(Comparator.comparing(Map.Entry::getKey))
+                .map((e) -> e.getKey() + ":" + e.getValue())
+                .collect(Collectors.joining("\t"));
+    }
+
+    /**
+     * Map view over slot and dynamic features. Null slots are treated as absent.
+     */
+    private class FeatureMap extends AbstractMap<String, Object> {
+
+        @Override
+        public Object get(Object key) {
+            return key instanceof String ? feature((String) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+            FeatureType type = TYPES_BY_NAME.get(key);
+            if (type != null) {
+                return slots[type.ordinal()] != null;
+            }
+            return dynamic != null && dynamic.containsKey(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return SlottedNlpInstance.this.put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            FeatureType type = TYPES_BY_NAME.get(key);
+            if (type != null) {
+                Object previous = slots[type.ordinal()];
+                slots[type.ordinal()] = null;
+                return previous;
+            }
+            return dynamic == null ? null : dynamic.remove(key);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Object>> snapshot = snapshot().entrySet().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+                        private String last;
+
+                        @Override
+                        public boolean hasNext() {
+                            return snapshot.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            Entry<String, Object> entry = snapshot.next();
+                            last = entry.getKey();
+                            return new FeatureEntry(last, entry.getValue());
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == null) {
+                                throw new IllegalStateException();
+                            }
+                            FeatureMap.this.remove(last);
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = dynamic == null ? 0 : dynamic.size();
+                    for (Object slot : slots) {
+                        if (slot != null) {
+                            ++size;
+                        }
+                    }
+                    return size;
+                }
+            };
+        }
+    }
+
+    /**
+     * Map entry writing values through to this instance.
+     */
+    private class FeatureEntry extends AbstractMap.SimpleEntry<String, Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private FeatureEntry(String key, Object value) {
+            super(key, value);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.type;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe table assigning dense integer IDs to strings, such as word forms, lemmas, POS tags and dependency labels.
+ * Lookups of existing symbols are lock-free; only the first occurrence of a symbol is synchronized.
+ * <p>
+ * Readers and parsers intern closed-class annotations (POS tags and dependency labels) through the
+ * {@link #getInstance() shared table}, so that large corpora hold a single copy of each, and interned values can be compared
+ * by identity or by {@link #id(String) symbol ID}. Open vocabularies such as word forms and lemmas should not be added to the
+ * shared table, which never shrinks.
+ *
+ * @author jamesgung
+ */
+public class SymbolTable {
+
+    private static final SymbolTable INSTANCE = new SymbolTable();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] symbols = new String[1024];
+    private volatile int size;
+
+    /**
+     * Return the shared symbol table.
+     */
+    public static SymbolTable getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Return the ID of a given symbol, adding it to this table if not already present.
+     *
+     * @param symbol symbol string
+     * @return symbol ID, or -1 if the symbol is null
+     */
+    public int id(String symbol) {
+        if (symbol == null) {
+            return -1;
+        }
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        return add(symbol);
+    }
+
+    /**
+     * Return the ID of a given symbol without adding it to this table.
+     *
+     * @param symbol symbol string
+     * @return symbol ID, or -1 if the symbol is null or not in this table
+     */
+    public int lookup(String symbol) {
+        if (symbol == null) {
+            return -1;
+        }
+        Integer id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Return the canonical instance of a given string, adding it to this table if not already present.
+     *
+     * @param symbol symbol string
+     * @return shared string equal to the input symbol
+     */
+    public String intern(String symbol) {
+        return symbol(id(symbol));
+    }
+
+    /**
+     * Return the symbol for a given ID.
+     *
+     * @param id symbol ID
+     * @return symbol string, or null if the ID is negative
+     */
+    public String symbol(int id) {
+        if (id < 0) {
+            return null;
+        }
+        return symbols[id];
+    }
+
+    /**
+     * Return the number of symbols in this table.
+     */
+    public int size() {
+        return size;
+    }
+
+    private synchronized int add(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        String[] current = symbols;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[size] = symbol;
+        symbols = current;
+        ids.put(symbol, size);
+        return size++;
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.utils;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compiled, read-optimized view of a {@link SenseInventory}. Candidate senses and default senses are computed once per lemma
+ * (eagerly for every lemma in {@link SenseInventory#lemmas()}, and on first query otherwise), so that subsequent queries are
+ * answered by a single hash lookup without allocation. Sense IDs are interned and assigned integer label indices. Lemmas
+ * without senses in the underlying inventory are not memoized, so queries for unknown words do not grow this view.
+ * <p>
+ * Adding a sense through this view updates the underlying inventory and recompiles the affected lemma on its next query.
+ *
+ * @param <T> sense type
+ * @author jamesgung
+ */
+@Slf4j
+@Accessors(fluent = true)
+public class CompiledSenseInventory<T> implements SenseInventory<T> {
+
+    /**
+     * Compiled senses for a single lemma.
+     */
+    private static final class Entry {
+        private final ImmutableSet<String> senses;
+        private final int[] labels;
+        private final String defaultSense;
+
+        private Entry(ImmutableSet<String> senses, int[] labels, String defaultSense) {
+            this.senses = senses;
+            this.labels = labels;
+            this.defaultSense = defaultSense;
+        }
+    }
+
+    @Getter
+    private final SenseInventory<T> inventory;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Integer> labelIndices = new ConcurrentHashMap<>();
+    private final List<String> labels = new ArrayList<>();
+    private final Map<String, T> senseObjects = new ConcurrentHashMap<>();
+
+    /**
+     * Compile a view over a given sense inventory.
+     *
+     * @param inventory base sense inventory
+     */
+    public CompiledSenseInventory(SenseInventory<T> inventory) {
+        this.inventory = inventory;
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        for (String lemma : inventory.lemmas()) {
+            entry(lemma);
+        }
+        log.debug("Compiled sense inventory with {} lemmas and {} senses ({})", entries.size(), labels.size(), stopwatch);
+    }
+
+    @Override
+    public Set<String> senses(String lemma) {
+        return entry(lemma).senses;
+    }
+
+    @Override
+    public String defaultSense(String lemma) {
+        return entry(lemma).defaultSense;
+    }
+
+    @Override
+    public boolean hasSense(String lemma, String sense) {
+        return entry(lemma).senses.contains(sense);
+    }
+
+    @Override
+    public void addSense(String lemma, String sense) {
+        inventory.addSense(lemma, sense);
+        entries.remove(lemma);
+    }
+
+    @Override
+    public T getSense(String id) {
+        T sense = senseObjects.get(id);
+        if (sense == null) {
+            sense = inventory.getSense(id);
+            if (sense != null) {
+                senseObjects.put(id, sense);
+            }
+        }
+        return sense;
+    }
+
+    @Override
+    public Set<String> lemmas() {
+        return inventory.lemmas();
+    }
+
+    /**
+     * Return the label indices of the candidate senses for a given lemma, in the iteration order of
+     * {@link #senses(String)}. The returned array is shared and must not be modified.
+     *
+     * @param lemma word base form
+     * @return label indices of candidate senses
+     */
+    public int[] labels(String lemma) {
+        return entry(lemma).labels;
+    }
+
+    /**
+     * Return the label index of a given sense ID, or -1 if the sense has not been compiled.
+     *
+     * @param sense sense ID
+     */
+    public int labelIndex(String sense) {
+        return labelIndices.getOrDefault(sense, -1);
+    }
+
+    /**
+     * Return the sense ID associated with a given label index.
+     *
+     * @param index label index
+     */
+    public synchronized String label(int index) {
+        return labels.get(index);
+    }
+
+    private Entry entry(String lemma) {
+        Entry entry = entries.get(lemma);
+        if (entry == null) {
+            entry = compile(lemma);
+            if (!entry.senses.isEmpty()) {
+                entries.put(lemma, entry);
+            }
+        }
+        return entry;
+    }
+
+    private Entry compile(String lemma) {
+        ImmutableSet.Builder<String> senses = ImmutableSet.builder();
+        for (String sense : inventory.senses(lemma)) {
+            senses.add(intern(sense));
+        }
+        ImmutableSet<String> result = senses.build();
+        int[] indices = new int[result.size()];
+        int index = 0;
+        for (String sense : result) {
+            indices[index++] = labelIndices.get(sense);
+        }
+        String defaultSense = inventory.defaultSense(lemma);
+        if (defaultSense != null && !result.isEmpty()) {
+            defaultSense = intern(defaultSense);
+        }
+        return new Entry(result, indices, defaultSense);
+    }
+
+    private synchronized String intern(String sense) {
+        Integer index = labelIndices.get(sense);
+        if (index != null) {
+            return labels.get(index);
+        }
+        labelIndices.put(sense, labels.size());
+        labels.add(sense);
+        return sense;
+    }
+
+}
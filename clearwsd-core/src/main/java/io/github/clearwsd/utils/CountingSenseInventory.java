@@ -57,6 +57,11 @@ public class CountingSenseInventory implements SenseInventory<String>, Serializa
         current.merge(sense, 1, (old, one) -> old + one);
     }
 
+    @Override
+    public Set<String> lemmas() {
+        return inventoryMap.keySet();
+    }
+
     @Override
     public String getSense(String id) {
         return id;
@@ -16,13 +16,26 @@
 
 package io.github.clearwsd.utils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import io.github.clearwsd.corpus.ontonotes.OntoNotesInventory;
 import io.github.clearwsd.corpus.ontonotes.OntoNotesSense;
@@ -43,15 +56,113 @@ public class OntoNotesSenseInventory implements SenseInventory<OntoNotesSense>,
 
     private static final long serialVersionUID = 3267895989039842451L;
 
+    private static final short STREAM_MAGIC = (short) 0xACED; // compiled inventories are Java serialization streams
+
     private Map<String, OntoNotesInventory> inventoryMap = new HashMap<>();
 
     /**
-     * Initialize OntoNotes sense inventory from {@link Path} to directory containing inventory XML files.
+     * Initialize OntoNotes sense inventory from {@link Path} to directory containing inventory XML files, a single inventory XML
+     * file, or a compiled inventory file (see {@link #compile(Path, Path, int)}).
      *
      * @param path sense inventories path
      */
     public OntoNotesSenseInventory(Path path) {
-        inventoryMap = OntoNotesSenseInventoryFactory.readInventories(path);
+        if (Files.isDirectory(path)) {
+            inventoryMap = OntoNotesSenseInventoryFactory.readInventories(path);
+        } else if (compiled(path)) {
+            inventoryMap = readCompiled(path);
+        } else {
+            OntoNotesInventory inventory = OntoNotesSenseInventoryFactory.readInventory(path);
+            inventoryMap.put(inventory.getLemma(), inventory);
+        }
+    }
+
+    /**
+     * Read inventory XML files at a given directory and save them to a single compiled inventory file, which can be loaded
+     * directly with {@link #OntoNotesSenseInventory(Path)} without parsing XML.
+     *
+     * @param directory inventory XML directory
+     * @param output    compiled inventory output path
+     * @param threads   number of threads used to read inventories (if less than 1, the number of available processors)
+     * @return compiled sense inventory
+     */
+    public static OntoNotesSenseInventory compile(Path directory, Path output, int threads) {
+        OntoNotesSenseInventory inventory = new OntoNotesSenseInventory();
+        inventory.inventoryMap = OntoNotesSenseInventoryFactory.readInventories(directory, ".xml", threads);
+        inventory.save(output);
+        return inventory;
+    }
+
+    /**
+     * Load a compiled inventory from a given cache path, (re-)compiling it from the inventory XML files at a given directory if
+     * the cache does not exist or is older than any of the inventory files.
+     *
+     * @param directory inventory XML directory
+     * @param cache     compiled inventory path
+     * @return sense inventory
+     */
+    public static OntoNotesSenseInventory cached(Path directory, Path cache) {
+        try {
+            if (Files.exists(cache)) {
+                FileTime compiled = Files.getLastModifiedTime(cache);
+                boolean stale;
+                try (Stream<Path> files = Files.walk(directory)) {
+                    stale = files.anyMatch(file -> {
+                        try {
+                            return Files.getLastModifiedTime(file).compareTo(compiled) > 0;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+                if (!stale) {
+                    return new OntoNotesSenseInventory(cache);
+                }
+                log.info("Sense inventories at {} have changed since compiling {}", directory, cache);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException("Unable to check compiled sense inventories at " + cache, e);
+        }
+        log.info("Compiling sense inventories at {} to {}", directory, cache);
+        return compile(directory, cache, 0);
+    }
+
+    /**
+     * Save this inventory to a compiled inventory file.
+     *
+     * @param path output path
+     */
+    public void save(Path path) {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            outputStream.writeObject(new LinkedHashMap<>(inventoryMap));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write compiled sense inventory to " + path, e);
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write compiled sense inventory to " + path, e);
+        }
+    }
+
+    private static boolean compiled(Path path) {
+        try (DataInputStream inputStream = new DataInputStream(Files.newInputStream(path))) {
+            return inputStream.readShort() == STREAM_MAGIC;
+        } catch (EOFException e) {
+            return false;
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read sense inventory at " + path, e);
+        }
+    }
+
+    private static Map<String, OntoNotesInventory> readCompiled(Path path) {
+        try (ObjectInputStream inputStream = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            //noinspection unchecked
+            return (Map<String, OntoNotesInventory>) inputStream.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new RuntimeException("Unable to read compiled sense inventory at " + path, e);
+        }
     }
 
     @Override
@@ -76,6 +187,11 @@ public class OntoNotesSenseInventory implements SenseInventory<OntoNotesSense>,
                 .map(sense -> id(inventory.getLemma(), sense.getNumber())).orElse(DEFAULT_SENSE);
     }
 
+    @Override
+    public Set<String> lemmas() {
+        return inventoryMap.keySet();
+    }
+
     @Override
     public void addSense(String lemma, String sense) {
         OntoNotesInventory inventory = inventoryMap.get(lemma);
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.utils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Iterator applying a function to the elements of a source iterator in a pool of worker threads, returning results in source
+ * order. A reader thread pulls batches of elements from the source, each worker applies its own function (obtained once per
+ * worker from a factory, e.g. to give each worker its own parser), and results are reordered on the consuming thread. Stages
+ * are connected by bounded queues, and the reader may only run a fixed number of batches ahead of the oldest batch not yet
+ * consumed, so only a few batches are in memory at a time regardless of the size of the source.
+ * <p>
+ * Work starts on the first call to {@link #hasNext()}. The source iterator is only accessed by the reader thread. Errors in
+ * any stage are rethrown on the consuming thread. Iterators that are not read to the end should be {@link #close() closed}.
+ *
+ * @author jamesgung
+ */
+public class OrderedParallelIterator<I, O> implements Iterator<O>, AutoCloseable {
+
+    private static final int DEFAULT_BATCH_SIZE = 32;
+
+    private final Iterator<I> source;
+    private final Supplier<Function<I, O>> workerFactory;
+    private final int threads;
+    private final int batchSize;
+
+    private BlockingQueue<Batch<I, O>> input;
+    private BlockingQueue<Batch<I, O>> output;
+    private Semaphore window;
+    private ExecutorService executor;
+    private final Map<Long, Batch<I, O>> pending = new HashMap<>();
+    private Iterator<O> current = Collections.emptyIterator();
+    private long next;
+    private int finished;
+
+    /**
+     * Initialize an iterator with a given batch size.
+     *
+     * @param source        source iterator
+     * @param workerFactory supplier of functions, called once per worker thread
+     * @param threads       number of worker threads (if less than 1, the number of available processors)
+     * @param batchSize     number of consecutive elements processed together by a single worker
+     */
+    public OrderedParallelIterator(Iterator<I> source, Supplier<Function<I, O>> workerFactory, int threads, int batchSize) {
+        this.source = source;
+        this.workerFactory = workerFactory;
+        this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public OrderedParallelIterator(Iterator<I> source, Supplier<Function<I, O>> workerFactory, int threads) {
+        this(source, workerFactory, threads, DEFAULT_BATCH_SIZE);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (executor == null) {
+            start();
+        }
+        try {
+            while (!current.hasNext()) {
+                Batch<I, O> batch = pending.remove(next);
+                if (batch != null) {
+                    current = batch.results.iterator();
+                    ++next;
+                    window.release();
+                    continue;
+                }
+                if (finished == threads) {
+                    executor.shutdown();
+                    return false;
+                }
+                batch = output.take();
+                if (batch.error != null) {
+                    close();
+                    throw new RuntimeException("Error while processing: " + batch.error.getMessage(), batch.error);
+                }
+                if (batch == Batch.END) {
+                    ++finished;
+                    continue;
+                }
+                pending.put(batch.index, batch);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while processing.", e);
+        }
+    }
+
+    @Override
+    public O next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Stop all reader and worker threads, discarding any remaining results.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        finished = threads;
+        pending.clear();
+        current = Collections.emptyIterator();
+    }
+
+    private void start() {
+        input = new ArrayBlockingQueue<>(2 * threads);
+        output = new ArrayBlockingQueue<>(4 * threads);
+        // limits how far the reader can run ahead of the consumer, bounding batches held out of order in pending
+        window = new Semaphore(4 * threads);
+        executor = Executors.newFixedThreadPool(threads + 1, new ThreadFactoryBuilder()
+                .setNameFormat("ordered-parallel-%d")
+                .setDaemon(true)
+                .build());
+        executor.submit(this::read);
+        for (int i = 0; i < threads; ++i) {
+            executor.submit(this::work);
+        }
+    }
+
+    private void read() {
+        try {
+            long index = 0;
+            List<I> elements = new ArrayList<>(batchSize);
+            while (source.hasNext()) {
+                elements.add(source.next());
+                if (elements.size() >= batchSize) {
+                    window.acquire();
+                    input.put(new Batch<>(index++, elements));
+                    elements = new ArrayList<>(batchSize);
+                }
+            }
+            if (elements.size() > 0) {
+                window.acquire();
+                input.put(new Batch<>(index, elements));
+            }
+            for (int i = 0; i < threads; ++i) {
+                //noinspection unchecked
+                input.put((Batch<I, O>) Batch.END);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    private void work() {
+        try {
+            Function<I, O> function = workerFactory.get();
+            Batch<I, O> batch;
+            while ((batch = input.take()) != Batch.END) {
+                batch.results = new ArrayList<>(batch.elements.size());
+                for (I element : batch.elements) {
+                    batch.results.add(function.apply(element));
+                }
+                output.put(batch);
+            }
+            //noinspection unchecked
+            output.put((Batch<I, O>) Batch.END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    private void fail(Throwable error) {
+        try {
+            output.put(Batch.error(error));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Consecutive elements processed together by a single worker.
+     */
+    private static class Batch<I, O> {
+
+        private static final Batch<?, ?> END = new Batch<>(-1, null);
+
+        private final long index;
+        private final List<I> elements;
+        private List<O> results;
+        private Throwable error;
+
+        private Batch(long index, List<I> elements) {
+            this.index = index;
+            this.elements = elements;
+        }
+
+        private static <I, O> Batch<I, O> error(Throwable error) {
+            Batch<I, O> batch = new Batch<>(-1, null);
+            batch.error = error;
+            return batch;
+        }
+    }
+
+}
@@ -16,6 +16,7 @@
 
 package io.github.clearwsd.utils;
 
+import java.util.Collections;
 import java.util.Set;
 
 /**
@@ -53,6 +54,14 @@ public interface SenseInventory<T> {
         return senses(lemma).contains(sense);
     }
 
+    /**
+     * Return the lemmas known to this sense inventory, used to precompute lookups (e.g. by {@link CompiledSenseInventory}).
+     * Inventories that cannot enumerate their lemmas cheaply may return an empty set.
+     */
+    default Set<String> lemmas() {
+        return Collections.emptySet();
+    }
+
     /**
      * Add a sense to the sense inventory.
      *
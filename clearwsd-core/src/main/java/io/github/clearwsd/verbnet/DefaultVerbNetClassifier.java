@@ -24,7 +24,6 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -39,16 +38,15 @@ import io.github.clearwsd.classifier.Hyperparameter;
 import io.github.clearwsd.classifier.MultiClassifier;
 import io.github.clearwsd.classifier.PaClassifier;
 import io.github.clearwsd.classifier.SparseClassifier;
-import io.github.clearwsd.feature.annotator.AggregateAnnotator;
-import io.github.clearwsd.feature.annotator.Annotator;
-import io.github.clearwsd.feature.annotator.DepNodeListAnnotator;
-import io.github.clearwsd.feature.annotator.ListAnnotator;
+import io.github.clearwsd.feature.annotator.FusedResourceAnnotator;
 import io.github.clearwsd.feature.context.DepChildrenContextFactory;
 import io.github.clearwsd.feature.context.DepContextFactory;
+import io.github.clearwsd.feature.extractor.Extractors;
 import io.github.clearwsd.feature.extractor.StringExtractor;
 import io.github.clearwsd.feature.extractor.StringListExtractor;
 import io.github.clearwsd.feature.extractor.string.LowercaseFunction;
 import io.github.clearwsd.feature.function.AggregateFeatureFunction;
+import io.github.clearwsd.feature.function.ConjunctionFunction;
 import io.github.clearwsd.feature.function.FeatureFunction;
 import io.github.clearwsd.feature.pipeline.AnnotatingClassifier;
 import io.github.clearwsd.feature.pipeline.DefaultFeaturePipeline;
@@ -73,7 +71,6 @@ import static io.github.clearwsd.feature.context.Contexts.window;
 import static io.github.clearwsd.feature.extractor.Extractors.concat;
 import static io.github.clearwsd.feature.extractor.Extractors.form;
 import static io.github.clearwsd.feature.extractor.Extractors.lemma;
-import static io.github.clearwsd.feature.extractor.Extractors.listLookup;
 import static io.github.clearwsd.feature.extractor.Extractors.lookup;
 import static io.github.clearwsd.feature.extractor.Extractors.lowerForm;
 import static io.github.clearwsd.feature.extractor.Extractors.lowerLemma;
@@ -106,11 +103,24 @@ public class DefaultVerbNetClassifier implements Classifier<NlpFocus<DepNode, De
     private Set<String> includedRels = Sets.newHashSet("dobj", "obj");
     private Set<String> excludedRels = Sets.newHashSet("punct");
     private Set<Integer> offsets = Sets.newHashSet(-2, -1, 1, 2);
+    private boolean hashConjunctions;
 
     private AnnotatingClassifier<NlpFocus<DepNode, DepTree>> classifier;
+    private FusedResourceAnnotator<DepNode, NlpFocus<DepNode, DepTree>> annotator;
     private FeatureResourceManager resources;
 
     public DefaultVerbNetClassifier() {
+        this(false);
+    }
+
+    /**
+     * Initialize a classifier, optionally {@link ConjunctionFunction#hashed(boolean) hashing} conjunction features. Hashing
+     * avoids building a string per conjoined pair, but hashed features have no readable names in the trained vocabulary.
+     *
+     * @param hashConjunctions if true, hash conjunctions instead of building their strings
+     */
+    public DefaultVerbNetClassifier(boolean hashConjunctions) {
+        this.hashConjunctions = hashConjunctions;
         resources = initializeResources();
         resources.initialize();
         classifier = initialize();
@@ -123,7 +133,8 @@ public class DefaultVerbNetClassifier implements Classifier<NlpFocus<DepNode, De
                 (i) -> i.focus().feature(FeatureType.Predicate),
                 (Serializable & Supplier<Classifier<NlpFocus<DepNode, DepTree>, String>>)
                         () -> new NlpClassifier<>(initializeClassifier(), initializeFeatures()));
-        return new AnnotatingClassifier<>(multiClassifier, initializeAnnotator());
+        annotator = initializeAnnotator();
+        return new AnnotatingClassifier<>(multiClassifier, annotator);
     }
 
     @Override
@@ -156,8 +167,11 @@ public class DefaultVerbNetClassifier implements Classifier<NlpFocus<DepNode, De
         try {
             //noinspection unchecked
             classifier = (AnnotatingClassifier<NlpFocus<DepNode, DepTree>>) inputStream.readObject();
-            resources = (FeatureResourceManager) inputStream.readObject();
-            resources.initialize();
+            FeatureResourceManager loaded = (FeatureResourceManager) inputStream.readObject();
+            loaded.initialize();
+            // release default resources only after loading, so that identical shared resources are not re-initialized
+            resources.release();
+            resources = loaded;
         } catch (IOException | ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
@@ -186,15 +200,17 @@ public class DefaultVerbNetClassifier implements Classifier<NlpFocus<DepNode, De
         return resources;
     }
 
-    private Annotator<NlpFocus<DepNode, DepTree>> initializeAnnotator() {
-        List<Annotator<NlpFocus<DepNode, DepTree>>> annotators = new ArrayList<>();
+    private FusedResourceAnnotator<DepNode, NlpFocus<DepNode, DepTree>> initializeAnnotator() {
+        // resource features are only extracted from direct objects, so resolve them lazily instead of annotating every token
+        FusedResourceAnnotator<DepNode, NlpFocus<DepNode, DepTree>> annotator
+                = new FusedResourceAnnotator<>(new DepChildrenContextFactory(includedRels));
         for (String cluster : clusters) {
-            annotators.add(new ListAnnotator<>(cluster, lowerForm()));
+            annotator.addLookup(cluster, lowerForm());
         }
-        annotators.add(new ListAnnotator<>(BWC_KEY, form()));
-        annotators.add(new DepNodeListAnnotator<>(DDN_KEY, new DepChildrenContextFactory(includedRels)));
-        annotators.add(new DepNodeListAnnotator<>(WN_KEY));
-        return new AggregateAnnotator<>(annotators);
+        return annotator.addLookup(BWC_KEY, form())
+                .addLookup(DDN_KEY)
+                .addLookup(WN_KEY)
+                .lazy(true);
     }
 
     private FeaturePipeline<NlpFocus<DepNode, DepTree>> initializeFeatures() {
@@ -205,10 +221,10 @@ public class DefaultVerbNetClassifier implements Classifier<NlpFocus<DepNode, De
 
         // semantic extractors applied only to arguments
         List<StringListExtractor<DepNode>> filteredDepExtractors = newArrayList(
-                listLookup(new HashSet<>(clusters)),
-                listLookup(BWC_KEY),
-                listLookup(DDN_KEY),
-                listLookup(WN_KEY));
+                Extractors.<DepNode>listLookup(new HashSet<>(clusters)).resolver(annotator),
+                Extractors.<DepNode>listLookup(BWC_KEY).resolver(annotator),
+                Extractors.<DepNode>listLookup(DDN_KEY).resolver(annotator),
+                Extractors.<DepNode>listLookup(WN_KEY).resolver(annotator));
 
         DepContextFactory depContexts = excludingDeps(excludedRels);
 
@@ -218,7 +234,7 @@ public class DefaultVerbNetClassifier implements Classifier<NlpFocus<DepNode, De
         DepContextFactory objects = depPath(paths);
 
         List<FeatureFunction<NlpFocus<DepNode, DepTree>>> features = Arrays.asList(
-                cross(function(depContexts, concat(pos, dep))),
+                cross(function(depContexts, concat(pos, dep))).hashed(hashConjunctions),
                 function(window(offsets), Arrays.asList(lemma, pos)),
                 function(depContexts, concat(dep, Arrays.asList(lemma, pos))),
                 function(depContexts, dep),
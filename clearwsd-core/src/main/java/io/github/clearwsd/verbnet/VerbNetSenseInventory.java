@@ -29,6 +29,7 @@ import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -115,6 +116,19 @@ public class VerbNetSenseInventory implements SenseInventory<VnClass>, Serializa
         return countingSenseInventory.defaultSense(lemma);
     }
 
+    @Override
+    public Set<String> lemmas() {
+        Set<String> lemmas = new HashSet<>(countingSenseInventory.lemmas());
+        for (VnClass root : verbnet.roots()) {
+            for (VnClass cls : root.descendants(true)) {
+                for (VnMember member : cls.members()) {
+                    lemmas.add(member.name());
+                }
+            }
+        }
+        return lemmas;
+    }
+
     @Override
     public void addSense(String lemma, String sense) {
         countingSenseInventory.addSense(lemma, sense);
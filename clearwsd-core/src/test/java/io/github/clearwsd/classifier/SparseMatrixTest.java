@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.classifier;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * {@link SparseMatrix} tests.
+ *
+ * @author jamesgung
+ */
+public class SparseMatrixTest {
+
+    @Test
+    public void testBuilder() {
+        SparseMatrix matrix = new SparseMatrix.Builder(1, 2)
+                .addIndex(4).addIndex(1).addIndex(4).addRow(10, 0)
+                .addRow(11, 1)
+                .addIndex(2).addRow(12, 0)
+                .build();
+        assertEquals(3, matrix.rows());
+        assertEquals(5, matrix.columns());
+        assertNull(matrix.vals());
+        assertTrue(Arrays.equals(new int[]{0, 2, 2, 3}, matrix.rowPtr()));
+        assertTrue(Arrays.equals(new int[]{1, 4, 2}, matrix.cols()));
+        assertTrue(Arrays.equals(new int[]{0, 1, 0}, matrix.labels()));
+
+        SparseInstance row = matrix.row(2);
+        assertEquals(12, row.id());
+        assertTrue(row.binary());
+        assertTrue(Arrays.equals(new int[]{2}, row.indices()));
+    }
+
+    @Test
+    public void testValues() {
+        List<SparseInstance> instances = new ArrayList<>();
+        instances.add(new DefaultSparseInstance(0, 1, new SparseVectorBuilder().addIndex(3).build()));
+        instances.add(new DefaultSparseInstance(1, 0, new SparseVectorBuilder().addValue(2, 0.5f).addIndex(0).build()));
+        SparseMatrix matrix = SparseMatrix.of(instances);
+        assertTrue(Arrays.equals(new int[]{3, 0, 2}, matrix.cols()));
+        assertTrue(Arrays.equals(new float[]{1, 1, 0.5f}, matrix.vals()));
+        assertTrue(Arrays.equals(new float[]{1, 0.5f}, matrix.instances().get(1).data()));
+        assertEquals(1f, matrix.l2(0));
+    }
+
+    @Test
+    public void testPaTrainFromMatrix() {
+        for (boolean binary : new boolean[]{true, false}) {
+            List<SparseInstance> train = trainingData(binary);
+            PaClassifier classifier = new PaClassifier();
+            classifier.multithread(false);
+            classifier.train(new ArrayList<>(train), new ArrayList<>());
+
+            // compare against per-instance training, as done before instances were packed into a matrix
+            Map<Integer, float[]> expected = referencePa(new ArrayList<>(train));
+            for (SparseInstance instance : train) {
+                Map<Integer, Double> scores = classifier.score(instance);
+                assertEquals(expected.size(), scores.size());
+                for (Map.Entry<Integer, float[]> weights : expected.entrySet()) {
+                    assertEquals(referenceScore(instance, weights.getValue()), scores.get(weights.getKey()), 1e-4);
+                }
+            }
+        }
+    }
+
+    private static List<SparseInstance> trainingData(boolean binary) {
+        Random random = new Random(0);
+        List<SparseInstance> train = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            int label = random.nextInt(3);
+            SparseVectorBuilder builder = new SparseVectorBuilder().addIndex(label);
+            for (int j = 0; j < 5; ++j) {
+                if (binary) {
+                    builder.addIndex(3 + random.nextInt(20));
+                } else {
+                    builder.addValue(3 + random.nextInt(20), 0.5f + random.nextFloat());
+                }
+            }
+            train.add(new DefaultSparseInstance(i, label, builder.build()));
+        }
+        return train;
+    }
+
+    /**
+     * Averaged passive-aggressive training with default hyperparameters over individual sparse vectors.
+     */
+    private static Map<Integer, float[]> referencePa(List<SparseInstance> train) {
+        float aggressiveness = 0.0025f;
+        int epochs = 999;
+        int patience = 10;
+        int features = train.stream().mapToInt(i -> Arrays.stream(i.indices()).max().orElse(0)).max().orElse(0) + 1;
+        Map<Integer, float[]> parameters = new TreeMap<>();
+        Map<Integer, float[]> cached = new TreeMap<>();
+        for (SparseInstance instance : train) {
+            parameters.computeIfAbsent(instance.target(), k -> new float[features]);
+            cached.computeIfAbsent(instance.target(), k -> new float[features]);
+        }
+        Random random = new Random(0);
+        int count = 1;
+        int min = Integer.MAX_VALUE;
+        int epochsNoChange = 0;
+        for (int epoch = 0; epoch < epochs && epochsNoChange < patience; ++epoch) {
+            Collections.shuffle(train, random);
+            int incorrect = 0;
+            for (SparseInstance instance : train) {
+                float correctScore = referenceScore(instance, parameters.get(instance.target()));
+                int maxLabel = -1;
+                float maxScore = 0;
+                for (Map.Entry<Integer, float[]> weights : parameters.entrySet()) {
+                    float score = referenceScore(instance, weights.getValue());
+                    if (weights.getKey() != instance.target() && (maxLabel < 0 || score > maxScore)) {
+                        maxLabel = weights.getKey();
+                        maxScore = score;
+                    }
+                }
+                double loss = Math.max(0, 1 - correctScore + maxScore);
+                if (loss > 0) {
+                    double norm = instance.l2();
+                    double tau = Math.min(aggressiveness, loss / (2 * norm * norm));
+                    referenceUpdate(instance, tau, parameters.get(instance.target()));
+                    referenceUpdate(instance, -tau, parameters.get(maxLabel));
+                    referenceUpdate(instance, tau * count, cached.get(instance.target()));
+                    referenceUpdate(instance, -tau * count, cached.get(maxLabel));
+                }
+                if (correctScore < maxScore) {
+                    ++incorrect;
+                }
+            }
+            if (incorrect < min) {
+                min = incorrect;
+                epochsNoChange = 0;
+                // best parameters are saved over the running sums, as in PaClassifier
+                for (Map.Entry<Integer, float[]> weights : parameters.entrySet()) {
+                    System.arraycopy(weights.getValue(), 0, cached.get(weights.getKey()), 0, features);
+                }
+            } else {
+                ++epochsNoChange;
+            }
+            ++count;
+        }
+        for (Map.Entry<Integer, float[]> weights : parameters.entrySet()) {
+            float[] params = weights.getValue();
+            float[] sums = cached.get(weights.getKey());
+            for (int i = 0; i < params.length; ++i) {
+                params[i] = (params[i] * count - sums[i]) / (count - 1);
+            }
+        }
+        return parameters;
+    }
+
+    private static float referenceScore(SparseVector vector, float[] weights) {
+        float total = 0;
+        int[] indices = vector.indices();
+        for (int i = 0; i < indices.length; ++i) {
+            total += (vector.binary() ? 1 : vector.data()[i]) * weights[indices[i]];
+        }
+        return total;
+    }
+
+    private static void referenceUpdate(SparseVector vector, double weight, float[] weights) {
+        int[] indices = vector.indices();
+        for (int i = 0; i < indices.length; ++i) {
+            weights[indices[i]] += (vector.binary() ? 1 : vector.data()[i]) * weight;
+        }
+    }
+
+}
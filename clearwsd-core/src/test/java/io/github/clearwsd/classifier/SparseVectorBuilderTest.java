@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.classifier;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * {@link SparseVectorBuilder} tests.
+ *
+ * @author jamesgung
+ */
+public class SparseVectorBuilderTest {
+
+    @Test
+    public void testBinary() {
+        SparseVectorBuilder builder = new SparseVectorBuilder(2);
+        for (int index : new int[]{7, 3, 7, 0, 12, 3}) {
+            builder.addIndex(index);
+        }
+        SparseVector vector = builder.build();
+        assertTrue(vector instanceof BinarySparseVector);
+        assertTrue(vector.binary());
+        assertTrue(Arrays.equals(new int[]{0, 3, 7, 12}, vector.indices()));
+        assertTrue(Arrays.equals(new float[]{1, 1, 1, 1}, vector.data()));
+        assertEquals(2f, vector.l2());
+    }
+
+    @Test
+    public void testValues() {
+        SparseVector vector = new SparseVectorBuilder()
+                .addIndex(5)
+                .addValue(2, 0.5f)
+                .addValue(5, 3)
+                .addIndex(1)
+                .build();
+        assertFalse(vector.binary());
+        assertTrue(Arrays.equals(new int[]{1, 2, 5}, vector.indices()));
+        assertTrue(Arrays.equals(new float[]{1, 0.5f, 3}, vector.data()));
+    }
+
+}
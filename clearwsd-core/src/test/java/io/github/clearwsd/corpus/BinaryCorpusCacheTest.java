@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.corpus;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.github.clearwsd.type.DefaultNlpFocus;
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.FeatureType;
+import io.github.clearwsd.type.NlpFocus;
+import io.github.clearwsd.type.SymbolTable;
+
+import static io.github.clearwsd.corpus.CoNllDepTreeReader.treeToString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link BinaryCorpusCache} tests.
+ *
+ * @author jamesgung
+ */
+public class BinaryCorpusCacheTest {
+
+    private static final String TEST_PATH = "src/test/resources/test.dep";
+    private static final BinaryCorpusCache.Key KEY = BinaryCorpusCache.Key.of("test", Paths.get(TEST_PATH));
+
+    @Test
+    public void testTrees() throws IOException {
+        List<DepTree> expected = new CoNllDepTreeReader().readInstances(new FileInputStream(TEST_PATH));
+        File file = File.createTempFile("trees", ".bin");
+        file.deleteOnExit();
+        BinaryCorpusCache.write(expected, file.toPath(), KEY);
+
+        BinaryCorpusCache cache = BinaryCorpusCache.open(file.toPath(), KEY);
+        assertFalse(cache.focusInstances());
+        assertEquals(expected.size(), cache.size());
+        List<DepTree> trees = cache.instances();
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(treeToString(expected.get(i)), treeToString(trees.get(i)));
+            assertEquals(expected.get(i).root().index(), trees.get(i).root().index());
+        }
+        assertEquals(treeToString(expected.get(1)), treeToString(cache.tree(1)));
+        assertSame(expected.get(0).root().dep(), trees.get(0).root().dep());
+        // word forms are not interned through the shared symbol table
+        assertEquals(-1, SymbolTable.getInstance().lookup(trees.get(0).get(0).feature(FeatureType.Text)));
+    }
+
+    @Test
+    public void testFocusInstances() throws IOException {
+        List<DepTree> trees = new CoNllDepTreeReader().readInstances(new FileInputStream(TEST_PATH));
+        List<NlpFocus<DepNode, DepTree>> expected = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            DepTree tree = trees.get(i / 2);
+            NlpFocus<DepNode, DepTree> instance = new DefaultNlpFocus<>(i, tree.get(i), tree);
+            instance.addFeature(FeatureType.Gold, "sense-" + i);
+            instance.addFeature(FeatureType.AllSenses, new HashSet<>(Arrays.asList("sense-" + i, "other-" + i)));
+            expected.add(instance);
+        }
+        File file = File.createTempFile("instances", ".bin");
+        file.deleteOnExit();
+        BinaryCorpusCache.write(expected, file.toPath(), KEY);
+
+        BinaryCorpusCache cache = BinaryCorpusCache.open(file.toPath(), KEY);
+        assertTrue(cache.focusInstances());
+        assertEquals(2, cache.treeCount());
+        List<NlpFocus<DepNode, DepTree>> instances = cache.instances();
+        assertEquals(3, instances.size());
+        assertSame(instances.get(0).sequence(), instances.get(1).sequence());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(i, instances.get(i).index());
+            assertEquals(i, instances.get(i).focus().index());
+            assertEquals("sense-" + i, instances.get(i).feature(FeatureType.Gold));
+            Set<String> senses = instances.get(i).feature(FeatureType.AllSenses);
+            assertEquals(expected.get(i).<Set<String>>feature(FeatureType.AllSenses), senses);
+            assertEquals(treeToString(expected.get(i).sequence()), treeToString(instances.get(i).sequence()));
+        }
+        NlpFocus<DepNode, DepTree> instance = cache.instance(2);
+        assertEquals("sense-2", instance.feature(FeatureType.Gold));
+    }
+
+    @Test
+    public void testKeyMismatch() throws IOException {
+        List<DepTree> trees = new CoNllDepTreeReader().readInstances(new FileInputStream(TEST_PATH));
+        File file = File.createTempFile("trees", ".bin");
+        file.deleteOnExit();
+        BinaryCorpusCache.write(trees, file.toPath(), KEY);
+        try {
+            BinaryCorpusCache.open(file.toPath(), BinaryCorpusCache.Key.of("other", Paths.get(TEST_PATH)));
+            fail("Expected cache with a different reader fingerprint to be rejected");
+        } catch (IllegalStateException ignored) {
+        }
+
+        File source = File.createTempFile("source", ".dep");
+        source.deleteOnExit();
+        Files.write(source.toPath(), "a".getBytes(StandardCharsets.UTF_8));
+        BinaryCorpusCache.Key key = BinaryCorpusCache.Key.of("test", source.toPath());
+        BinaryCorpusCache.write(trees, file.toPath(), key);
+        assertEquals(trees.size(), BinaryCorpusCache.open(file.toPath(), key).size());
+        // same modification time, but a different size
+        FileTime modified = Files.getLastModifiedTime(source.toPath());
+        Files.write(source.toPath(), "ab".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(source.toPath(), modified);
+        try {
+            BinaryCorpusCache.open(file.toPath(), BinaryCorpusCache.Key.of("test", source.toPath()));
+            fail("Expected cache of a changed source file to be rejected");
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void testUnsupportedFeature() throws IOException {
+        List<DepTree> trees = new CoNllDepTreeReader().readInstances(new FileInputStream(TEST_PATH));
+        trees.get(0).addFeature("count", 1);
+        File file = File.createTempFile("trees", ".bin");
+        file.deleteOnExit();
+        try {
+            BinaryCorpusCache.write(trees, file.toPath(), KEY);
+            fail("Expected a non-string feature value to be rejected");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+}
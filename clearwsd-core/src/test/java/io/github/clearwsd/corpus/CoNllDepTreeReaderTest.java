@@ -16,16 +16,34 @@
 
 package io.github.clearwsd.corpus;
 
+import org.junit.Assume;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+import io.github.clearwsd.type.ColumnarDepTree;
+import io.github.clearwsd.type.DepNode;
 import io.github.clearwsd.type.DepTree;
 import io.github.clearwsd.type.FeatureType;
+import io.github.clearwsd.type.SymbolTable;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * {@link CoNllDepTreeReader} tests.
@@ -44,6 +62,142 @@ public class CoNllDepTreeReaderTest {
         assertEquals(17, depTrees.get(1).size());
         assertEquals("stop", depTrees.get(0).root().feature(FeatureType.Text));
         assertEquals("calling", depTrees.get(1).root().feature(FeatureType.Text));
+        assertSame(depTrees.get(0).root().dep(), depTrees.get(1).root().dep());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testReadColumnar() throws IOException {
+        List<DepTree> expected = new CoNllDepTreeReader().readInstances(new FileInputStream(TEST_PATH));
+        List<DepTree> depTrees = new CoNllDepTreeReader().columnar(true).readInstances(new FileInputStream(TEST_PATH));
+        assertEquals(expected.size(), depTrees.size());
+        for (int i = 0; i < depTrees.size(); ++i) {
+            assertTrue(depTrees.get(i) instanceof ColumnarDepTree);
+            assertEquals(CoNllDepTreeReader.treeToString(expected.get(i)), CoNllDepTreeReader.treeToString(depTrees.get(i)));
+            assertEquals(expected.get(i).root().children().size(), depTrees.get(i).root().children().size());
+        }
+        DepNode root = depTrees.get(0).root();
+        assertNull(root.head());
+        assertSame(root, root.children().get(0).head());
+
+        root.addFeature(FeatureType.Sense, "stop.01");
+        root.addFeature(FeatureType.Lemma, "halt");
+        assertEquals("stop.01", root.feature(FeatureType.Sense.name()));
+        assertEquals("halt", root.features().get(FeatureType.Lemma.name()));
+        assertNull(depTrees.get(0).get(0).feature(FeatureType.Sense));
+    }
+
+    @Test
+    public void testColumnarFeatureViews() throws IOException {
+        DepTree tree = new CoNllDepTreeReader().columnar(true).readInstances(new FileInputStream(TEST_PATH)).get(0);
+        DepNode root = tree.root();
+        root.addFeature(FeatureType.Sense, "stop.01");
+        Map<String, Object> features = root.features();
+        assertEquals(5, features.size());
+
+        assertEquals("stop", features.remove(FeatureType.Lemma.name()));
+        assertNull(root.feature(FeatureType.Lemma));
+        assertFalse(root.features().containsKey(FeatureType.Lemma.name()));
+        root.features().keySet().remove(FeatureType.Pos.name());
+        assertNull(root.feature(FeatureType.Pos));
+        assertEquals(-1, ((ColumnarDepTree) tree).symbolId(FeatureType.Pos, root.index()));
+        root.features().entrySet().removeIf(entry -> entry.getKey().equals(FeatureType.Sense.name()));
+        assertNull(root.feature(FeatureType.Sense));
+        assertEquals(2, root.features().size());
+
+        for (Map.Entry<String, Object> entry : root.features().entrySet()) {
+            if (entry.getKey().equals(FeatureType.Dep.name())) {
+                entry.setValue("dep");
+            }
+        }
+        assertEquals("dep", root.feature(FeatureType.Dep));
+
+        root.features().clear();
+        assertTrue(root.features().isEmpty());
+        assertNull(root.feature(FeatureType.Text));
+        // other tokens are unaffected
+        assertEquals(tree.get(1).feature(FeatureType.Lemma), tree.get(1).features().get(FeatureType.Lemma.name()));
+        assertEquals(4, tree.get(1).features().size());
+    }
+
+    @Test
+    public void testReadPath() throws IOException {
+        List<DepTree> expected = new CoNllDepTreeReader().readInstances(new FileInputStream(TEST_PATH));
+        List<DepTree> depTrees = new CoNllDepTreeReader().readInstances(Paths.get(TEST_PATH));
+        assertEquals(expected.size(), depTrees.size());
+        for (int i = 0; i < depTrees.size(); ++i) {
+            assertEquals(i, depTrees.get(i).index());
+            assertEquals(CoNllDepTreeReader.treeToString(expected.get(i)), CoNllDepTreeReader.treeToString(depTrees.get(i)));
+            assertEquals(expected.get(i).root().index(), depTrees.get(i).root().index());
+            assertEquals(expected.get(i).root().children().size(), depTrees.get(i).root().children().size());
+        }
+    }
+
+    @Test
+    public void testReadPathChunks() throws IOException {
+        // enough trees to span several chunks, with Windows line endings
+        List<DepTree> trees = new CoNllDepTreeReader().readInstances(new FileInputStream(TEST_PATH));
+        List<DepTree> expected = new ArrayList<>();
+        for (int i = 0; i < 40000; ++i) {
+            expected.add(trees.get(i % trees.size()));
+        }
+        Path path = Files.createTempFile("trees", ".dep");
+        path.toFile().deleteOnExit();
+        StringBuilder text = new StringBuilder();
+        for (DepTree tree : expected) {
+            text.append("# header\r\n").append(CoNllDepTreeReader.treeToString(tree).replace("\n", "\r\n")).append("\r\n\r\n");
+        }
+        Files.write(path, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<DepTree> depTrees = new CoNllDepTreeReader().columnar(true).readInstances(path);
+        assertEquals(expected.size(), depTrees.size());
+        for (int i = 0; i < depTrees.size(); i += 997) {
+            assertEquals(i, depTrees.get(i).index());
+            assertEquals(CoNllDepTreeReader.treeToString(expected.get(i)), CoNllDepTreeReader.treeToString(depTrees.get(i)));
+        }
+    }
+
+    @Test
+    public void testReadPathReleasesFile() throws IOException {
+        Path fds = Paths.get("/proc/self/fd");
+        Assume.assumeTrue(Files.isDirectory(fds));
+        Path path = Files.createTempFile("trees", ".dep");
+        path.toFile().deleteOnExit();
+        Files.write(path, "0\tword\tword\tNN\troot\t-1\n\n0\tbad\tbad\tNN\troot\tx\n\n".getBytes(StandardCharsets.UTF_8));
+
+        Iterator<DepTree> iterator = new CoNllDepTreeReader().instanceIterator(path);
+        try {
+            iterator.next();
+            fail("Expected malformed tree to fail.");
+        } catch (RuntimeException e) {
+            assertFalse(isOpen(fds, path));
+        }
+    }
+
+    private static boolean isOpen(Path fds, Path path) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(fds)) {
+            for (Path fd : stream) {
+                try {
+                    if (Files.readSymbolicLink(fd).equals(path.toRealPath())) {
+                        return true;
+                    }
+                } catch (IOException e) {
+                    // descriptor closed while listing
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testColumnarWordsNotShared() throws IOException {
+        String word = "unseen" + System.nanoTime();
+        String tree = "0\t" + word + "\t" + word + "\tNN\troot\t-1\t\n";
+        List<DepTree> depTrees = new CoNllDepTreeReader().columnar(true)
+                .readInstances(new ByteArrayInputStream(tree.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(word, depTrees.get(0).get(0).feature(FeatureType.Text));
+        assertEquals(word, depTrees.get(0).get(0).feature(FeatureType.Lemma));
+        assertEquals(-1, SymbolTable.getInstance().lookup(word));
+        assertTrue(SymbolTable.getInstance().lookup("NN") >= 0);
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.corpus;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import io.github.clearwsd.corpus.semlink.SemlinkWriter;
+import io.github.clearwsd.corpus.semlink.VerbNetReader;
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.FeatureType;
+import io.github.clearwsd.type.NlpFocus;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link CoNllWriter} tests.
+ *
+ * @author jamesgung
+ */
+public class CoNllWriterTest {
+
+    private static final String TEST_PATH = "src/test/resources/test.dep";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMatchesTreeToString() throws IOException {
+        List<DepTree> trees = new CoNllDepTreeReader().readInstances(new FileInputStream(TEST_PATH));
+        DepTree tree = trees.get(0);
+        tree.get(0).addFeature(FeatureType.Text, "Ünïcödé 😀");
+        tree.get(1).addFeature(FeatureType.Sense, "stop.01");
+        tree.get(1).addFeature(FeatureType.Gold, "stop.02");
+        tree.get(2).addFeature(FeatureType.Gold, -42);
+
+        StringBuilder expected = new StringBuilder();
+        for (DepTree depTree : trees) {
+            expected.append(CoNllDepTreeReader.treeToString(depTree, "Sense", "Gold")).append("\n\n");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // small buffer to exercise draining in the middle of multi-byte characters
+        try (CoNllWriter writer = new CoNllWriter(Channels.newChannel(bytes), 16)) {
+            trees.forEach(t -> writer.writeTree(t, "Sense", "Gold"));
+        }
+        assertEquals(expected.toString(), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWriteDependencyTrees() throws IOException {
+        List<DepTree> trees = new CoNllDepTreeReader().readInstances(new FileInputStream(TEST_PATH));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CoNllDepTreeReader.writeDependencyTrees(trees, bytes);
+        String expected = trees.stream().map(t -> CoNllDepTreeReader.treeToString(t) + "\n\n").collect(Collectors.joining());
+        assertEquals(expected, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+
+        List<DepTree> read = new CoNllDepTreeReader().readInstances(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(trees.size(), read.size());
+        for (int i = 0; i < trees.size(); ++i) {
+            assertEquals(CoNllDepTreeReader.treeToString(trees.get(i)), CoNllDepTreeReader.treeToString(read.get(i)));
+        }
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        List<DepTree> trees = new CoNllDepTreeReader().readInstances(new FileInputStream(TEST_PATH));
+        Path path = folder.getRoot().toPath().resolve("trees.dep.gz");
+        try (CoNllWriter writer = CoNllWriter.open(path)) {
+            trees.forEach(writer::writeTree);
+        }
+        try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(path))) {
+            List<DepTree> read = new CoNllDepTreeReader().readInstances(inputStream);
+            assertEquals(trees.size(), read.size());
+            assertEquals(CoNllDepTreeReader.treeToString(trees.get(1)), CoNllDepTreeReader.treeToString(read.get(1)));
+        }
+    }
+
+    @Test
+    public void testSemlinkWriterRoundTrip() throws IOException {
+        List<DepTree> trees = new CoNllDepTreeReader().readInstances(new FileInputStream(TEST_PATH));
+        trees.get(0).root().addFeature(FeatureType.Predicate, "stop");
+        trees.get(0).root().addFeature(FeatureType.Sense, "55.4");
+        trees.get(1).root().addFeature(FeatureType.Predicate, "call");
+        trees.get(1).root().addFeature(FeatureType.Sense, "29.3");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SemlinkWriter writer = new SemlinkWriter(new CoNllWriter(bytes), false)) {
+            trees.forEach(writer::writeTree);
+        }
+        List<NlpFocus<DepNode, DepTree>> instances = new VerbNetReader()
+                .readInstances(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(2, instances.size());
+        assertEquals("55.4", instances.get(0).feature(FeatureType.Gold));
+        assertEquals("call", instances.get(1).focus().feature(FeatureType.Predicate));
+        assertEquals(trees.get(1).root().index(), instances.get(1).focus().index());
+
+        bytes = new ByteArrayOutputStream();
+        try (SemlinkWriter writer = new SemlinkWriter(new CoNllWriter(bytes), true)) {
+            trees.forEach(writer::writeTree);
+        }
+        String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(String.format("1 1 %d call null", trees.get(1).root().index()), lines[1].split("\t")[0]);
+    }
+
+}
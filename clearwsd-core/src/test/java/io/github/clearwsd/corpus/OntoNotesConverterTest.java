@@ -16,14 +16,22 @@
 
 package io.github.clearwsd.corpus;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import io.github.clearwsd.corpus.OntoNotesConverter.TreebankTreeNode;
+import io.github.clearwsd.corpus.semlink.VerbNetReader.VerbNetInstance;
+import lombok.AllArgsConstructor;
+import lombok.Value;
 
 import static org.junit.Assert.assertEquals;
 
@@ -37,6 +45,31 @@ public class OntoNotesConverterTest {
     private static final String PTB_TEST = "src/test/resources/ptb_test.txt";
     private static final String TOKENIZED = "src/test/resources/ptb_test.tokenized.txt";
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGetInstances() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        for (String name : new String[]{"b", "a", "c"}) {
+            Path subdirectory = Files.createDirectories(directory.resolve(name));
+            Files.write(subdirectory.resolve(name + ".parse"),
+                    ("(TOP (S (NP (NN " + name + ")) (VP (VBD ran))))\n\n(TOP (S (VP (VB stop))))\n").getBytes());
+            Files.write(subdirectory.resolve(name + ".sense"),
+                    (name + " 0 1 run-v 1\n" + name + " 1 0 stop-v 1.0 2\n" + name + " 1 0 stop-n 1\n").getBytes());
+        }
+        Files.write(directory.resolve("d.parse"), "(TOP (NN missing))\n".getBytes()); // no sense file
+
+        List<VerbInstanceKey> keys = new OntoNotesConverter().threads(2).getInstances(directory).stream()
+                .map(VerbInstanceKey::new)
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(
+                new VerbInstanceKey("a", 0, "run-v", "1", "a ran"), new VerbInstanceKey("a", 1, "stop-v", "2", "stop"),
+                new VerbInstanceKey("b", 0, "run-v", "1", "b ran"), new VerbInstanceKey("b", 1, "stop-v", "2", "stop"),
+                new VerbInstanceKey("c", 0, "run-v", "1", "c ran"), new VerbInstanceKey("c", 1, "stop-v", "2", "stop")),
+                keys);
+    }
+
     @Test
     public void testParse() throws IOException {
         String input = new String(Files.readAllBytes(Paths.get(PTB_TEST)));
@@ -49,4 +82,18 @@ public class OntoNotesConverterTest {
         assertEquals(expected, result);
     }
 
-}
\ No newline at end of file
+    @Value
+    @AllArgsConstructor
+    private static class VerbInstanceKey {
+        String path;
+        int sentence;
+        String lemma;
+        String label;
+        String text;
+
+        VerbInstanceKey(VerbNetInstance instance) {
+            this(instance.path(), instance.sentence(), instance.lemma(), instance.label(), instance.originalText());
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.corpus;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import io.github.clearwsd.parser.NlpParser;
+import io.github.clearwsd.type.DefaultDepNode;
+import io.github.clearwsd.type.DefaultDepTree;
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.FeatureType;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+
+/**
+ * {@link TextCorpusReader} tests.
+ *
+ * @author jamesgung
+ */
+public class TextCorpusReaderTest {
+
+    private static final String TEXT = IntStream.range(0, 500)
+            .mapToObj(i -> "sentence number " + i + " . another one " + i + " .")
+            .collect(Collectors.joining("\n\n"));
+
+    @Test
+    public void testPipelinedOrder() {
+        List<DepTree> sequential = new TextCorpusReader(new FlatParser()).readInstances(input());
+        List<DepTree> pipelined = new TextCorpusReader(FlatParser::new, 4).readInstances(input());
+        assertEquals(1000, pipelined.size());
+        assertEquals(text(sequential), text(pipelined));
+    }
+
+    @Test
+    public void testPipelinedWrite() {
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        new TextCorpusReader(new FlatParser()).parseAndWrite(input(), sequential, 100);
+        ByteArrayOutputStream pipelined = new ByteArrayOutputStream();
+        new TextCorpusReader(FlatParser::new, 3).parseAndWrite(input(), pipelined, 100);
+        assertEquals(sequential.toString(), pipelined.toString());
+    }
+
+    @Test(timeout = 10000)
+    public void testPipelinedError() {
+        try {
+            new TextCorpusReader(() -> new FlatParser() {
+                @Override
+                public DepTree parse(List<String> tokens) {
+                    if (tokens.contains("250")) {
+                        throw new AssertionError("failed on " + tokens);
+                    }
+                    return super.parse(tokens);
+                }
+            }, 3).readInstances(input());
+            fail("Expected parser error to be rethrown");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+    }
+
+    private static ByteArrayInputStream input() {
+        return new ByteArrayInputStream(TEXT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> text(List<DepTree> trees) {
+        return trees.stream()
+                .map(tree -> tree.tokens().stream().map(t -> (String) t.feature(FeatureType.Text))
+                        .collect(Collectors.joining(" ")))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Parser splitting sentences at periods, and attaching every token to the first token.
+     */
+    private static class FlatParser implements NlpParser {
+
+        @Override
+        public List<String> segment(String input) {
+            return Arrays.stream(input.split("(?<=\\.)\\s+")).map(String::trim).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<String> tokenize(String sentence) {
+            return Arrays.asList(sentence.split("\\s+"));
+        }
+
+        @Override
+        public DepTree parse(List<String> tokens) {
+            DefaultDepNode root = null;
+            List<DepNode> nodes = new ArrayList<>();
+            for (String token : tokens) {
+                DefaultDepNode node = new DefaultDepNode(nodes.size());
+                node.addFeature(FeatureType.Text, token);
+                node.addFeature(FeatureType.Lemma, token);
+                node.addFeature(FeatureType.Pos, "NN");
+                if (root == null) {
+                    root = node;
+                    node.addFeature(FeatureType.Dep, "root");
+                } else {
+                    node.head(root);
+                    node.addFeature(FeatureType.Dep, "dep");
+                }
+                nodes.add(node);
+            }
+            return new DefaultDepTree(0, nodes, root);
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.corpus.semeval;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.FeatureType;
+import io.github.clearwsd.type.NlpFocus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link SemevalReader} tests.
+ *
+ * @author jamesgung
+ */
+public class SemevalReaderTest {
+
+    private static final Path FDS = Paths.get("/proc/self/fd");
+
+    private static final String CORPUS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<corpus lang=\"en\" source=\"test\">\n"
+            + "<text id=\"d000\">\n"
+            + "<sentence id=\"d000.s000\">\n"
+            + "<wf lemma=\"the\" pos=\"DET\">The</wf>\n"
+            + "<instance id=\"d000.s000.t000\" lemma=\"dog\" pos=\"NOUN\">dog</instance>\n"
+            + "<instance id=\"d000.s000.t001\" lemma=\"bark\" pos=\"VERB\">barked</instance>\n"
+            + "</sentence>\n"
+            + "<sentence id=\"d000.s001\">\n"
+            + "<instance id=\"d000.s001.t000\" lemma=\"run\" pos=\"VERB\">Run</instance>\n"
+            + "<wf lemma=\"!\" pos=\".\">!</wf>\n"
+            + "</sentence>\n"
+            + "</text>\n"
+            + "</corpus>\n";
+
+    private static final String KEYS = "d000.s000.t000 dog%1:05:00:: dog%1:18:01::\n"
+            + "d000.s001.t000 run%2:38:00::\n"
+            + "d000.s000.t001 bark%2:32:00::\n";
+
+    private static File keys() throws IOException {
+        File file = File.createTempFile("semeval", ".key");
+        file.deleteOnExit();
+        Files.write(file.toPath(), KEYS.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<NlpFocus<DepNode, DepTree>> read(SemevalReader reader, String xml) {
+        return reader.readInstances(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        List<NlpFocus<DepNode, DepTree>> instances = read(new SemevalReader(keys().getPath()), CORPUS);
+        assertEquals(3, instances.size());
+        NlpFocus<DepNode, DepTree> dog = instances.get(0);
+        assertEquals(0, dog.index());
+        assertEquals("dog", dog.focus().feature(FeatureType.Text));
+        assertEquals("NOUN", dog.focus().feature(FeatureType.GoldPos));
+        assertEquals("dog%1:05:00::", dog.feature(FeatureType.Gold));
+        assertEquals(2, dog.<Set<String>>feature(FeatureType.AllSenses).size());
+        assertEquals("d000.s000", dog.sequence().feature(FeatureType.Id));
+        assertSame(dog.sequence(), instances.get(1).sequence());
+        assertEquals("bark%2:32:00::", instances.get(1).feature(FeatureType.Gold));
+        assertEquals(1, instances.get(2).sequence().index());
+        assertEquals("run%2:38:00::", instances.get(2).feature(FeatureType.Gold));
+    }
+
+    @Test
+    public void testIncludePos() throws IOException {
+        SemevalReader reader = new SemevalReader(keys().getPath());
+        reader.setIncludePos(new HashSet<>(Arrays.asList("VERB")));
+        List<NlpFocus<DepNode, DepTree>> instances = read(reader, CORPUS);
+        assertEquals(2, instances.size());
+        assertEquals("barked", instances.get(0).focus().feature(FeatureType.Text));
+        assertEquals(1, instances.get(1).index());
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        SemevalReader reader = new SemevalReader(keys().getPath());
+        List<NlpFocus<DepNode, DepTree>> instances = read(reader, CORPUS);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        reader.writeInstances(instances, outputStream);
+
+        List<NlpFocus<DepNode, DepTree>> result = read(reader, new String(outputStream.toByteArray(),
+                StandardCharsets.UTF_8));
+        assertEquals(instances.size(), result.size());
+        for (int i = 0; i < instances.size(); ++i) {
+            NlpFocus<DepNode, DepTree> expected = instances.get(i);
+            NlpFocus<DepNode, DepTree> actual = result.get(i);
+            assertEquals(expected.focus().index(), actual.focus().index());
+            assertEquals(expected.<String>feature(FeatureType.Gold), actual.feature(FeatureType.Gold));
+            assertEquals(expected.sequence().<String>feature(FeatureType.Id), actual.sequence().feature(FeatureType.Id));
+            assertEquals(expected.sequence().size(), actual.sequence().size());
+            for (int j = 0; j < expected.sequence().size(); ++j) {
+                DepNode expectedToken = expected.sequence().get(j);
+                DepNode actualToken = actual.sequence().get(j);
+                assertEquals(expectedToken.<String>feature(FeatureType.Text), actualToken.feature(FeatureType.Text));
+                assertEquals(expectedToken.<String>feature(FeatureType.GoldLemma),
+                        actualToken.feature(FeatureType.GoldLemma));
+            }
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testMissingKey() throws IOException {
+        read(new SemevalReader(keys().getPath()), CORPUS.replace("d000.s001.t000", "d000.s001.t999"));
+    }
+
+    @Test
+    public void testMissingKeyClosesKeys() throws IOException {
+        Assume.assumeTrue(Files.isDirectory(FDS));
+        File keys = keys();
+        for (SemevalReader reader : Arrays.asList(new SemevalReader(keys.getPath()), new ThreadedReader(keys.getPath()))) {
+            try {
+                read(reader, CORPUS.replace("d000.s001.t000", "d000.s001.t999"));
+                fail("Expected missing key to fail.");
+            } catch (RuntimeException e) {
+                assertFalse(isOpen(keys.toPath()));
+            }
+        }
+    }
+
+    @Test
+    public void testCloseAbandoned() throws Exception {
+        Assume.assumeTrue(Files.isDirectory(FDS));
+        File keys = keys();
+        Iterator<NlpFocus<DepNode, DepTree>> iterator = new SemevalReader(keys.getPath())
+                .instanceIterator(new ByteArrayInputStream(CORPUS.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("dog", iterator.next().focus().feature(FeatureType.Text));
+        assertTrue(isOpen(keys.toPath()));
+        ((AutoCloseable) iterator).close();
+        assertFalse(isOpen(keys.toPath()));
+        assertFalse(iterator.hasNext());
+    }
+
+    private static boolean isOpen(Path path) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(FDS)) {
+            for (Path fd : stream) {
+                try {
+                    if (Files.readSymbolicLink(fd).equals(path.toRealPath())) {
+                        return true;
+                    }
+                } catch (IOException e) {
+                    // descriptor closed while listing
+                }
+            }
+        }
+        return false;
+    }
+
+    private static class ThreadedReader extends SemevalReader {
+
+        ThreadedReader(String keyPath) {
+            super(keyPath);
+        }
+
+        @Override
+        protected int threads() {
+            return 2;
+        }
+    }
+
+}
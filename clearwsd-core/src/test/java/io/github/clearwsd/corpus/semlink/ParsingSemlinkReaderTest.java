@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.corpus.semlink;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import io.github.clearwsd.parser.NlpParser;
+import io.github.clearwsd.parser.WhitespaceTokenizer;
+import io.github.clearwsd.type.DefaultDepNode;
+import io.github.clearwsd.type.DefaultDepTree;
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.FeatureType;
+import io.github.clearwsd.type.NlpFocus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * {@link ParsingSemlinkReader} tests.
+ *
+ * @author jamesgung
+ */
+public class ParsingSemlinkReaderTest {
+
+    private static final String ANNOTATIONS = IntStream.range(0, 300)
+            .mapToObj(i -> String.format("path %d 1 run run-%d\tthey run home %d", i, i % 7, i % 50))
+            .collect(Collectors.joining("\n"));
+
+    @Test
+    public void testParallelOrder() {
+        List<NlpFocus<DepNode, DepTree>> sequential = new ParsingSemlinkReader(new FlatParser()).readInstances(input());
+        List<NlpFocus<DepNode, DepTree>> parallel = new ParsingSemlinkReader(FlatParser::new, new WhitespaceTokenizer(), 4)
+                .readInstances(input());
+        assertEquals(300, parallel.size());
+        for (int i = 0; i < sequential.size(); ++i) {
+            assertEquals(i, parallel.get(i).index());
+            assertEquals(sequential.get(i).<String>feature(FeatureType.Gold), parallel.get(i).feature(FeatureType.Gold));
+            assertEquals(sequential.get(i).<String>feature(FeatureType.Metadata),
+                    parallel.get(i).feature(FeatureType.Metadata));
+            assertEquals(text(sequential.get(i).sequence()), text(parallel.get(i).sequence()));
+        }
+    }
+
+    @Test
+    public void testParseCache() {
+        AtomicInteger parses = new AtomicInteger();
+        List<NlpFocus<DepNode, DepTree>> instances = new ParsingSemlinkReader(() -> new FlatParser(parses),
+                new WhitespaceTokenizer(), 3).readInstances(input(), Collections.singleton("run"));
+        assertEquals(300, instances.size());
+        assertEquals(50, parses.get());
+        assertSame(instances.get(0).sequence(), instances.get(50).sequence());
+    }
+
+    private static ByteArrayInputStream input() {
+        return new ByteArrayInputStream(ANNOTATIONS.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(DepTree tree) {
+        return tree.tokens().stream().map(t -> (String) t.feature(FeatureType.Text)).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Parser attaching every token to the first token.
+     */
+    private static class FlatParser implements NlpParser {
+
+        private final AtomicInteger parses;
+
+        private FlatParser(AtomicInteger parses) {
+            this.parses = parses;
+        }
+
+        private FlatParser() {
+            this(new AtomicInteger());
+        }
+
+        @Override
+        public List<String> segment(String input) {
+            return Collections.singletonList(input);
+        }
+
+        @Override
+        public List<String> tokenize(String sentence) {
+            return Arrays.asList(sentence.split("\\s+"));
+        }
+
+        @Override
+        public DepTree parse(List<String> tokens) {
+            parses.incrementAndGet();
+            DefaultDepNode root = null;
+            List<DepNode> nodes = new ArrayList<>();
+            for (String token : tokens) {
+                DefaultDepNode node = new DefaultDepNode(nodes.size());
+                node.addFeature(FeatureType.Text, token);
+                node.addFeature(FeatureType.Lemma, token);
+                node.addFeature(FeatureType.Dep, root == null ? "root" : "dep");
+                if (root == null) {
+                    root = node;
+                } else {
+                    node.head(root);
+                }
+                nodes.add(node);
+            }
+            return new DefaultDepTree(0, nodes, root);
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.annotator;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.util.Collections;
+
+import io.github.clearwsd.feature.TestInstanceBuilder;
+import io.github.clearwsd.feature.context.DepChildrenContextFactory;
+import io.github.clearwsd.feature.extractor.ListLookupFeatureExtractor;
+import io.github.clearwsd.feature.resource.DefaultFeatureResourceManager;
+import io.github.clearwsd.feature.resource.DefaultTsvResourceInitializer;
+import io.github.clearwsd.feature.resource.FeatureResourceManager;
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.NlpFocus;
+
+import static io.github.clearwsd.feature.extractor.Extractors.form;
+import static io.github.clearwsd.feature.extractor.Extractors.lowerForm;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+
+/**
+ * @author jamesgung
+ */
+public class FusedResourceAnnotatorTest {
+
+    private NlpFocus<DepNode, DepTree> getTestInstance() {
+        return new TestInstanceBuilder("the Fox jumped over the fence", 2)
+                .addHead(0, 1, "det")
+                .addHead(1, 2, "nsubj")
+                .addHead(3, 5, "prep")
+                .addHead(4, 5, "det")
+                .addHead(5, 2, "nmod")
+                .root(2)
+                .build();
+    }
+
+    private FeatureResourceManager getResources() throws MalformedURLException {
+        FeatureResourceManager resources = new DefaultFeatureResourceManager();
+        for (String key : new String[]{"first", "second"}) {
+            resources.registerInitializer(key, new DefaultTsvResourceInitializer<>(
+                    key, new File("src/test/resources/test_resource.tsv").toURI().toURL()));
+        }
+        return resources;
+    }
+
+    @Test
+    public void testAnnotate() throws MalformedURLException {
+        FusedResourceAnnotator<DepNode, NlpFocus<DepNode, DepTree>> annotator = new FusedResourceAnnotator<>();
+        annotator.addLookup("first", lowerForm())
+                .addLookup("second", form());
+        annotator.initialize(getResources());
+        NlpFocus<DepNode, DepTree> annotated = annotator.annotate(getTestInstance());
+        assertEquals(Collections.singletonList("noun"), annotated.get(1).feature("first"));
+        assertEquals(Collections.emptyList(), annotated.get(1).feature("second"));
+        assertEquals(Collections.singletonList("verb"), annotated.get(2).feature("first"));
+        assertEquals(Collections.singletonList("verb"), annotated.get(2).feature("second"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testResolveUninitialized() {
+        FusedResourceAnnotator<DepNode, NlpFocus<DepNode, DepTree>> annotator = new FusedResourceAnnotator<>();
+        annotator.addLookup("first", lowerForm()).lazy(true);
+        annotator.resolve(getTestInstance().get(1), "first");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAnnotateUninitialized() {
+        FusedResourceAnnotator<DepNode, NlpFocus<DepNode, DepTree>> annotator = new FusedResourceAnnotator<>();
+        annotator.addLookup("first", lowerForm());
+        annotator.annotate(getTestInstance());
+    }
+
+    @Test
+    public void testRestrictedContext() throws MalformedURLException {
+        FusedResourceAnnotator<DepNode, NlpFocus<DepNode, DepTree>> annotator
+                = new FusedResourceAnnotator<>(new DepChildrenContextFactory("nmod"));
+        annotator.addLookup("first", lowerForm());
+        annotator.initialize(getResources());
+        NlpFocus<DepNode, DepTree> annotated = annotator.annotate(getTestInstance());
+        assertEquals(Collections.singletonList("noun"), annotated.get(5).feature("first"));
+        assertNull(annotated.get(1).feature("first"));
+        assertNull(annotated.get(2).feature("first"));
+    }
+
+    @Test
+    public void testLazy() throws MalformedURLException {
+        FusedResourceAnnotator<DepNode, NlpFocus<DepNode, DepTree>> annotator = new FusedResourceAnnotator<>();
+        annotator.addLookup("first", lowerForm())
+                .lazy(true)
+                .initialize(getResources());
+        ListLookupFeatureExtractor<DepNode> extractor = new ListLookupFeatureExtractor<DepNode>("first")
+                .resolver(annotator);
+        NlpFocus<DepNode, DepTree> annotated = annotator.annotate(getTestInstance());
+        assertNull(annotated.get(1).feature("first"));
+        assertEquals(Collections.singletonList("noun"), extractor.extract(annotated.get(1)));
+        assertEquals(Collections.singletonList("noun"), annotated.get(1).feature("first"));
+        assertNull(annotated.get(2).feature("first"));
+    }
+
+}
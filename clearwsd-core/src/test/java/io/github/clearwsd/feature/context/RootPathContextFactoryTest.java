@@ -26,6 +26,8 @@ import io.github.clearwsd.type.NlpFocus;
 import io.github.clearwsd.feature.TestInstanceBuilder;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
 
 /**
  * @author jamesgung
@@ -50,5 +52,25 @@ public class RootPathContextFactoryTest {
         assertEquals(3, contexts.get(0).tokens().get(3).index());
     }
 
+    @Test
+    public void testMaxLength() {
+        NlpFocus<DepNode, DepTree> instance = getTestInstance();
+        List<DepNode> path = new RootPathContextFactory(false, 2).apply(instance).get(0).tokens();
+        assertEquals(2, path.size());
+        assertEquals(1, path.get(0).index());
+        assertEquals(3, new RootPathContextFactory(true, 3).apply(instance).get(0).tokens().size());
+    }
+
+    @Test
+    public void testIndexShared() {
+        NlpFocus<DepNode, DepTree> instance = getTestInstance();
+        DepTreeIndex index = DepTreeIndex.of(instance.sequence());
+        assertSame(index, DepTreeIndex.of(instance.sequence()));
+        assertTrue(instance.sequence().features().isEmpty()); // not stored on the tree
+        assertEquals(3, index.depth(0));
+        assertEquals(0, index.depth(3));
+        assertEquals(2, index.ancestors(1).size());
+        assertEquals(1, index.children(2, "nsubj").size());
+    }
 
 }
\ No newline at end of file
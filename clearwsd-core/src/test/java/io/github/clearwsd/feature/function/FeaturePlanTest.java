@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.function;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import io.github.clearwsd.feature.StringFeature;
+import io.github.clearwsd.feature.TestInstanceBuilder;
+import io.github.clearwsd.feature.context.DepChildrenContextFactory;
+import io.github.clearwsd.feature.extractor.StringExtractor;
+import io.github.clearwsd.feature.util.FeatureUtils;
+import io.github.clearwsd.type.DepNode;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.FeatureType;
+import io.github.clearwsd.type.NlpFocus;
+
+import static io.github.clearwsd.feature.context.Contexts.excludingDeps;
+import static io.github.clearwsd.feature.context.Contexts.head;
+import static io.github.clearwsd.feature.context.Contexts.window;
+import static io.github.clearwsd.feature.extractor.Extractors.concat;
+import static io.github.clearwsd.feature.extractor.Extractors.lookup;
+import static io.github.clearwsd.feature.extractor.Extractors.lowerForm;
+import static io.github.clearwsd.feature.function.Features.bias;
+import static io.github.clearwsd.feature.function.Features.cross;
+import static io.github.clearwsd.feature.function.Features.function;
+import static junit.framework.TestCase.assertEquals;
+
+/**
+ * {@link FeaturePlan} tests.
+ *
+ * @author jamesgung
+ */
+public class FeaturePlanTest {
+
+    private NlpFocus<DepNode, DepTree> getTestInstance() {
+        return new TestInstanceBuilder("the fox jumped over the fence", 2)
+                .addHead(0, 1, "det")
+                .addHead(1, 2, "nsubj")
+                .addHead(3, 5, "case")
+                .addHead(4, 5, "det")
+                .addHead(5, 2, "nmod")
+                .root(2)
+                .build();
+    }
+
+    @Test
+    public void testSameFeatures() {
+        StringExtractor<DepNode> text = lowerForm();
+        StringExtractor<DepNode> dep = lookup(FeatureType.Dep);
+        DepChildrenContextFactory depContexts = excludingDeps(new HashSet<>());
+        FeatureFunction<NlpFocus<DepNode, DepTree>> function = new AggregateFeatureFunction<>(Arrays.asList(
+                cross(function(depContexts, concat(text, dep))),
+                function(window(-1, 0, 1), Arrays.asList(text, dep)),
+                function(window(true, -1, 1), text),
+                function(depContexts, dep),
+                cross(function(head(), text), function(depContexts, text)),
+                bias()));
+
+        NlpFocus<DepNode, DepTree> instance = getTestInstance();
+        List<String> expected = function.apply(instance).stream().map(StringFeature::toString).collect(Collectors.toList());
+        List<String> result = FeaturePlan.compile(function).apply(instance).stream()
+                .map(StringFeature::toString).collect(Collectors.toList());
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void testHashedConjunction() {
+        StringExtractor<DepNode> text = lowerForm();
+        StringExtractor<DepNode> dep = lookup(FeatureType.Dep);
+        FeatureFunction<NlpFocus<DepNode, DepTree>> children = function(excludingDeps(new HashSet<>()), concat(text, dep));
+        ConjunctionFunction<NlpFocus<DepNode, DepTree>> conjunction = cross(children).hashed(true);
+
+        NlpFocus<DepNode, DepTree> instance = getTestInstance();
+        List<StringFeature> components = children.apply(instance);
+        Set<Long> expected = new HashSet<>();
+        for (StringFeature first : components) {
+            for (StringFeature second : components) {
+                if (!first.equals(second)) {
+                    expected.add(FeatureUtils.combine(FeatureUtils.hash(first.id(), first.value()),
+                            FeatureUtils.hash(second.id(), second.value())));
+                }
+            }
+        }
+        Set<Long> direct = new HashSet<>();
+        conjunction.apply(instance, hashes(direct));
+        Set<Long> planned = new HashSet<>();
+        FeaturePlan.compile(conjunction).apply(instance, hashes(planned));
+
+        assertEquals(components.size() * (components.size() - 1), expected.size());
+        assertEquals(expected, direct);
+        assertEquals(expected, planned);
+    }
+
+    private static FeatureSink hashes(Set<Long> hashes) {
+        return new FeatureSink() {
+            @Override
+            public void accept(String id, String value) {
+                throw new AssertionError("Expected only hashed features");
+            }
+
+            @Override
+            public void acceptHashed(String id, long hash) {
+                hashes.add(hash);
+            }
+        };
+    }
+
+}
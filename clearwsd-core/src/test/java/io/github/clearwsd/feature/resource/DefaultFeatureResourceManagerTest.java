@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.resource;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import io.github.clearwsd.feature.extractor.string.LowercaseFunction;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.fail;
+
+/**
+ * {@link DefaultFeatureResourceManager} tests.
+ *
+ * @author jamesgung
+ */
+public class DefaultFeatureResourceManagerTest {
+
+    private DefaultTsvResourceInitializer<String> initializer() throws MalformedURLException {
+        return new DefaultTsvResourceInitializer<>("testResource",
+                new File("src/test/resources/test_resource.tsv").toURI().toURL());
+    }
+
+    private static class CountingInitializer implements Supplier<FeatureResource<String, String>> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public FeatureResource<String, String> get() {
+            calls.incrementAndGet();
+            return new FeatureResource<String, String>() {
+                @Override
+                public String key() {
+                    return "counting";
+                }
+
+                @Override
+                public String lookup(String key) {
+                    return key.toUpperCase();
+                }
+            };
+        }
+    }
+
+    private static Set<String> reportedKeys(DefaultFeatureResourceManager resources) {
+        return resources.report().entries().stream()
+                .map(ResourceInitializationReport.Entry::key)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testParallelInitialization() throws MalformedURLException {
+        CountingInitializer counting = new CountingInitializer();
+        DefaultFeatureResourceManager resources = new DefaultFeatureResourceManager().threads(2);
+        resources.registerInitializer("first", initializer())
+                .registerInitializer("second", initializer().keyFunction(new LowercaseFunction()))
+                .registerInitializer("third", counting);
+        resources.initialize();
+
+        assertEquals(3, resources.report().entries().size());
+        assertEquals(new HashSet<>(Arrays.asList("first", "second", "third")), reportedKeys(resources));
+        assertEquals(2, resources.report().threads());
+
+        assertEquals(1, counting.calls.get());
+        FeatureResource<String, String> third = resources.getResource("third");
+        assertEquals("JUMPED", third.lookup("jumped"));
+        assertEquals(1, counting.calls.get());
+        FeatureResource<String, List<String>> first = resources.getResource("first");
+        assertEquals(Collections.singletonList("verb"), first.lookup("jumped"));
+        FeatureResource<String, List<String>> second = resources.getResource("second");
+        assertEquals(Collections.singletonList("noun"), second.lookup("fox"));
+        resources.release();
+    }
+
+    @Test
+    public void testSerialInitialization() throws MalformedURLException {
+        DefaultFeatureResourceManager resources = new DefaultFeatureResourceManager().threads(1);
+        resources.registerInitializer("first", initializer())
+                .registerInitializer("second", new CountingInitializer());
+        resources.initialize();
+
+        assertEquals(1, resources.report().threads());
+        assertEquals(new HashSet<>(Arrays.asList("first", "second")), reportedKeys(resources));
+        FeatureResource<String, List<String>> first = resources.getResource("first");
+        assertEquals(Collections.singletonList("verb"), first.lookup("jumped"));
+        resources.release();
+    }
+
+    @Test
+    public void testInitializationFailure() throws MalformedURLException {
+        for (int threads : new int[]{1, 2}) {
+            IllegalStateException error = new IllegalStateException("Missing resource file");
+            DefaultFeatureResourceManager resources = new DefaultFeatureResourceManager().threads(threads);
+            resources.registerInitializer("first", initializer())
+                    .registerInitializer("failing", () -> {
+                        throw error;
+                    });
+            try {
+                resources.initialize();
+                fail("Expected initialization to fail");
+            } catch (RuntimeException e) {
+                Throwable cause = e;
+                while (cause != null && cause != error) {
+                    cause = cause.getCause();
+                }
+                assertSame(error, cause);
+            } finally {
+                resources.release();
+            }
+        }
+    }
+
+}
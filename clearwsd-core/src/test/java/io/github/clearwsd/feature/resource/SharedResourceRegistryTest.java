@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.feature.resource;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.util.Collections;
+
+import io.github.clearwsd.feature.extractor.string.LowercaseFunction;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.fail;
+
+/**
+ * @author jamesgung
+ */
+public class SharedResourceRegistryTest {
+
+    private DefaultTsvResourceInitializer<String> initializer() throws MalformedURLException {
+        return new DefaultTsvResourceInitializer<>("testResource",
+                new File("src/test/resources/test_resource.tsv").toURI().toURL());
+    }
+
+    @Test
+    public void testShared() throws MalformedURLException {
+        SharedResourceRegistry registry = new SharedResourceRegistry();
+        DefaultTsvResourceInitializer<String> first = initializer();
+        DefaultTsvResourceInitializer<String> second = initializer();
+        assertEquals(first.identity(), second.identity());
+
+        MultimapResource<String> firstResource = registry.acquire(first);
+        MultimapResource<String> secondResource = registry.acquire(second);
+        assertSame(firstResource, secondResource);
+        assertEquals(Collections.singletonList("verb"), firstResource.lookup("jumped"));
+        assertEquals(2, registry.references(first.identity()));
+
+        registry.release(first.identity());
+        assertEquals(1, registry.size());
+        registry.release(second.identity());
+        assertEquals(0, registry.size());
+        assertNotSame(firstResource, registry.acquire(first));
+    }
+
+    @Test
+    public void testConfigurationIdentity() throws MalformedURLException {
+        TsvResourceInitializer<String> lowercase = initializer().keyFunction(new LowercaseFunction());
+        assertFalse(initializer().identity().equals(lowercase.identity()));
+    }
+
+    @Test
+    public void testProxy() throws MalformedURLException {
+        String identity = initializer().identity();
+        int references = SharedResourceRegistry.getInstance().references(identity);
+        DefaultFeatureResourceManager first = new DefaultFeatureResourceManager();
+        first.registerInitializer("testResource", initializer());
+        DefaultFeatureResourceManager second = new DefaultFeatureResourceManager();
+        second.registerInitializer("testResource", initializer());
+        first.initialize();
+        second.initialize();
+
+        assertEquals(references + 2, SharedResourceRegistry.getInstance().references(identity));
+        first.release();
+        second.release();
+        assertEquals(references, SharedResourceRegistry.getInstance().references(identity));
+    }
+
+    @Test
+    public void testLookupAfterRelease() throws MalformedURLException {
+        String identity = initializer().identity();
+        int references = SharedResourceRegistry.getInstance().references(identity);
+        @SuppressWarnings("unchecked")
+        FeatureResourceProxy proxy = new FeatureResourceProxy("testResource", initializer());
+        assertEquals(Collections.singletonList("verb"), proxy.lookup("jumped"));
+        proxy.release();
+        assertEquals(references, SharedResourceRegistry.getInstance().references(identity));
+        try {
+            proxy.lookup("jumped");
+            fail("Expected lookup to fail after release");
+        } catch (IllegalStateException e) {
+            // expected, released proxies do not silently re-acquire resources
+        }
+        assertEquals(references, SharedResourceRegistry.getInstance().references(identity));
+
+        proxy.initialize();
+        assertEquals(Collections.singletonList("verb"), proxy.lookup("jumped"));
+        assertEquals(references + 1, SharedResourceRegistry.getInstance().references(identity));
+        proxy.release();
+        assertEquals(references, SharedResourceRegistry.getInstance().references(identity));
+    }
+
+}
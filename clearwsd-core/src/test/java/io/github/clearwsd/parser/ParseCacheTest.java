@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.parser;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.github.clearwsd.corpus.CoNllDepTreeReader;
+import io.github.clearwsd.type.DepTree;
+import io.github.clearwsd.type.FeatureType;
+
+import static io.github.clearwsd.corpus.CoNllDepTreeReader.treeToString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ParseCache} tests.
+ *
+ * @author jamesgung
+ */
+public class ParseCacheTest {
+
+    private static final String TEST_PATH = "src/test/resources/test.dep";
+    private static final String FINGERPRINT = "parser-v1";
+
+    private static List<DepTree> trees() throws IOException {
+        return new CoNllDepTreeReader().readInstances(new FileInputStream(TEST_PATH));
+    }
+
+    private static List<String> tokens(DepTree tree) {
+        return tree.tokens().stream().map(t -> (String) t.feature(FeatureType.Text)).collect(Collectors.toList());
+    }
+
+    private static File file() throws IOException {
+        File file = File.createTempFile("parses", ".cache");
+        file.deleteOnExit();
+        assertTrue(file.delete());
+        return file;
+    }
+
+    @Test
+    public void testPersistence() throws IOException {
+        File file = file();
+        List<DepTree> trees = trees();
+        try (ParseCache cache = ParseCache.open(file.toPath(), ParseCache.DEFAULT_MAX_BYTES)) {
+            for (DepTree tree : trees) {
+                cache.put(FINGERPRINT, tokens(tree), tree);
+            }
+            cache.put(FINGERPRINT, tokens(trees.get(0)), trees.get(0));
+            assertEquals(trees.size(), cache.size());
+        }
+        try (ParseCache cache = ParseCache.open(file.toPath(), ParseCache.DEFAULT_MAX_BYTES)) {
+            assertEquals(trees.size(), cache.size());
+            for (DepTree tree : trees) {
+                assertEquals(treeToString(tree), treeToString(cache.get(FINGERPRINT, tokens(tree))));
+            }
+            assertNull(cache.get("parser-v2", tokens(trees.get(0))));
+            assertNull(cache.get(FINGERPRINT, Arrays.asList("not", "cached")));
+            assertEquals(trees.size(), cache.hits());
+            assertEquals(2, cache.misses());
+        }
+    }
+
+    @Test
+    public void testTruncatedRecord() throws IOException {
+        File file = file();
+        List<DepTree> trees = trees();
+        try (ParseCache cache = ParseCache.open(file.toPath(), ParseCache.DEFAULT_MAX_BYTES)) {
+            cache.put(FINGERPRINT, tokens(trees.get(0)), trees.get(0));
+            cache.put(FINGERPRINT, tokens(trees.get(1)), trees.get(1));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+        try (ParseCache cache = ParseCache.open(file.toPath(), ParseCache.DEFAULT_MAX_BYTES)) {
+            assertEquals(1, cache.size());
+            assertEquals(treeToString(trees.get(0)), treeToString(cache.get(FINGERPRINT, tokens(trees.get(0)))));
+            assertNull(cache.get(FINGERPRINT, tokens(trees.get(1))));
+        }
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        File file = file();
+        List<DepTree> trees = trees();
+        long maxBytes = 2048;
+        try (ParseCache cache = ParseCache.open(file.toPath(), maxBytes)) {
+            for (int i = 0; i < 50; ++i) {
+                DepTree tree = trees.get(i % trees.size());
+                cache.put("parser-" + i, tokens(tree), tree);
+                assertTrue(file.length() <= maxBytes);
+            }
+            DepTree last = trees.get(49 % trees.size());
+            assertEquals(treeToString(last), treeToString(cache.get("parser-49", tokens(last))));
+            assertNull(cache.get("parser-0", tokens(trees.get(0))));
+        }
+    }
+
+    @Test
+    public void testCachingParser() throws IOException {
+        List<DepTree> trees = trees();
+        NlpParser lookup = new NlpParser() {
+            private int parses;
+
+            @Override
+            public List<String> segment(String input) {
+                return Arrays.asList(input.split("\n"));
+            }
+
+            @Override
+            public List<String> tokenize(String sentence) {
+                return Arrays.asList(sentence.split(" "));
+            }
+
+            @Override
+            public DepTree parse(List<String> tokens) {
+                assertEquals("each sentence should only be parsed once", 0, parses++);
+                return trees.get(0);
+            }
+        };
+        try (ParseCache cache = ParseCache.open(file().toPath(), ParseCache.DEFAULT_MAX_BYTES)) {
+            CachingParser parser = new CachingParser(lookup, cache, "lookup");
+            List<String> tokens = tokens(trees.get(0));
+            DepTree first = parser.parse(tokens);
+            DepTree second = parser.parse(tokens);
+            assertEquals(treeToString(first), treeToString(second));
+            assertEquals(1, cache.hits());
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.type;
+
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import io.github.clearwsd.corpus.CoNllDepTreeReader;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * {@link OverlayDepTree} tests.
+ *
+ * @author jamesgung
+ */
+public class OverlayDepTreeTest {
+
+    @Test
+    public void testOverlay() throws IOException {
+        DepTree base = new CoNllDepTreeReader().readInstances(new FileInputStream("src/test/resources/test.dep")).get(0);
+        OverlayDepTree first = new OverlayDepTree(base);
+        OverlayDepTree second = new OverlayDepTree(base);
+
+        first.root().addFeature(FeatureType.Sense, "stop.01");
+        second.root().addFeature(FeatureType.Sense, "stop-55.4");
+        second.root().addFeature(FeatureType.Lemma, "halt");
+
+        assertEquals("stop.01", first.root().feature(FeatureType.Sense));
+        assertEquals("stop-55.4", second.root().feature(FeatureType.Sense));
+        assertEquals("stop", first.root().feature(FeatureType.Lemma));
+        assertEquals("halt", second.root().features().get(FeatureType.Lemma.name()));
+        assertNull(base.root().feature(FeatureType.Sense));
+        assertEquals("stop", base.root().feature(FeatureType.Lemma));
+
+        DepNode child = first.root().children().get(0);
+        assertSame(first.root(), child.head());
+        assertSame(child, first.get(child.index()));
+    }
+
+    @Test
+    public void testFeatureViews() throws IOException {
+        DepTree base = new CoNllDepTreeReader().readInstances(new FileInputStream("src/test/resources/test.dep")).get(0);
+        OverlayDepTree overlay = new OverlayDepTree(base);
+        DepNode root = overlay.root();
+        Map<String, Object> features = root.features();
+        int size = features.size();
+
+        // removing a base feature hides it from the overlay only
+        assertEquals("stop", features.remove(FeatureType.Lemma.name()));
+        assertNull(root.feature(FeatureType.Lemma));
+        assertFalse(root.features().containsKey(FeatureType.Lemma.name()));
+        assertEquals(size - 1, root.features().size());
+        assertEquals("stop", base.root().feature(FeatureType.Lemma));
+
+        // overriding a hidden feature makes it visible again
+        root.features().put(FeatureType.Lemma.name(), "halt");
+        assertEquals("halt", root.feature(FeatureType.Lemma));
+        assertEquals(size, root.features().size());
+
+        // entries write through to the overlay
+        for (Map.Entry<String, Object> entry : root.features().entrySet()) {
+            if (entry.getKey().equals(FeatureType.Pos.name())) {
+                entry.setValue("XX");
+            }
+        }
+        assertEquals("XX", root.feature(FeatureType.Pos));
+        root.features().keySet().remove(FeatureType.Pos.name());
+        assertNull(root.feature(FeatureType.Pos));
+        root.features().entrySet().removeIf(entry -> entry.getKey().equals(FeatureType.Text.name()));
+        assertNull(root.feature(FeatureType.Text));
+
+        root.features().clear();
+        assertTrue(root.features().isEmpty());
+        assertNull(root.feature(FeatureType.Lemma));
+        assertEquals(size, base.root().features().size());
+        assertEquals("stop", base.root().feature(FeatureType.Lemma));
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.type;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * {@link SlottedNlpInstance} tests.
+ *
+ * @author jamesgung
+ */
+public class SlottedNlpInstanceTest {
+
+    @Test
+    public void testFeatureKeys() {
+        SlottedNlpInstance instance = new SlottedNlpInstance(0);
+        instance.addFeature(FeatureType.Lemma, "run");
+        instance.addFeature("Pos", "VB");
+        instance.addFeature("brown", "0110");
+
+        assertEquals("run", instance.feature("Lemma"));
+        assertEquals("VB", instance.feature(FeatureType.Pos));
+        assertEquals("0110", instance.feature("brown"));
+        assertNull(instance.feature(FeatureType.Dep));
+        assertNull(instance.feature("missing"));
+    }
+
+    @Test
+    public void testFeatureMap() {
+        SlottedNlpInstance instance = new SlottedNlpInstance(0);
+        instance.addFeature(FeatureType.Text, "ran");
+        Map<String, Object> features = instance.features();
+        features.put("Lemma", "run");
+        features.put("brown", "0110");
+
+        assertEquals("run", instance.feature(FeatureType.Lemma));
+        assertEquals(3, features.size());
+        assertTrue(features.containsKey("Text"));
+        features.remove("Text");
+        assertNull(instance.feature(FeatureType.Text));
+        assertEquals("0\tLemma:run\tbrown:0110", instance.toString());
+    }
+
+    @Test
+    public void testEntrySetWritesThrough() {
+        SlottedNlpInstance instance = new SlottedNlpInstance(0);
+        instance.addFeature(FeatureType.Text, "ran");
+        instance.addFeature(FeatureType.Lemma, "run");
+        instance.addFeature("brown", "0110");
+        Map<String, Object> features = instance.features();
+
+        for (Map.Entry<String, Object> entry : features.entrySet()) {
+            if (entry.getKey().equals("Lemma")) {
+                entry.setValue("walk");
+            }
+        }
+        assertEquals("walk", instance.feature(FeatureType.Lemma));
+
+        features.entrySet().removeIf(e -> e.getKey().equals("brown"));
+        assertNull(instance.feature("brown"));
+        assertEquals(2, features.size());
+
+        Iterator<Map.Entry<String, Object>> iterator = features.entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(1, features.size());
+
+        features.clear();
+        assertTrue(features.isEmpty());
+        assertNull(instance.feature(FeatureType.Text));
+        assertNull(instance.feature(FeatureType.Lemma));
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.utils;
+
+import com.google.common.collect.Sets;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import io.github.clearwsd.WordSenseClassifier;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * @author jamesgung
+ */
+public class CompiledSenseInventoryTest {
+
+    private CountingSenseInventory getInventory() {
+        CountingSenseInventory inventory = new CountingSenseInventory();
+        inventory.addSense("run", "run-1");
+        inventory.addSense("run", "run-2");
+        inventory.addSense("run", "run-2");
+        inventory.addSense("walk", "walk-1");
+        return inventory;
+    }
+
+    @Test
+    public void testCompiled() {
+        CompiledSenseInventory<String> inventory = new CompiledSenseInventory<>(getInventory());
+        assertEquals(Sets.newHashSet("run-1", "run-2"), inventory.senses("run"));
+        assertSame(inventory.senses("run"), inventory.senses("run"));
+        assertEquals("run-2", inventory.defaultSense("run"));
+        assertTrue(inventory.hasSense("walk", "walk-1"));
+        assertFalse(inventory.hasSense("walk", "run-1"));
+        assertEquals(Collections.emptySet(), inventory.senses("jump"));
+        assertEquals(SenseInventory.DEFAULT_SENSE, inventory.defaultSense("jump"));
+    }
+
+    @Test
+    public void testLabels() {
+        CompiledSenseInventory<String> inventory = new CompiledSenseInventory<>(getInventory());
+        int[] labels = inventory.labels("run");
+        assertEquals(2, labels.length);
+        for (int label : labels) {
+            assertTrue(inventory.senses("run").contains(inventory.label(label)));
+        }
+        assertEquals(-1, inventory.labelIndex("jump-1"));
+    }
+
+    @Test
+    public void testAddSense() {
+        CompiledSenseInventory<String> inventory = new CompiledSenseInventory<>(getInventory());
+        assertEquals("walk-1", inventory.defaultSense("walk"));
+        inventory.addSense("walk", "walk-2");
+        inventory.addSense("walk", "walk-2");
+        assertEquals(Sets.newHashSet("walk-1", "walk-2"), inventory.senses("walk"));
+        assertEquals("walk-2", inventory.defaultSense("walk"));
+    }
+
+    @Test
+    public void testUnknownLemmasNotMemoized() {
+        CountingSenseInventory base = getInventory();
+        CompiledSenseInventory<String> inventory = new CompiledSenseInventory<>(base);
+        assertEquals(Collections.emptySet(), inventory.senses("jump"));
+        base.addSense("jump", "jump-1");
+        assertEquals(Collections.singleton("jump-1"), inventory.senses("jump"));
+    }
+
+    @Test
+    public void testClassifierInventory() {
+        CountingSenseInventory base = getInventory();
+        assertSame(base, new WordSenseClassifier(null, base, null).senseInventory());
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link OntoNotesSenseInventory} tests.
+ *
+ * @author jamesgung
+ */
+public class OntoNotesSenseInventoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path writeInventories() throws IOException {
+        Path directory = folder.newFolder("inventories").toPath();
+        Files.createDirectories(directory.resolve("verbs"));
+        writeInventory(directory.resolve("verbs/run-v.xml"), "run-v", "1", "2", "3");
+        writeInventory(directory.resolve("verbs/call-v.xml"), "call-v", "1", "2");
+        writeInventory(directory.resolve("stop-v.xml"), "stop-v", "1");
+        return directory;
+    }
+
+    private static void writeInventory(Path path, String lemma, String... senses) throws IOException {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?>\n<inventory lemma=\"" + lemma + "\">\n");
+        for (String sense : senses) {
+            xml.append("  <sense n=\"").append(sense).append("\" name=\"").append(lemma).append(' ').append(sense)
+                    .append("\" group=\"1\"><examples>example</examples></sense>\n");
+        }
+        xml.append("</inventory>\n");
+        Files.write(path, xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadDirectory() throws IOException {
+        OntoNotesSenseInventory inventory = new OntoNotesSenseInventory(writeInventories());
+        // inventories are ordered by file path
+        assertEquals(Arrays.asList("stop-v", "call-v", "run-v"), new ArrayList<>(inventory.lemmas()));
+        assertEquals(new HashSet<>(Arrays.asList("run-v:1", "run-v:2", "run-v:3")), inventory.senses("run-v"));
+        assertEquals("call-v:1", inventory.defaultSense("call-v"));
+        assertEquals("run-v 2", inventory.getSense("run-v:2").getName());
+    }
+
+    @Test
+    public void testReadFile() throws IOException {
+        Path directory = writeInventories();
+        OntoNotesSenseInventory inventory = new OntoNotesSenseInventory(directory.resolve("verbs/call-v.xml"));
+        assertEquals(Collections.singleton("call-v"), inventory.lemmas());
+        assertEquals(new HashSet<>(Arrays.asList("call-v:1", "call-v:2")), inventory.senses("call-v"));
+
+        // compiled inventories are recognized by content rather than by extension
+        Path compiled = folder.getRoot().toPath().resolve("inventories.xml");
+        OntoNotesSenseInventory.compile(directory, compiled, 1);
+        assertEquals(3, new OntoNotesSenseInventory(compiled).lemmas().size());
+    }
+
+    @Test
+    public void testCompile() throws IOException {
+        Path directory = writeInventories();
+        Path compiled = folder.getRoot().toPath().resolve("inventories.bin");
+        OntoNotesSenseInventory.compile(directory, compiled, 2);
+
+        OntoNotesSenseInventory inventory = new OntoNotesSenseInventory(compiled);
+        assertEquals(Arrays.asList("stop-v", "call-v", "run-v"), new ArrayList<>(inventory.lemmas()));
+        assertEquals(new HashSet<>(Arrays.asList("call-v:1", "call-v:2")), inventory.senses("call-v"));
+        assertEquals("stop-v 1", inventory.getSense("stop-v:1").getName());
+    }
+
+    @Test
+    public void testCached() throws IOException {
+        Path directory = writeInventories();
+        Path cache = folder.getRoot().toPath().resolve("inventories.bin");
+        assertEquals(3, OntoNotesSenseInventory.cached(directory, cache).lemmas().size());
+        assertTrue(Files.exists(cache));
+
+        // compiled inventory is used while up to date
+        Path added = directory.resolve("walk-v.xml");
+        writeInventory(added, "walk-v", "1");
+        FileTime past = FileTime.fromMillis(Files.getLastModifiedTime(cache).toMillis() - 60000);
+        Files.setLastModifiedTime(added, past);
+        Files.setLastModifiedTime(directory, past);
+        assertEquals(3, OntoNotesSenseInventory.cached(directory, cache).lemmas().size());
+
+        // and re-compiled once any inventory changes
+        Files.setLastModifiedTime(added, FileTime.fromMillis(Files.getLastModifiedTime(cache).toMillis() + 60000));
+        assertEquals(4, OntoNotesSenseInventory.cached(directory, cache).lemmas().size());
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 James Gung
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.clearwsd.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link OrderedParallelIterator} tests.
+ *
+ * @author jamesgung
+ */
+public class OrderedParallelIteratorTest {
+
+    @Test
+    public void testOrder() {
+        List<Integer> input = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        List<String> results = new ArrayList<>();
+        new OrderedParallelIterator<Integer, String>(input.iterator(), () -> i -> "value-" + i, 4, 3)
+                .forEachRemaining(results::add);
+        assertEquals(input.stream().map(i -> "value-" + i).collect(Collectors.toList()), results);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertTrue(!new OrderedParallelIterator<>(new ArrayList<Integer>().iterator(), Function::identity, 2).hasNext());
+    }
+
+    @Test
+    public void testError() {
+        List<Integer> input = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        OrderedParallelIterator<Integer, Integer> iterator = new OrderedParallelIterator<>(input.iterator(), () -> i -> {
+            if (i == 50) {
+                throw new IllegalStateException("failed on " + i);
+            }
+            return i;
+        }, 3, 4);
+        try {
+            iterator.forEachRemaining(i -> {
+            });
+            fail("Expected worker error to be rethrown");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testWorkerErrorNotException() {
+        List<Integer> input = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        OrderedParallelIterator<Integer, Integer> iterator = new OrderedParallelIterator<>(input.iterator(), () -> i -> {
+            if (i == 50) {
+                throw new AssertionError("failed on " + i);
+            }
+            return i;
+        }, 3, 4);
+        try {
+            iterator.forEachRemaining(i -> {
+            });
+            fail("Expected worker error to be rethrown");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+    }
+
+    @Test
+    public void testReadAheadBounded() throws InterruptedException {
+        AtomicInteger pulled = new AtomicInteger();
+        Iterator<Integer> source = IntStream.range(0, 1000).peek(i -> pulled.incrementAndGet()).boxed().iterator();
+        try (OrderedParallelIterator<Integer, Integer> iterator = new OrderedParallelIterator<>(source, Function::identity, 2, 1)) {
+            assertEquals(0, (int) iterator.next());
+            Thread.sleep(200);
+            // 4 * threads batches in flight, plus one element held by the reader while waiting for a permit
+            assertTrue("Reader ran ahead by " + pulled.get() + " elements", pulled.get() <= 10);
+        }
+    }
+
+}
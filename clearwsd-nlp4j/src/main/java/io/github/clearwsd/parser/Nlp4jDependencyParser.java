@@ -32,6 +32,7 @@ import io.github.clearwsd.type.DefaultDepTree;
 import io.github.clearwsd.type.DepNode;
 import io.github.clearwsd.type.DepTree;
 import io.github.clearwsd.type.FeatureType;
+import io.github.clearwsd.type.SymbolTable;
 
 /**
  * Dependency parser implementation wrapping <a href="https://emorynlp.github.io/nlp4j/">NLP4J</a>. Applies part-of-speech
@@ -68,12 +69,13 @@ public class Nlp4jDependencyParser implements NlpParser {
         NLPNode[] tree = nlp4j.decode(nlp4j.toNodeArray(tokens.stream().map(Token::new).collect(Collectors.toList())));
         List<DepNode> depNodes = new ArrayList<>();
         Map<Integer, Integer> headMap = new HashMap<>();
+        SymbolTable symbols = SymbolTable.getInstance();
         for (int i = 1; i < tree.length; ++i) {
             NLPNode node = tree[i];
             DefaultDepNode depNode = new DefaultDepNode(i - 1);
             depNode.addFeature(FeatureType.Text, node.getWordForm());
-            depNode.addFeature(FeatureType.Pos, node.getPartOfSpeechTag());
-            depNode.addFeature(FeatureType.Dep, node.getDependencyLabel());
+            depNode.addFeature(FeatureType.Pos, symbols.intern(node.getPartOfSpeechTag()));
+            depNode.addFeature(FeatureType.Dep, symbols.intern(node.getDependencyLabel()));
             depNode.addFeature(FeatureType.Lemma, node.getLemma());
             headMap.put(i - 1, node.getDependencyHead().getID() - 1);
             depNodes.add(depNode);
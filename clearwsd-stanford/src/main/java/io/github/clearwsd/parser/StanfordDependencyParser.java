@@ -37,6 +37,7 @@ import io.github.clearwsd.type.DefaultDepTree;
 import io.github.clearwsd.type.DepNode;
 import io.github.clearwsd.type.DepTree;
 import io.github.clearwsd.type.FeatureType;
+import io.github.clearwsd.type.SymbolTable;
 import lombok.Getter;
 
 import static edu.stanford.nlp.parser.nndep.DependencyParser.DEFAULT_MODEL;
@@ -145,12 +146,13 @@ public class StanfordDependencyParser implements NlpParser {
     private List<DepNode> toTokens(List<CoreLabel> cls) {
         int index = 0;
         List<DepNode> tokens = new ArrayList<>();
+        SymbolTable symbols = SymbolTable.getInstance();
         for (Iterator<CoreLabel> iterator = cls.iterator(); iterator.hasNext(); ++index) {
             CoreLabel coreLabel = iterator.next();
             DefaultDepNode token = new DefaultDepNode(index);
             token.addFeature(FeatureType.Text, coreLabel.originalText());
             token.addFeature(FeatureType.Lemma, coreLabel.lemma());
-            token.addFeature(FeatureType.Pos, coreLabel.tag());
+            token.addFeature(FeatureType.Pos, symbols.intern(coreLabel.tag()));
             tokens.add(token);
         }
         return tokens;
@@ -176,7 +178,7 @@ public class StanfordDependencyParser implements NlpParser {
             if (collapsed || (rel.dep().index() == rel.gov().index()) || collapsedRel.gov().index() <= 0) {
                 rel = collapsedRel;
             }
-            token.addFeature(FeatureType.Dep, rel.reln().toString());
+            token.addFeature(FeatureType.Dep, SymbolTable.getInstance().intern(rel.reln().toString()));
             int head = rel.gov().index() - 1;
             if (head >= 0) {
                 ((DefaultDepNode) token).head(tokens.get(head));